@@ -0,0 +1,121 @@
+package org.daisy.dotify.translator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.daisy.dotify.translator.impl.sv_SE.SwedishBrailleFilter;
+
+/**
+ * <p>Provides text corpora for the benchmarks. Each corpus is a list of paragraphs
+ * in one language, mixing running text with headings, numbers, abbreviations,
+ * quotations and web addresses, so that the benchmarks exercise the same code
+ * paths as real books do.</p>
+ *
+ * <p>The corpora are read from the resources <code>corpus/&lt;language&gt;.txt</code>,
+ * where paragraphs are separated by blank lines.</p>
+ *
+ * @author Joel Håkansson
+ */
+public final class BenchmarkCorpus {
+	/**
+	 * The languages that have a corpus.
+	 */
+	public static final String[] LANGUAGES = {"sv", "en", "de", "fr", "es", "da", "fi", "nl"};
+
+	private BenchmarkCorpus() {
+		//hide constructor
+	}
+
+	/**
+	 * Gets the corpus for a language.
+	 * @param language the language, for example <code>sv</code> or <code>en-US</code>.
+	 * 		Only the language part is used.
+	 * @return an unmodifiable list of paragraphs
+	 * @throws IllegalArgumentException if there is no corpus for the language
+	 */
+	public static List<String> paragraphs(String language) {
+		String lang = language.split("[-_]", 2)[0];
+		InputStream is = BenchmarkCorpus.class.getResourceAsStream("corpus/" + lang + ".txt");
+		if (is==null) {
+			throw new IllegalArgumentException("No corpus for " + language);
+		}
+		List<String> ret = new ArrayList<>();
+		try (BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
+			StringBuilder sb = new StringBuilder();
+			String line;
+			while ((line = br.readLine())!=null) {
+				if (line.trim().isEmpty()) {
+					if (sb.length()>0) {
+						ret.add(sb.toString());
+						sb = new StringBuilder();
+					}
+				} else {
+					if (sb.length()>0) {
+						sb.append(' ');
+					}
+					sb.append(line.trim());
+				}
+			}
+			if (sb.length()>0) {
+				ret.add(sb.toString());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return Collections.unmodifiableList(ret);
+	}
+
+	/**
+	 * Gets the words of the corpus for a language, in order.
+	 * @param language the language
+	 * @return a list of words
+	 * @throws IllegalArgumentException if there is no corpus for the language
+	 */
+	public static List<String> words(String language) {
+		List<String> ret = new ArrayList<>();
+		for (String p : paragraphs(language)) {
+			Collections.addAll(ret, p.split("\\s+"));
+		}
+		return ret;
+	}
+
+	/**
+	 * Gets the Swedish corpus in braille, as returned by a braille filter. Since there
+	 * is no hyphenator here, a soft hyphen is inserted after every third letter of
+	 * words that are longer than six letters, so that the text has hyphenation points
+	 * for the row breaking and finalization benchmarks.
+	 * @return an unmodifiable list of paragraphs
+	 */
+	public static List<String> braille() {
+		SwedishBrailleFilter filter = new SwedishBrailleFilter("sv-SE");
+		List<String> ret = new ArrayList<>();
+		for (String p : paragraphs("sv")) {
+			StringBuilder sb = new StringBuilder();
+			for (String w : p.split(" ")) {
+				if (sb.length()>0) {
+					sb.append(' ');
+				}
+				if (w.length()>6) {
+					for (int i = 0; i < w.length(); i++) {
+						if (i>0 && i % 3 == 0 && i < w.length() - 2) {
+							sb.append('\u00ad');
+						}
+						sb.append(w.charAt(i));
+					}
+				} else {
+					sb.append(w);
+				}
+			}
+			ret.add(filter.filter(sb.toString()));
+		}
+		return Collections.unmodifiableList(ret);
+	}
+
+}
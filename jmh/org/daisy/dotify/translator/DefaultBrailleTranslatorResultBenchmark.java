@@ -0,0 +1,84 @@
+package org.daisy.dotify.translator;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.daisy.dotify.api.translator.BrailleTranslatorResult;
+import org.daisy.dotify.common.text.BreakPointHandler;
+import org.daisy.dotify.translator.impl.DefaultBrailleFinalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures row breaking with <code>DefaultBrailleTranslatorResult</code>. Each paragraph
+ * of the braille corpus is broken into rows of the given width, with and without a
+ * finalizer, and the result is also copied midway, the way the formatter does when it
+ * tries out different row widths.
+ *
+ * @author Joel Håkansson
+ */
+@SuppressWarnings("javadoc")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefaultBrailleTranslatorResultBenchmark {
+	@Param({"20", "32", "40"})
+	public int width;
+
+	private List<String> paragraphs;
+	private BrailleFinalizer finalizer;
+
+	@Setup
+	public void setup() {
+		paragraphs = BenchmarkCorpus.braille();
+		finalizer = new DefaultBrailleFinalizer();
+	}
+
+	private void breakRows(Blackhole bh, BrailleFinalizer f) {
+		for (String p : paragraphs) {
+			BrailleTranslatorResult res = new DefaultBrailleTranslatorResult(new BreakPointHandler(p), f);
+			while (res.hasNext()) {
+				bh.consume(res.nextTranslatedRow(width, true, false));
+			}
+		}
+	}
+
+	@Benchmark
+	public void rows(Blackhole bh) {
+		breakRows(bh, null);
+	}
+
+	@Benchmark
+	public void rowsFinalized(Blackhole bh) {
+		breakRows(bh, finalizer);
+	}
+
+	@Benchmark
+	public void rowsWithCopy(Blackhole bh) {
+		for (String p : paragraphs) {
+			BrailleTranslatorResult res = new DefaultBrailleTranslatorResult(new BreakPointHandler(p), finalizer);
+			bh.consume(res.nextTranslatedRow(width, true, false));
+			BrailleTranslatorResult copy = res.copy();
+			while (copy.hasNext()) {
+				bh.consume(copy.nextTranslatedRow(width - 2, true, false));
+			}
+			while (res.hasNext()) {
+				bh.consume(res.nextTranslatedRow(width, true, false));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,113 @@
+package org.daisy.dotify.translator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.daisy.dotify.api.translator.AttributeWithContext;
+import org.daisy.dotify.api.translator.DefaultAttributeWithContext;
+import org.daisy.dotify.api.translator.DefaultTextAttribute;
+import org.daisy.dotify.api.translator.TextAttribute;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures <code>DefaultMarkerProcessor</code> on the corpus for a language. Each paragraph
+ * is split into words, every third word is emphasized and every fifth word is strong.
+ * The processor uses regex dictionaries for emphasis and strong, like the Swedish
+ * marker processor does.
+ *
+ * @author Joel Håkansson
+ */
+@SuppressWarnings("javadoc")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefaultMarkerProcessorBenchmark {
+	@Param({"sv", "en", "de", "fr"})
+	public String language;
+
+	private DefaultMarkerProcessor mp;
+	private List<String[]> texts;
+	private List<TextAttribute> attributes;
+	private List<AttributeWithContext> contexts;
+
+	@Setup
+	public void setup() {
+		mp = new DefaultMarkerProcessor.Builder()
+				.addDictionary(MarkerStyleConstants.STRONG, new RegexMarkerDictionary.Builder()
+						.addPattern("\\s+", new Marker("\u2828\u2828", "\u2831"), new Marker("\u2828", ""))
+						.build())
+				.addDictionary(MarkerStyleConstants.EM, new RegexMarkerDictionary.Builder()
+						.addPattern("\\s+", new Marker("\u2820\u2824", "\u2831"), new Marker("\u2820\u2804", ""))
+						.build())
+				.build();
+		texts = new ArrayList<>();
+		attributes = new ArrayList<>();
+		contexts = new ArrayList<>();
+		for (String p : BenchmarkCorpus.paragraphs(language)) {
+			String[] words = p.split(" ");
+			for (int i = 0; i < words.length - 1; i++) {
+				words[i] = words[i] + " ";
+			}
+			DefaultTextAttribute.Builder ta = new DefaultTextAttribute.Builder();
+			DefaultAttributeWithContext.Builder ac = new DefaultAttributeWithContext.Builder();
+			int width = 0;
+			for (int i = 0; i < words.length; i++) {
+				String style = toStyle(i);
+				ta.add(new DefaultTextAttribute.Builder(style).build(words[i].length()));
+				ac.add(new DefaultAttributeWithContext.Builder(style).build(1));
+				width += words[i].length();
+			}
+			texts.add(words);
+			attributes.add(ta.build(width));
+			contexts.add(ac.build(words.length));
+		}
+	}
+
+	private static String toStyle(int i) {
+		if (i % 5 == 4) {
+			return MarkerStyleConstants.STRONG;
+		} else if (i % 3 == 2) {
+			return MarkerStyleConstants.EM;
+		} else {
+			return null;
+		}
+	}
+
+	@Benchmark
+	public void processAttributes(Blackhole bh) {
+		for (int i = 0; i < texts.size(); i++) {
+			bh.consume(mp.processAttributes(attributes.get(i), texts.get(i)));
+		}
+	}
+
+	@Benchmark
+	public void processAttributesRetain(Blackhole bh) {
+		for (int i = 0; i < texts.size(); i++) {
+			bh.consume(mp.processAttributesRetain(attributes.get(i), texts.get(i)));
+		}
+	}
+
+	@Benchmark
+	public void processAttributesRetainWithContext(Blackhole bh) {
+		for (int i = 0; i < texts.size(); i++) {
+			bh.consume(mp.processAttributesRetain(contexts.get(i), Arrays.asList(texts.get(i))));
+		}
+	}
+
+}
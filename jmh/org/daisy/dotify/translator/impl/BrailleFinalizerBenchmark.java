@@ -0,0 +1,57 @@
+package org.daisy.dotify.translator.impl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.daisy.dotify.translator.BenchmarkCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the braille finalizers on the braille corpus.
+ *
+ * @author Joel Håkansson
+ */
+@SuppressWarnings("javadoc")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BrailleFinalizerBenchmark {
+	private List<String> paragraphs;
+	private DefaultBrailleFinalizer defaultFinalizer;
+	private ConfigurableBrailleFinalizer configurableFinalizer;
+
+	@Setup
+	public void setup() {
+		paragraphs = BenchmarkCorpus.braille();
+		defaultFinalizer = new DefaultBrailleFinalizer();
+		configurableFinalizer = new ConfigurableBrailleFinalizer.Builder().space("\u2800").hyphen("\u2824").build();
+	}
+
+	@Benchmark
+	public void defaultFinalizer(Blackhole bh) {
+		for (String p : paragraphs) {
+			bh.consume(defaultFinalizer.finalizeBraille(p));
+		}
+	}
+
+	@Benchmark
+	public void configurableFinalizer(Blackhole bh) {
+		for (String p : paragraphs) {
+			bh.consume(configurableFinalizer.finalizeBraille(p));
+		}
+	}
+
+}
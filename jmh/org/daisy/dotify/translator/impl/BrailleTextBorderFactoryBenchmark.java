@@ -0,0 +1,58 @@
+package org.daisy.dotify.translator.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.daisy.dotify.api.translator.TextBorderConfigurationException;
+import org.daisy.dotify.api.translator.TextBorderStyle;
+import org.daisy.dotify.api.translator.TranslatorType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the creation of border styles with <code>BrailleTextBorderFactory</code>,
+ * from setting the features to rendering the border. A new factory is used each
+ * time, since that is how the factory is used.
+ *
+ * @author Joel Håkansson
+ */
+@SuppressWarnings("javadoc")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BrailleTextBorderFactoryBenchmark {
+	@Param({"uncontracted", "bypass"})
+	public String mode;
+
+	private BrailleTextBorderFactory newFactory() {
+		BrailleTextBorderFactory f = new BrailleTextBorderFactory();
+		f.setFeature("mode", "bypass".equals(mode)?TranslatorType.BYPASS.toString():TranslatorType.UNCONTRACTED.toString());
+		f.setFeature("border-style", "solid");
+		return f;
+	}
+
+	@Benchmark
+	public TextBorderStyle solid() throws TextBorderConfigurationException {
+		return newFactory().newTextBorderStyle();
+	}
+
+	@Benchmark
+	public TextBorderStyle mixed() throws TextBorderConfigurationException {
+		BrailleTextBorderFactory f = newFactory();
+		f.setFeature("border-left-style", "none");
+		f.setFeature("border-right-width", "2");
+		f.setFeature("border-top-align", "outer");
+		return f.newTextBorderStyle();
+	}
+
+}
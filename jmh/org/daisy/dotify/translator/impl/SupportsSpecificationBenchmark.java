@@ -0,0 +1,78 @@
+package org.daisy.dotify.translator.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.daisy.dotify.api.translator.BrailleFilterFactoryService;
+import org.daisy.dotify.api.translator.BrailleTranslatorFactoryService;
+import org.daisy.dotify.api.translator.TranslatorSpecification;
+import org.daisy.dotify.translator.impl.liblouis.LiblouisBrailleFilterFactoryService;
+import org.daisy.dotify.translator.impl.liblouis.LiblouisBrailleTranslatorFactoryService;
+import org.daisy.dotify.translator.impl.sv_SE.SwedishBrailleFilterFactoryService;
+import org.daisy.dotify.translator.impl.sv_SE.SwedishBrailleTranslatorFactoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the throughput of <code>supportsSpecification</code>, the way the factory
+ * makers use it: every registered service is asked about every specification,
+ * including the ones it doesn't support.
+ * 
+ * @author Joel Håkansson
+ */
+@SuppressWarnings("javadoc")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SupportsSpecificationBenchmark {
+	private List<BrailleTranslatorFactoryService> translatorServices;
+	private List<BrailleFilterFactoryService> filterServices;
+	private String[] locales;
+	private String[] modes;
+
+	@Setup
+	public void setup() {
+		translatorServices = Arrays.asList(new LiblouisBrailleTranslatorFactoryService(), new SwedishBrailleTranslatorFactoryService());
+		filterServices = Arrays.asList(new LiblouisBrailleFilterFactoryService(), new SwedishBrailleFilterFactoryService());
+		List<TranslatorSpecification> specs = new ArrayList<>();
+		for (BrailleTranslatorFactoryService s : translatorServices) {
+			specs.addAll(s.listSpecifications());
+		}
+		for (BrailleFilterFactoryService s : filterServices) {
+			specs.addAll(s.listSpecifications());
+		}
+		locales = new String[specs.size()];
+		modes = new String[specs.size()];
+		for (int i = 0; i < specs.size(); i++) {
+			locales[i] = specs.get(i).getLocale();
+			modes[i] = specs.get(i).getMode();
+		}
+	}
+
+	@Benchmark
+	public void allServicesAllSpecifications(Blackhole bh) {
+		for (int i = 0; i < locales.length; i++) {
+			for (BrailleTranslatorFactoryService s : translatorServices) {
+				bh.consume(s.supportsSpecification(locales[i], modes[i]));
+			}
+			for (BrailleFilterFactoryService s : filterServices) {
+				bh.consume(s.supportsSpecification(locales[i], modes[i]));
+			}
+		}
+	}
+
+}
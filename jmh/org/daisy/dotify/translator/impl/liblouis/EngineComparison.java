@@ -0,0 +1,169 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.daisy.dotify.api.translator.TranslatorSpecification;
+import org.daisy.dotify.common.text.StringFilter;
+import org.daisy.dotify.translator.BenchmarkCorpus;
+import org.daisy.dotify.translator.impl.liblouis.java.LiblouisBrailleFilter;
+import org.daisy.dotify.translator.impl.liblouis.java.LiblouisTables;
+import org.liblouis.CompilationException;
+import org.liblouis.DisplayTable.Fallback;
+import org.liblouis.DisplayTable.UnicodeBrailleDisplayTable;
+import org.liblouis.Translator;
+
+/**
+ * <p>Compares the pure-Java Liblouis engine with the native Liblouis library, for
+ * every table in the table index that both engines can load. For each table, the
+ * time to load the table, the throughput in characters per second and the
+ * allocation in bytes per character are reported for each engine, followed by the
+ * paragraphs that the engines translate differently.</p>
+ *
+ * <p>Each table is translated with the corpus for its language or, if there is
+ * none, with the English corpus. Tables are only loaded once by each engine, so
+ * the load time includes reading the table files.</p>
+ *
+ * <p>Run with <code>gradlew compareLiblouisEngines</code>. Optional arguments are the
+ * tables to compare, by default all tables are compared.</p>
+ *
+ * @author Joel Håkansson
+ */
+@SuppressWarnings("javadoc")
+public class EngineComparison {
+	private static final long WARMUP_NANOS = TimeUnit.SECONDS.toNanos(1);
+	private static final long MEASUREMENT_NANOS = TimeUnit.SECONDS.toNanos(2);
+	private static final int MAX_DIFFERENCES = 5;
+
+	public static void main(String[] args) {
+		// Tables by path, with the locale of the first specification that uses it
+		Map<String, String> tables = new LinkedHashMap<>();
+		for (TranslatorSpecification spec : LiblouisSpecifications.listSpecifications()) {
+			String table = LiblouisSpecifications.getTable(spec);
+			if (args.length==0 || Arrays.asList(args).contains(table)) {
+				tables.putIfAbsent(table, spec.getLocale());
+			}
+		}
+		System.out.println("table\tcorpus\tjava load ms\tnative load ms\tjava chars/s\tnative chars/s\tjava bytes/char\tnative bytes/char\tdifferences");
+		List<String> report = new ArrayList<>();
+		int skipped = 0;
+		for (Map.Entry<String, String> e : tables.entrySet()) {
+			String table = e.getKey();
+			long start = System.nanoTime();
+			Optional<LiblouisBrailleFilter> java = LiblouisTables.load(table);
+			long javaLoad = System.nanoTime() - start;
+			if (!java.isPresent()) {
+				skipped++;
+				continue;
+			}
+			Translator translator;
+			start = System.nanoTime();
+			try {
+				synchronized (LiblouisTableCache.NATIVE_LOCK) {
+					translator = new Translator(table);
+				}
+			} catch (CompilationException ex) {
+				skipped++;
+				continue;
+			}
+			long nativeLoad = System.nanoTime() - start;
+			StringFilter nativeFilter = s->translate(translator, s);
+			String corpus = hasCorpus(e.getValue())?e.getValue():"en";
+			List<String> paragraphs = BenchmarkCorpus.paragraphs(corpus);
+			Result javaResult = measure(java.get(), paragraphs);
+			Result nativeResult = measure(nativeFilter, paragraphs);
+			int differences = 0;
+			for (String p : paragraphs) {
+				String j = java.get().filter(p);
+				String n = nativeFilter.filter(p);
+				if (!j.equals(n)) {
+					differences++;
+					if (differences<=MAX_DIFFERENCES) {
+						report.add(table + "\n  input:  " + p + "\n  java:   " + j + "\n  native: " + n);
+					}
+				}
+			}
+			System.out.println(String.format("%s\t%s\t%.1f\t%.1f\t%.0f\t%.0f\t%.1f\t%.1f\t%d/%d",
+					table, corpus, javaLoad/1e6, nativeLoad/1e6,
+					javaResult.charsPerSecond, nativeResult.charsPerSecond,
+					javaResult.bytesPerChar, nativeResult.bytesPerChar,
+					differences, paragraphs.size()));
+		}
+		System.out.println();
+		System.out.println(skipped + " of " + tables.size() + " tables could not be loaded by both engines.");
+		if (!report.isEmpty()) {
+			System.out.println();
+			System.out.println("Differences (at most " + MAX_DIFFERENCES + " per table):");
+			for (String s : report) {
+				System.out.println(s);
+			}
+		}
+	}
+
+	static boolean hasCorpus(String locale) {
+		String lang = locale.split("[-_]", 2)[0];
+		return Arrays.asList(BenchmarkCorpus.LANGUAGES).contains(lang);
+	}
+
+	static String translate(Translator translator, String text) {
+		try {
+			synchronized (LiblouisTableCache.NATIVE_LOCK) {
+				return translator.translate(text, null, null, null, new UnicodeBrailleDisplayTable(Fallback.MASK)).getBraille();
+			}
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static Result measure(StringFilter filter, List<String> paragraphs) {
+		run(filter, paragraphs, WARMUP_NANOS);
+		long bytes = allocatedBytes();
+		long start = System.nanoTime();
+		long chars = run(filter, paragraphs, MEASUREMENT_NANOS);
+		long time = System.nanoTime() - start;
+		bytes = allocatedBytes() - bytes;
+		return new Result(chars * 1e9 / time, bytes<0?Double.NaN:(double)bytes / chars);
+	}
+
+	private static long run(StringFilter filter, List<String> paragraphs, long nanos) {
+		long end = System.nanoTime() + nanos;
+		long chars = 0;
+		int hash = 0;
+		do {
+			for (String p : paragraphs) {
+				hash += filter.filter(p).hashCode();
+				chars += p.length();
+			}
+		} while (System.nanoTime() < end);
+		if (hash==42) {
+			// Keeps the results from being optimized away
+			System.out.print("");
+		}
+		return chars;
+	}
+
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	private static class Result {
+		private final double charsPerSecond;
+		private final double bytesPerChar;
+
+		private Result(double charsPerSecond, double bytesPerChar) {
+			this.charsPerSecond = charsPerSecond;
+			this.bytesPerChar = bytesPerChar;
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.daisy.dotify.api.translator.Translatable;
+import org.daisy.dotify.api.translator.TranslationException;
+import org.daisy.dotify.api.translator.TranslatorSpecification;
+import org.daisy.dotify.translator.BenchmarkCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures <code>LiblouisBrailleFilter</code> across a representative set of tables,
+ * each with the corpus for its language. Paragraphs are translated one by one, and
+ * the words of the corpus are translated both one by one and as a batch, the way
+ * table cells and other short segments are. The segment cache is disabled and
+ * hyphenation is turned off, so that each call reaches Liblouis.
+ *
+ * @author Joel Håkansson
+ */
+@SuppressWarnings("javadoc")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LiblouisBrailleFilterBenchmark {
+	@Param({"en/uncontracted", "en/contracted", "de/contracted", "fr/uncontracted", "es/uncontracted", "da/uncontracted", "fi/uncontracted", "nl/uncontracted"})
+	public String table;
+
+	private LiblouisBrailleFilter filter;
+	private List<Translatable> paragraphs;
+	private List<Translatable> words;
+
+	@Setup
+	public void setup() {
+		int i = table.indexOf('/');
+		String locale = table.substring(0, i);
+		filter = new LiblouisBrailleFilter(new TranslatorSpecification(locale, table.substring(i+1)), LiblouisMarkerProcessor.newInstance(), null, null);
+		paragraphs = new ArrayList<>();
+		for (String p : BenchmarkCorpus.paragraphs(locale)) {
+			paragraphs.add(Translatable.text(p).locale(locale).hyphenate(false).build());
+		}
+		words = new ArrayList<>();
+		for (String w : BenchmarkCorpus.words(locale)) {
+			words.add(Translatable.text(w).locale(locale).hyphenate(false).build());
+		}
+	}
+
+	@Benchmark
+	public void paragraphs(Blackhole bh) throws TranslationException {
+		for (Translatable t : paragraphs) {
+			bh.consume(filter.filter(t));
+		}
+	}
+
+	@Benchmark
+	public void words(Blackhole bh) throws TranslationException {
+		for (Translatable t : words) {
+			bh.consume(filter.filter(t));
+		}
+	}
+
+	@Benchmark
+	public List<String> wordsBatch() throws TranslationException {
+		return filter.filterAll(words);
+	}
+
+}
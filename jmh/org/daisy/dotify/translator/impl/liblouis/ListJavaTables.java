@@ -0,0 +1,106 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import org.daisy.dotify.api.translator.TranslatorSpecification;
+import org.daisy.dotify.translator.BenchmarkCorpus;
+import org.daisy.dotify.translator.impl.liblouis.java.LiblouisBrailleFilter;
+import org.daisy.dotify.translator.impl.liblouis.java.LiblouisTables;
+import org.liblouis.CompilationException;
+import org.liblouis.Translator;
+
+/**
+ * <p>Lists the tables in the table index that the pure-Java engine translates
+ * exactly like the native Liblouis library, in the format used by the
+ * liblouis-java-tables.txt resource. The output is written to the file given
+ * as the first argument, or to standard out.</p>
+ *
+ * <p>A table is listed if the pure-Java engine recognizes every line in it, and
+ * if both engines produce the same braille for every paragraph in the corpus for
+ * its language (or the English corpus, if there is none), for the same paragraphs
+ * in upper case, and for the digits.</p>
+ *
+ * @author Joel Håkansson
+ */
+@SuppressWarnings("javadoc")
+public class ListJavaTables {
+	private static final String DIGITS = "0 1 12 2019 3.14 1,000,000 no. 7a";
+
+	public static void main(String[] args) throws IOException {
+		try (PrintWriter out = args.length>0
+				?new PrintWriter(new OutputStreamWriter(new FileOutputStream(args[0]), StandardCharsets.UTF_8))
+				:new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+			out.print("# Generated by ListJavaTables, do not edit. Regenerate with: gradlew generateLiblouisJavaTables\n");
+			out.print("# tables that the pure-Java engine translates exactly like liblouis, one per line\n");
+			listTables(out);
+		}
+	}
+
+	private static void listTables(PrintWriter out) {
+		// Tables by path, with the locale of the first specification that uses it
+		Map<String, String> tables = new LinkedHashMap<>();
+		for (TranslatorSpecification spec : LiblouisSpecifications.listSpecifications()) {
+			tables.putIfAbsent(LiblouisSpecifications.getTable(spec), spec.getLocale());
+		}
+		for (Map.Entry<String, String> e : tables.entrySet()) {
+			String table = e.getKey();
+			Optional<LiblouisBrailleFilter> java = LiblouisTables.load(table);
+			if (!java.isPresent()) {
+				continue;
+			}
+			Translator translator;
+			try {
+				synchronized (LiblouisTableCache.NATIVE_LOCK) {
+					translator = new Translator(table);
+				}
+			} catch (CompilationException ex) {
+				System.err.println("Failed to read from table path: " + table);
+				continue;
+			}
+			String corpus = EngineComparison.hasCorpus(e.getValue())?e.getValue():"en";
+			String difference = findDifference(java.get(), translator, inputs(corpus));
+			if (difference==null) {
+				out.print(table + "\n");
+			} else {
+				System.err.println("Not listed: " + table + "\n  input: " + difference);
+			}
+		}
+	}
+
+	private static List<String> inputs(String corpus) {
+		List<String> ret = new ArrayList<>();
+		for (String p : BenchmarkCorpus.paragraphs(corpus)) {
+			ret.add(p);
+			ret.add(p.toUpperCase(Locale.ROOT));
+		}
+		ret.add(DIGITS);
+		return ret;
+	}
+
+	/**
+	 * Finds the first input that the engines translate differently.
+	 * @param java the pure-Java filter
+	 * @param translator the native translator
+	 * @param inputs the inputs
+	 * @return returns the input, or null if all inputs are translated the same
+	 */
+	private static String findDifference(LiblouisBrailleFilter java, Translator translator, List<String> inputs) {
+		for (String p : inputs) {
+			if (!java.filter(p).equals(EngineComparison.translate(translator, p))) {
+				return p;
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,104 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the mapping from a hyphenated string to intercharacter attributes before
+ * and after it was changed to scan the strings in place. Run with <code>-prof gc</code>
+ * (the default for the <code>jmh</code> gradle task) to see the bytes allocated per operation.
+ * 
+ * @author Joel Håkansson
+ */
+@SuppressWarnings("javadoc")
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToLiblouisSpecificationBenchmark {
+	private static final int SOFT_HYPHEN = 0x00ad;
+	private static final int ZERO_WIDTH_SPACE = 0x200b;
+
+	@Param({"short", "paragraph"})
+	public String text;
+
+	private String input;
+	private String hyph;
+	private int[] buffer;
+
+	@Setup
+	public void setup() {
+		if ("short".equals(text)) {
+			input = "hyphenate";
+			hyph = "hy\u00adphen\u00adate";
+		} else {
+			StringBuilder in = new StringBuilder();
+			StringBuilder hy = new StringBuilder();
+			for (int i = 0; i < 20; i++) {
+				in.append("Hyphenation breaks internationalization/localization ");
+				hy.append("Hy\u00adphen\u00ada\u00adtion breaks in\u00adter\u00adna\u00adtion\u00adal\u00adi\u00adza\u00adtion/\u200blo\u00adcal\u00adi\u00adza\u00adtion ");
+			}
+			input = in.toString();
+			hyph = hy.toString();
+		}
+		buffer = new int[input.length()];
+	}
+
+	@Benchmark
+	public int[] codePointArrays() {
+		return legacyInterCharAttributes(hyph, input);
+	}
+
+	@Benchmark
+	public LiblouisTranslatable toLiblouisSpecification() {
+		return LiblouisBrailleFilter.toLiblouisSpecification(hyph, input);
+	}
+
+	@Benchmark
+	public int scanningIntoBuffer() {
+		return LiblouisBrailleFilter.toInterCharAttributes(hyph, input, buffer);
+	}
+
+	/**
+	 * The implementation used before the strings were scanned in place.
+	 */
+	private static int[] legacyInterCharAttributes(String hyphStr, String inputStr) {
+		int[] cpHyph = hyphStr.codePoints().toArray();
+		int[] cpInput = inputStr.codePoints().toArray();
+		int j=0;
+		int flag;
+		int[] interCharAttr = new int[cpInput.length-1];
+		int[] charAtts = new int[cpInput.length];
+		for (int i=0; i<cpInput.length; i++) {
+			charAtts[i]=i;
+			flag = 0;
+			while (j<cpHyph.length && i<cpInput.length-1 && cpInput[i+1]!=cpHyph[j]) {
+				if (cpHyph[j]==SOFT_HYPHEN) {
+					flag = 1;
+				} else if (cpHyph[j]==ZERO_WIDTH_SPACE && flag!=1) {
+					flag = 2;
+				}
+				j++;
+			}
+			j++;
+			if (i<cpInput.length-1) {
+				interCharAttr[i] = flag;
+			}
+		}
+		return interCharAttr;
+	}
+
+}
@@ -0,0 +1,106 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.daisy.dotify.api.translator.DefaultTextAttribute;
+import org.daisy.dotify.api.translator.TextAttribute;
+import org.daisy.dotify.api.translator.TranslatorMode;
+import org.daisy.dotify.api.translator.TranslatorSpecification;
+import org.daisy.dotify.api.translator.TranslatorType;
+import org.liblouis.CompilationException;
+import org.liblouis.Translator;
+import org.liblouis.Typeform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the recursive type form construction with the interval based one,
+ * for text attributes with increasing nesting depth.
+ * 
+ * @author Joel Håkansson
+ */
+@SuppressWarnings("javadoc")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToTypeFormBenchmark {
+	private static final int WIDTH = 200;
+
+	@Param({"1", "8", "32"})
+	public int depth;
+
+	private TextAttribute attribute;
+	private Map<String, Typeform> typeforms;
+
+	@Setup
+	public void setup() throws CompilationException {
+		Translator table = LiblouisTableCache.getInstance().acquire(LiblouisSpecifications.getTable(
+				new TranslatorSpecification("en", TranslatorMode.Builder.withType(TranslatorType.UNCONTRACTED).build())), this);
+		synchronized (LiblouisTableCache.NATIVE_LOCK) {
+			typeforms = table.getSupportedTypeforms().stream().collect(Collectors.toMap(x->x.getName(), x->x));
+		}
+		TextAttribute ta = new DefaultTextAttribute.Builder("italic").add(WIDTH).build(WIDTH);
+		int width = WIDTH;
+		for (int i = 1; i < depth; i++) {
+			width += 4;
+			ta = new DefaultTextAttribute.Builder(i%2==0?"italic":"bold")
+					.add(2)
+					.add(ta)
+					.add(2)
+					.build(width);
+		}
+		attribute = ta;
+	}
+
+	@Benchmark
+	public Typeform[] recursive() {
+		return recursiveTypeForm(attribute, typeforms);
+	}
+
+	@Benchmark
+	public Typeform[] intervals() {
+		return LiblouisBrailleFilter.toTypeForm(attribute, typeforms);
+	}
+
+	/**
+	 * The implementation used before the attribute tree was flattened into intervals.
+	 */
+	private static Typeform[] recursiveTypeForm(TextAttribute attr, Map<String, Typeform> map) {
+		Typeform[] ret = new Typeform[attr.getWidth()];
+		Typeform typeForm = Typeform.PLAIN_TEXT;
+		if (attr.getDictionaryIdentifier()!=null) {
+			typeForm = Optional.ofNullable(map.get(attr.getDictionaryIdentifier())).orElse(typeForm);
+		}
+		if (attr.hasChildren()) {
+			int offset = 0;
+			for (TextAttribute t : attr) {
+				Typeform[] v = recursiveTypeForm(t, map);
+				for (int i=0; i<v.length; i++) {
+					ret[i+offset] = typeForm.add(v[i]);
+				}
+				offset += t.getWidth();
+			}
+		} else {
+			for (int i=0; i<ret.length; i++) {
+				ret[i] = typeForm;
+			}
+		}
+		return ret;
+	}
+
+}
@@ -0,0 +1,89 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the time to load all tables in the Liblouis table index with
+ * <code>LiblouisFileReader</code>. The tables are read from the tables bundled
+ * with liblouis-java. Opcodes that the pure-Java engine doesn't support are
+ * tokenized and skipped. Includes are either parsed every time or
+ * shared between the tables of an invocation.
+ *
+ * @author Joel Håkansson
+ */
+@SuppressWarnings("javadoc")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BundledTableLoadBenchmark {
+	private static final String INDEX = "/org/daisy/dotify/translator/impl/liblouis/liblouis-specifications.tsv";
+	private static final String TABLES = "/org/liblouis/resource-files/tables/";
+	@Param({"false", "true"})
+	public boolean sharedIncludes;
+
+	private ResourceResolver resolver;
+	private List<String> tables;
+
+	@Setup
+	public void setup() throws IOException {
+		resolver = new ClassLoaderResourceResolver(TABLES, StandardCharsets.UTF_8);
+		Set<String> names = new LinkedHashSet<>();
+		try (BufferedReader br = new BufferedReader(new InputStreamReader(
+				BundledTableLoadBenchmark.class.getResourceAsStream(INDEX), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = br.readLine())!=null) {
+				if (!line.isEmpty() && !line.startsWith("#")) {
+					for (String t : line.split("\t")[3].split(",")) {
+						names.add(t);
+					}
+				}
+			}
+		}
+		tables = new ArrayList<>();
+		for (String t : names) {
+			ResourceDescriptor rd = resolver.resolve(t);
+			if (rd!=null) {
+				rd.getInputStream().close();
+				tables.add(t);
+			}
+		}
+		if (tables.isEmpty()) {
+			throw new IllegalStateException("No tables found in " + TABLES);
+		}
+	}
+
+	@Benchmark
+	public void loadAll(Blackhole bh) throws IOException {
+		IncludeCache cache = new IncludeCache();
+		for (String t : tables) {
+			LiblouisFileReader reader = new LiblouisFileReader(resolver, sharedIncludes?cache:new IncludeCache());
+			reader.parse(resolver.resolve(t));
+			bh.consume(reader.getFilter());
+		}
+	}
+
+}
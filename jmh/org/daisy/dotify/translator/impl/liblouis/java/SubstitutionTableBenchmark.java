@@ -0,0 +1,77 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.daisy.dotify.translator.BenchmarkCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares lookups in <code>SubstitutionTable</code> with lookups in the
+ * <code>HashMap</code> that the pure-Java Liblouis filter used before. The table
+ * maps the letters, digits and punctuation of the corpus, as well as a range of
+ * supplementary code points. The lookups are the code points of the corpus for
+ * all languages, followed by the supplementary code points.
+ *
+ * @author Joel Håkansson
+ */
+@SuppressWarnings("javadoc")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubstitutionTableBenchmark {
+	private Map<Integer, Substitution> map;
+	private SubstitutionTable table;
+	private int[] codePoints;
+
+	@Setup
+	public void setup() {
+		StringBuilder sb = new StringBuilder();
+		for (String lang : BenchmarkCorpus.LANGUAGES) {
+			for (String p : BenchmarkCorpus.paragraphs(lang)) {
+				sb.append(p).append(' ');
+			}
+		}
+		// Mathematical alphanumeric symbols
+		for (int cp = 0x1D400; cp < 0x1D400 + 52; cp++) {
+			sb.appendCodePoint(cp);
+		}
+		codePoints = sb.codePoints().toArray();
+		map = new HashMap<>();
+		for (int cp : codePoints) {
+			if (!Character.isWhitespace(cp)) {
+				map.put(cp, new Substitution(Character.toString((char)(0x2800 + (cp & 0xFF)))));
+			}
+		}
+		table = new SubstitutionTable(map);
+	}
+
+	@Benchmark
+	public void hashMap(Blackhole bh) {
+		for (int cp : codePoints) {
+			bh.consume(map.get(Integer.valueOf(cp)));
+		}
+	}
+
+	@Benchmark
+	public void substitutionTable(Blackhole bh) {
+		for (int cp : codePoints) {
+			bh.consume(table.get(cp));
+		}
+	}
+
+}
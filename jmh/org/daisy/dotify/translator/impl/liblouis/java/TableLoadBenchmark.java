@@ -0,0 +1,106 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares loading a pure-Java liblouis table by parsing the text table with
+ * loading the same table from its compiled form. The table is generated, with
+ * letters, digits, punctuation and a range of signs written in escaped form,
+ * in about the size of a typical character definition table.
+ *
+ * @author Joel Håkansson
+ */
+@SuppressWarnings("javadoc")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableLoadBenchmark {
+	private static final Charset UTF_8 = StandardCharsets.UTF_8;
+	private File text;
+	private File compiled;
+
+	@Setup
+	public void setup() throws IOException {
+		text = File.createTempFile("table", ".ctb");
+		try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(new FileOutputStream(text), UTF_8))) {
+			pw.println("# generated");
+			pw.println("numsign 3456");
+			pw.println("capsign 6");
+			for (char c = 'a'; c <= 'z'; c++) {
+				pw.println("uplow " + Character.toUpperCase(c) + c + " " + dots(c));
+			}
+			for (char c = '0'; c <= '9'; c++) {
+				pw.println("digit " + c + " " + dots(c));
+			}
+			for (char c : ".,;:!?-()'\"".toCharArray()) {
+				pw.println("punctuation " + c + " " + dots(c));
+			}
+			pw.println("space \\s 0");
+			for (int cp = 0xA0; cp < 0x300; cp++) {
+				pw.println(String.format("sign \\x%04x %s", cp, dots(cp)));
+			}
+		}
+		LiblouisFileReader reader = new LiblouisFileReader();
+		try (InputStream is = new FileInputStream(text)) {
+			reader.parse(new ResourceDescriptor(is, UTF_8));
+		}
+		compiled = File.createTempFile("table", ".bin");
+		CompiledTable.write(reader.getFilter(), compiled);
+	}
+
+	private static String dots(int cp) {
+		int bits = cp % 63 + 1;
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 6; i++) {
+			if ((bits & (1 << i))!=0) {
+				sb.append(i + 1);
+			}
+		}
+		return sb.toString();
+	}
+
+	@TearDown
+	public void tearDown() {
+		text.delete();
+		compiled.delete();
+	}
+
+	@Benchmark
+	public LiblouisBrailleFilter parseText() throws IOException {
+		LiblouisFileReader reader = new LiblouisFileReader();
+		try (InputStream is = new FileInputStream(text)) {
+			reader.parse(new ResourceDescriptor(is, UTF_8));
+		}
+		return reader.getFilter();
+	}
+
+	@Benchmark
+	public LiblouisBrailleFilter loadCompiled() throws IOException {
+		return CompiledTable.read(compiled);
+	}
+
+}
@@ -0,0 +1,131 @@
+package org.daisy.dotify.translator.impl.sv_SE;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.daisy.dotify.api.translator.DefaultTextAttribute;
+import org.daisy.dotify.api.translator.TextAttribute;
+import org.daisy.dotify.api.translator.Translatable;
+import org.daisy.dotify.api.translator.TranslationException;
+import org.daisy.dotify.translator.BenchmarkCorpus;
+import org.daisy.dotify.translator.DefaultBrailleFilter;
+import org.daisy.dotify.translator.DefaultMarkerProcessor;
+import org.daisy.dotify.translator.MarkerStyleConstants;
+import org.daisy.dotify.translator.impl.sv_SE.DigitFilter.Algorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the Swedish filter pipeline on the Swedish corpus, one paragraph at a time:
+ * the digit filter on its own (replacing the former <code>BenchmarkDigitFilter</code>),
+ * the string filter, both fused and staged, and the complete braille filter with marker processing. Hyphenation
+ * is turned off, since the hyphenator isn't part of this project.
+ *
+ * @author Joel Håkansson
+ */
+@SuppressWarnings("javadoc")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwedishBrailleFilterBenchmark {
+	private static final String LOCALE = "sv-SE";
+	private List<String> paragraphs;
+	private List<Translatable> plain;
+	private List<Translatable> styled;
+	private DigitFilter regexDigitFilter;
+	private DigitFilter specializedDigitFilter;
+	private SwedishBrailleFilter stringFilter;
+	private SwedishBrailleFilter stagedStringFilter;
+	private DefaultBrailleFilter brailleFilter;
+
+	@Setup
+	public void setup() throws Exception {
+		paragraphs = BenchmarkCorpus.paragraphs(LOCALE);
+		plain = new ArrayList<>();
+		styled = new ArrayList<>();
+		for (String p : paragraphs) {
+			plain.add(Translatable.text(p).locale(LOCALE).hyphenate(false).build());
+			styled.add(Translatable.text(p).locale(LOCALE).hyphenate(false).attributes(toAttributes(p)).build());
+		}
+		regexDigitFilter = new DigitFilter(Algorithm.REGEX);
+		specializedDigitFilter = new DigitFilter(Algorithm.SPECIALIZED);
+		stringFilter = new SwedishBrailleFilter(LOCALE);
+		stagedStringFilter = new SwedishBrailleFilter(LOCALE, false, SwedishBrailleFilter.Algorithm.STAGED);
+		DefaultMarkerProcessor mp = new SwedishMarkerProcessorFactory().newMarkerProcessor(LOCALE, "uncontracted");
+		brailleFilter = new DefaultBrailleFilter(new SwedishBrailleFilter(LOCALE), LOCALE, mp, null);
+	}
+
+	/**
+	 * Marks the first word of the paragraph as strong and the second as emphasized.
+	 */
+	private static TextAttribute toAttributes(String p) {
+		int first = p.indexOf(' ');
+		int second = first<0?-1:p.indexOf(' ', first + 1);
+		DefaultTextAttribute.Builder b = new DefaultTextAttribute.Builder();
+		if (second<0) {
+			b.add(new DefaultTextAttribute.Builder(MarkerStyleConstants.STRONG).build(p.length()));
+		} else {
+			b.add(new DefaultTextAttribute.Builder(MarkerStyleConstants.STRONG).build(first));
+			b.add(new DefaultTextAttribute.Builder().build(1));
+			b.add(new DefaultTextAttribute.Builder(MarkerStyleConstants.EM).build(second - first - 1));
+			b.add(new DefaultTextAttribute.Builder().build(p.length() - second));
+		}
+		return b.build(p.length());
+	}
+
+	@Benchmark
+	public void digitFilterRegex(Blackhole bh) {
+		for (String p : paragraphs) {
+			bh.consume(regexDigitFilter.filter(p));
+		}
+	}
+
+	@Benchmark
+	public void digitFilterSpecialized(Blackhole bh) {
+		for (String p : paragraphs) {
+			bh.consume(specializedDigitFilter.filter(p));
+		}
+	}
+
+	@Benchmark
+	public void stringFilter(Blackhole bh) {
+		for (String p : paragraphs) {
+			bh.consume(stringFilter.filter(p));
+		}
+	}
+
+	@Benchmark
+	public void stringFilterStaged(Blackhole bh) {
+		for (String p : paragraphs) {
+			bh.consume(stagedStringFilter.filter(p));
+		}
+	}
+
+	@Benchmark
+	public void brailleFilter(Blackhole bh) throws TranslationException {
+		for (Translatable t : plain) {
+			bh.consume(brailleFilter.filter(t));
+		}
+	}
+
+	@Benchmark
+	public void brailleFilterWithAttributes(Blackhole bh) throws TranslationException {
+		for (Translatable t : styled) {
+			bh.consume(brailleFilter.filter(t));
+		}
+	}
+
+}
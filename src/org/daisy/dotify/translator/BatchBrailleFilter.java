@@ -0,0 +1,52 @@
+package org.daisy.dotify.translator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.daisy.dotify.api.translator.BrailleFilter;
+import org.daisy.dotify.api.translator.Translatable;
+import org.daisy.dotify.api.translator.TranslationException;
+
+/**
+ * <p>Provides a braille filter that can translate many translatables at once,
+ * for example the cells of a table. This is faster than translating them one at
+ * a time when each translation has a fixed cost, such as a call to a native
+ * library.</p>
+ *
+ * <p>Since a filter obtained from a factory is only known to be a {@link BrailleFilter},
+ * use {@link #filterAll(BrailleFilter, List)}, which uses the batch translation
+ * when the filter supports it.</p>
+ *
+ * @author Joel Håkansson
+ */
+public interface BatchBrailleFilter extends BrailleFilter {
+
+	/**
+	 * Translates several translatables. The result is the same as calling
+	 * {@link #filter(Translatable)} for each translatable.
+	 * @param specifications the translatables
+	 * @return a list of translated strings, in the same order as the input
+	 * @throws TranslationException if the translation fails
+	 */
+	public List<String> filterAll(List<Translatable> specifications) throws TranslationException;
+
+	/**
+	 * Translates several translatables with a filter, in one batch if the
+	 * filter is a {@link BatchBrailleFilter}, otherwise one at a time.
+	 * @param filter the filter
+	 * @param specifications the translatables
+	 * @return a list of translated strings, in the same order as the input
+	 * @throws TranslationException if the translation fails
+	 */
+	public static List<String> filterAll(BrailleFilter filter, List<Translatable> specifications) throws TranslationException {
+		if (filter instanceof BatchBrailleFilter) {
+			return ((BatchBrailleFilter)filter).filterAll(specifications);
+		}
+		List<String> ret = new ArrayList<>(specifications.size());
+		for (Translatable t : specifications) {
+			ret.add(filter.filter(t));
+		}
+		return ret;
+	}
+
+}
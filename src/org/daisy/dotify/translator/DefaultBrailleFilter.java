@@ -1,11 +1,9 @@
 package org.daisy.dotify.translator;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.logging.Logger;
@@ -14,13 +12,13 @@ import java.util.stream.Stream;
 
 import org.daisy.dotify.api.hyphenator.HyphenatorConfigurationException;
 import org.daisy.dotify.api.hyphenator.HyphenatorFactoryMakerService;
-import org.daisy.dotify.api.hyphenator.HyphenatorInterface;
 import org.daisy.dotify.api.translator.BrailleFilter;
 import org.daisy.dotify.api.translator.ResolvableText;
 import org.daisy.dotify.api.translator.Translatable;
 import org.daisy.dotify.api.translator.TranslatableWithContext;
 import org.daisy.dotify.api.translator.TranslationException;
 import org.daisy.dotify.common.text.StringFilter;
+import org.daisy.dotify.translator.TranslatorMetrics.Stage;
 
 /**
  * Provides a configurable braille filter, in cases where a full implementation
@@ -35,9 +33,11 @@ public class DefaultBrailleFilter implements BrailleFilter {
 
 	private final String loc;
 	private final StringFilter filter;
+	private final String source;
 	private final DefaultMarkerProcessor tap;
+	// Keeps the factory maker reachable for the registry
 	private final HyphenatorFactoryMakerService hyphenatorFactoryMaker;
-	private final Map<String, HyphenatorInterface> hyphenators;
+	private final HyphenatorRegistry hyphenators;
 	
 	/**
 	 * Creates a new default braille filter with the supplied parameters.
@@ -59,9 +59,10 @@ public class DefaultBrailleFilter implements BrailleFilter {
 	public DefaultBrailleFilter(StringFilter filter, String locale, DefaultMarkerProcessor tap, HyphenatorFactoryMakerService hyphenatorFactoryMaker) {
 		this.loc = locale;
 		this.filter = filter;
+		this.source = filter.getClass().getName();
 		this.tap = tap;
-		this.hyphenators = new HashMap<>();
 		this.hyphenatorFactoryMaker = hyphenatorFactoryMaker;
+		this.hyphenators = hyphenatorFactoryMaker==null?null:HyphenatorRegistry.forFactoryMaker(hyphenatorFactoryMaker);
 	}
 
 	@Override
@@ -84,23 +85,25 @@ public class DefaultBrailleFilter implements BrailleFilter {
 		}
 		
 		if (specification.isHyphenating()) {
-			HyphenatorInterface h = hyphenators.get(locale);
-			if (h == null) {
-				try {
-					h = hyphenatorFactoryMaker.newHyphenator(locale);
-				} catch (HyphenatorConfigurationException e) {
-					throw new DefaultBrailleFilterException(e);
-				}
-				hyphenators.put(locale, h);
+			long t = TranslatorMetrics.start();
+			try {
+				text = hyphenators.hyphenate(locale, text);
+			} catch (HyphenatorConfigurationException e) {
+				throw new DefaultBrailleFilterException(e);
 			}
-			text = h.hyphenate(text);
+			TranslatorMetrics.record(source, locale, Stage.HYPHENATION, t);
 		}
 		
 		if (tap != null) {
+			long t = TranslatorMetrics.start();
 			text = tap.processAttributes(specification.getAttributes(), text);
+			TranslatorMetrics.record(source, locale, Stage.MARKER_PROCESSING, t);
 		}
 
-		return filter.filter(text);
+		long t = TranslatorMetrics.start();
+		String ret = filter.filter(text);
+		TranslatorMetrics.record(source, locale, Stage.FILTER, t);
+		return ret;
 	}
 
 	@Override
@@ -115,7 +118,9 @@ public class DefaultBrailleFilter implements BrailleFilter {
 			Stream<String> preceding = specification.getPrecedingText().stream().map(v->v.resolve());
 			Stream<String> following = specification.getFollowingText().stream().map(v->v.peek());
 			List<String> textsI = Stream.concat(Stream.concat(preceding, inStream), following).collect(Collectors.toList());
+			long t = TranslatorMetrics.start();
 			String[] out = tap.processAttributesRetain(specification.getAttributes().get(), textsI);
+			TranslatorMetrics.record(source, loc, Stage.MARKER_PROCESSING, t);
 			int start = specification.getPrecedingText().size();
 			int end = start + specification.getTextToTranslate().size();
 			texts = Arrays.asList(out).subList(start, end);
@@ -4,35 +4,51 @@ import org.daisy.dotify.api.translator.BrailleTranslatorResult;
 import org.daisy.dotify.api.translator.UnsupportedMetricException;
 import org.daisy.dotify.common.text.BreakPoint;
 import org.daisy.dotify.common.text.BreakPointHandler;
+import org.daisy.dotify.translator.TranslatorMetrics.Stage;
 
 class DefaultBrailleTranslatorResult implements BrailleTranslatorResult {
 	private final BreakPointHandler bph;
 	private final BrailleFinalizer finalizer;
+	private final String source;
+	private final String locale;
 	private int forceCount;
 
 	public DefaultBrailleTranslatorResult(BreakPointHandler bph, BrailleFinalizer finalizer) {
+		this(bph, finalizer, null, null);
+	}
+
+	/**
+	 * Creates a new result.
+	 * @param bph the break point handler
+	 * @param finalizer the finalizer, or null
+	 * @param source the source used when recording metrics, or null
+	 * @param locale the locale used when recording metrics, or null
+	 */
+	DefaultBrailleTranslatorResult(BreakPointHandler bph, BrailleFinalizer finalizer, String source, String locale) {
 		this.bph = bph;
 		this.finalizer = finalizer;
+		this.source = source;
+		this.locale = locale;
 		this.forceCount = 0;
 	}
 	
 	private DefaultBrailleTranslatorResult(DefaultBrailleTranslatorResult template) {
 		this.bph = template.bph.copy();
 		this.finalizer = template.finalizer;
+		this.source = template.source;
+		this.locale = template.locale;
 		this.forceCount = template.forceCount;
 	}
 
 	@Override
 	public String nextTranslatedRow(int limit, boolean force, boolean wholeWordsOnly) {
+		long t = TranslatorMetrics.start();
 		BreakPoint bp = bph.nextRow(limit, force, wholeWordsOnly);
+		TranslatorMetrics.record(source, locale, Stage.ROW_BREAKING, t);
 		if (bp.isHardBreak()) {
 			forceCount++;
 		}
-		if (finalizer!=null) {
-			return finalizer.finalizeBraille(bp.getHead());
-		} else {
-			return bp.getHead();
-		}
+		return finalizeRow(bp.getHead());
 	}
 	
 	@Override
@@ -42,10 +58,17 @@ class DefaultBrailleTranslatorResult implements BrailleTranslatorResult {
 
 	@Override
 	public String getTranslatedRemainder() {
+		return finalizeRow(bph.getRemaining());
+	}
+
+	private String finalizeRow(String str) {
 		if (finalizer!=null) {
-			return finalizer.finalizeBraille(bph.getRemaining());
+			long t = TranslatorMetrics.start();
+			String ret = finalizer.finalizeBraille(str);
+			TranslatorMetrics.record(source, locale, Stage.FINALIZATION, t);
+			return ret;
 		} else {
-			return bph.getRemaining();
+			return str;
 		}
 	}
 
@@ -0,0 +1,199 @@
+package org.daisy.dotify.translator;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.daisy.dotify.api.hyphenator.HyphenatorConfigurationException;
+import org.daisy.dotify.api.hyphenator.HyphenatorFactoryMakerService;
+import org.daisy.dotify.api.hyphenator.HyphenatorInterface;
+
+/**
+ * <p>Provides a process-wide registry of hyphenators, so that braille filters
+ * for the same locale share a hyphenator instead of each loading its own set of
+ * hyphenation patterns.</p>
+ *
+ * <p>There is one registry per hyphenator factory maker. Within a registry,
+ * hyphenators are keyed by locale. Lookups of existing hyphenators don't lock.
+ * If several threads ask for a hyphenator that doesn't exist yet, it is created
+ * once and the other threads wait for it. If creation fails, nothing is kept,
+ * so that a later call can try again.</p>
+ *
+ * <p>Since hyphenators are shared, users of the registry must not change
+ * the settings of the hyphenators they get.</p>
+ *
+ * <p>The registry only holds a weak reference to the factory maker, so users
+ * of the registry must keep the factory maker reachable themselves.
+ * By default, hyphenators are kept for as long as the factory maker
+ * is reachable. Hyphenators that haven't been used for a while can be released
+ * by setting the system property {@value #IDLE_TIMEOUT_PROPERTY} to the
+ * number of seconds to keep an unused hyphenator.</p>
+ *
+ * <p>Text hyphenated with {@link #hyphenate(String, String)} goes through a
+ * {@link WordHyphenationCache} for the locale, if the cache policy
+ * provides one.</p>
+ *
+ * @author Joel Håkansson
+ */
+public final class HyphenatorRegistry {
+	/**
+	 * The name of the system property that sets the number of seconds an unused
+	 * hyphenator is kept. Zero or less means that hyphenators are never released.
+	 */
+	public static final String IDLE_TIMEOUT_PROPERTY = "org.daisy.dotify.translator.hyphenatorIdleTimeout";
+	private static final Map<HyphenatorFactoryMakerService, HyphenatorRegistry> REGISTRIES = new WeakHashMap<>();
+
+	private final WeakReference<HyphenatorFactoryMakerService> factoryMaker;
+	private final Map<String, Entry> entries;
+	private final long idleTimeoutNanos;
+	private volatile long lastSweep;
+	private volatile WordHyphenationCache.Policy cachePolicy;
+
+	HyphenatorRegistry(HyphenatorFactoryMakerService factoryMaker, long idleTimeoutNanos) {
+		this.factoryMaker = new WeakReference<>(factoryMaker);
+		this.entries = new ConcurrentHashMap<>();
+		this.idleTimeoutNanos = idleTimeoutNanos;
+		this.lastSweep = System.nanoTime();
+		this.cachePolicy = WordHyphenationCache.defaultPolicy();
+	}
+
+	/**
+	 * Gets the registry for a hyphenator factory maker. The same registry is
+	 * returned for as long as the factory maker is reachable.
+	 * @param factoryMaker the hyphenator factory maker
+	 * @return the registry
+	 * @throws NullPointerException if the factory maker is null
+	 */
+	public static HyphenatorRegistry forFactoryMaker(HyphenatorFactoryMakerService factoryMaker) {
+		Objects.requireNonNull(factoryMaker);
+		synchronized (REGISTRIES) {
+			return REGISTRIES.computeIfAbsent(factoryMaker,
+					k->new HyphenatorRegistry(k, TimeUnit.SECONDS.toNanos(Long.getLong(IDLE_TIMEOUT_PROPERTY, 0))));
+		}
+	}
+
+	/**
+	 * Gets the hyphenator for a locale, creating it if needed.
+	 * @param locale the locale
+	 * @return the hyphenator
+	 * @throws HyphenatorConfigurationException if a hyphenator cannot be created
+	 */
+	public HyphenatorInterface get(String locale) throws HyphenatorConfigurationException {
+		return get(getEntry(locale), locale);
+	}
+
+	/**
+	 * Hyphenates a text with the hyphenator for a locale, using the
+	 * word cache for the locale if there is one.
+	 * @param locale the locale
+	 * @param text the text
+	 * @return the hyphenated text
+	 * @throws HyphenatorConfigurationException if a hyphenator cannot be created
+	 */
+	public String hyphenate(String locale, String text) throws HyphenatorConfigurationException {
+		Entry e = getEntry(locale);
+		HyphenatorInterface h = get(e, locale);
+		return e.cache==null?h.hyphenate(text):e.cache.hyphenate(h, text);
+	}
+
+	/**
+	 * Sets the policy for word caches. The policy applies to locales
+	 * that are added to the registry after this call.
+	 * @param policy the policy
+	 */
+	public void setWordCachePolicy(WordHyphenationCache.Policy policy) {
+		this.cachePolicy = Objects.requireNonNull(policy);
+	}
+
+	/**
+	 * Gets the word cache for a locale.
+	 * @param locale the locale
+	 * @return the word cache, or null if the locale isn't in the registry or doesn't have a cache
+	 */
+	public WordHyphenationCache getWordCache(String locale) {
+		Entry e = entries.get(locale);
+		return e==null?null:e.cache;
+	}
+
+	private Entry getEntry(String locale) {
+		Entry e = entries.get(locale);
+		if (e==null) {
+			HyphenatorFactoryMakerService fm = factoryMaker.get();
+			if (fm==null) {
+				throw new IllegalStateException("The hyphenator factory maker is no longer available.");
+			}
+			Entry n = new Entry(fm, locale, cachePolicy.newCache(locale));
+			e = entries.putIfAbsent(locale, n);
+			if (e==null) {
+				e = n;
+				e.task.run();
+			}
+		}
+		if (idleTimeoutNanos>0) {
+			long now = System.nanoTime();
+			e.lastAccess = now;
+			if (now - lastSweep > idleTimeoutNanos) {
+				lastSweep = now;
+				evictIdle(now);
+			}
+		}
+		return e;
+	}
+
+	private HyphenatorInterface get(Entry e, String locale) throws HyphenatorConfigurationException {
+		try {
+			return e.task.get();
+		} catch (ExecutionException ex) {
+			// Don't keep failures, the hyphenator may be available later
+			entries.remove(locale, e);
+			if (ex.getCause() instanceof HyphenatorConfigurationException) {
+				throw (HyphenatorConfigurationException)ex.getCause();
+			} else if (ex.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)ex.getCause();
+			} else {
+				throw new IllegalStateException(ex.getCause());
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private void evictIdle(long now) {
+		Iterator<Entry> it = entries.values().iterator();
+		while (it.hasNext()) {
+			Entry e = it.next();
+			if (e.task.isDone() && now - e.lastAccess > idleTimeoutNanos) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of hyphenators in the registry, including those being created.
+	 * @return the number of hyphenators
+	 */
+	int size() {
+		return entries.size();
+	}
+
+	private static class Entry {
+		// The task releases the factory maker once it has run
+		private final FutureTask<HyphenatorInterface> task;
+		private final WordHyphenationCache cache;
+		private volatile long lastAccess;
+
+		private Entry(HyphenatorFactoryMakerService factoryMaker, String locale, WordHyphenationCache cache) {
+			this.task = new FutureTask<>(()->factoryMaker.newHyphenator(locale));
+			this.cache = cache;
+			this.lastAccess = System.nanoTime();
+		}
+	}
+
+}
@@ -7,6 +7,7 @@ import org.daisy.dotify.api.translator.Translatable;
 import org.daisy.dotify.api.translator.TranslatableWithContext;
 import org.daisy.dotify.api.translator.TranslationException;
 import org.daisy.dotify.common.text.BreakPointHandler;
+import org.daisy.dotify.translator.TranslatorMetrics.Stage;
 
 /**
  * Provides a simple braille translator that translates
@@ -46,14 +47,18 @@ public class SimpleBrailleTranslator implements BrailleTranslator {
 	
 	@Override
 	public BrailleTranslatorResult translate(Translatable specification) throws TranslationException {
+		long t = TranslatorMetrics.start();
 		BreakPointHandler bph = new BreakPointHandler(filter.filter(specification));
-		return new DefaultBrailleTranslatorResult(bph, finalizer);
+		TranslatorMetrics.record(translatorMode, specification.getLocale(), Stage.TRANSLATE, t);
+		return new DefaultBrailleTranslatorResult(bph, finalizer, translatorMode, specification.getLocale());
 	}
 	
 	@Override
 	public BrailleTranslatorResult translate(TranslatableWithContext specification) throws TranslationException {
+		long t = TranslatorMetrics.start();
 		BreakPointHandler bph = new BreakPointHandler(filter.filter(specification));
-		return new DefaultBrailleTranslatorResult(bph, finalizer);
+		TranslatorMetrics.record(translatorMode, null, Stage.TRANSLATE, t);
+		return new DefaultBrailleTranslatorResult(bph, finalizer, translatorMode, null);
 	}
 
 	@Override
@@ -0,0 +1,256 @@
+package org.daisy.dotify.translator;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * <p>Provides timing metrics for the stages of braille translation, by source
+ * (for example a table or a filter), locale and stage. For each combination,
+ * the number of calls, the total time and a latency histogram are recorded
+ * and exposed as an MBean with the object name
+ * <code>org.daisy.dotify.translator:type=TranslatorMetrics,source=...,locale=...,stage=...</code>.</p>
+ *
+ * <p>Metrics are disabled by default. They are enabled by setting the system
+ * property {@value #ENABLED_PROPERTY} to <code>true</code> at startup. When disabled,
+ * {@link #start()} and {@link #record(String, String, Stage, long)} return immediately.</p>
+ *
+ * <p>Usage:</p>
+ * <pre>
+ * long t = TranslatorMetrics.start();
+ * ...
+ * TranslatorMetrics.record(source, locale, Stage.HYPHENATION, t);
+ * </pre>
+ *
+ * @author Joel Håkansson
+ */
+public final class TranslatorMetrics {
+	/**
+	 * The name of the system property that enables metrics.
+	 */
+	public static final String ENABLED_PROPERTY = "org.daisy.dotify.translator.metrics";
+	private static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+	private static final Logger LOGGER = Logger.getLogger(TranslatorMetrics.class.getCanonicalName());
+	private static final String DOMAIN = "org.daisy.dotify.translator";
+	private static final int BUCKETS = 64;
+	// source -> locale -> stage metrics, indexed by stage ordinal
+	private static final Map<String, Map<String, StageMetrics[]>> METRICS = new ConcurrentHashMap<>();
+
+	/**
+	 * Provides the stages that are measured.
+	 */
+	public enum Stage {
+		/**
+		 * Hyphenation of the input text.
+		 */
+		HYPHENATION,
+		/**
+		 * Insertion of markers for text attributes.
+		 */
+		MARKER_PROCESSING,
+		/**
+		 * The call to a native translator, such as Liblouis.
+		 */
+		NATIVE_TRANSLATE,
+		/**
+		 * Conversion of the native translation into a braille filter string.
+		 */
+		STRING_REBUILD,
+		/**
+		 * The string filter of a braille filter.
+		 */
+		FILTER,
+		/**
+		 * Breaking a translated text into rows.
+		 */
+		ROW_BREAKING,
+		/**
+		 * Finalization of translated rows.
+		 */
+		FINALIZATION,
+		/**
+		 * A complete translation, including all of the above.
+		 */
+		TRANSLATE
+	}
+
+	/**
+	 * Provides the management interface of the metrics for a source, locale and stage.
+	 */
+	public interface StageMetricsMBean {
+		/**
+		 * Gets the number of recorded calls.
+		 * @return the number of calls
+		 */
+		long getCount();
+		/**
+		 * Gets the total time of the recorded calls, in nanoseconds.
+		 * @return the total time
+		 */
+		long getTotalNanos();
+		/**
+		 * Gets the mean time of the recorded calls, in nanoseconds.
+		 * @return the mean time, or zero if no calls have been recorded
+		 */
+		double getMeanNanos();
+		/**
+		 * Gets the latency histogram. The value at index <i>i</i> is the number of calls
+		 * that took at least 2<sup><i>i</i></sup> and less than 2<sup><i>i</i>+1</sup> nanoseconds,
+		 * except for index zero, which also includes calls that took less than one nanosecond.
+		 * @return the histogram
+		 */
+		long[] getHistogram();
+		/**
+		 * Resets the metrics.
+		 */
+		void reset();
+	}
+
+	private TranslatorMetrics() {
+		//hide constructor
+	}
+
+	/**
+	 * Returns true if metrics are enabled.
+	 * @return true if metrics are enabled, false otherwise
+	 */
+	public static boolean isEnabled() {
+		return ENABLED;
+	}
+
+	/**
+	 * Gets a start time for a measurement.
+	 * @return the current time in nanoseconds, or zero if metrics are disabled
+	 */
+	public static long start() {
+		return ENABLED?System.nanoTime():0;
+	}
+
+	/**
+	 * Records the time since the start of a measurement.
+	 * @param source the source, for example the table or filter name
+	 * @param locale the locale, or null
+	 * @param stage the stage
+	 * @param start the start time, as returned by {@link #start()}
+	 */
+	public static void record(String source, String locale, Stage stage, long start) {
+		if (!ENABLED) {
+			return;
+		}
+		add(source, locale, stage, System.nanoTime() - start);
+	}
+
+	/**
+	 * Adds a measurement, regardless of whether metrics are enabled.
+	 * @param source the source
+	 * @param locale the locale, or null
+	 * @param stage the stage
+	 * @param nanos the time, in nanoseconds
+	 */
+	static void add(String source, String locale, Stage stage, long nanos) {
+		((StageMetrics)getMetrics(source, locale, stage)).add(nanos);
+	}
+
+	/**
+	 * Gets the metrics for a source, locale and stage.
+	 * @param source the source
+	 * @param locale the locale, or null
+	 * @param stage the stage
+	 * @return the metrics
+	 */
+	static StageMetricsMBean getMetrics(String source, String locale, Stage stage) {
+		String src = source==null?"":source;
+		String loc = locale==null?"":locale;
+		Map<String, StageMetrics[]> byLocale = METRICS.get(src);
+		if (byLocale==null) {
+			byLocale = METRICS.computeIfAbsent(src, k->new ConcurrentHashMap<>());
+		}
+		StageMetrics[] stages = byLocale.get(loc);
+		if (stages==null) {
+			stages = byLocale.computeIfAbsent(loc, k->new StageMetrics[Stage.values().length]);
+		}
+		StageMetrics ret = stages[stage.ordinal()];
+		if (ret==null) {
+			synchronized (stages) {
+				ret = stages[stage.ordinal()];
+				if (ret==null) {
+					ret = new StageMetrics();
+					register(ret, src, loc, stage);
+					stages[stage.ordinal()] = ret;
+				}
+			}
+		}
+		return ret;
+	}
+
+	private static void register(StageMetrics m, String source, String locale, Stage stage) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(DOMAIN + ":type=TranslatorMetrics"
+					+ ",source=" + ObjectName.quote(source)
+					+ ",locale=" + ObjectName.quote(locale)
+					+ ",stage=" + stage.name());
+			if (!server.isRegistered(name)) {
+				server.registerMBean(new StandardMBean(m, StageMetricsMBean.class), name);
+			}
+		} catch (JMException | RuntimeException e) {
+			LOGGER.log(Level.WARNING, "Failed to register metrics for " + source + "/" + locale + "/" + stage, e);
+		}
+	}
+
+	private static class StageMetrics implements StageMetricsMBean {
+		private final LongAdder count = new LongAdder();
+		private final LongAdder total = new LongAdder();
+		private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+		private void add(long nanos) {
+			count.increment();
+			total.add(nanos);
+			histogram.incrementAndGet(nanos<=1?0:63-Long.numberOfLeadingZeros(nanos));
+		}
+
+		@Override
+		public long getCount() {
+			return count.sum();
+		}
+
+		@Override
+		public long getTotalNanos() {
+			return total.sum();
+		}
+
+		@Override
+		public double getMeanNanos() {
+			long c = count.sum();
+			return c==0?0:(double)total.sum()/c;
+		}
+
+		@Override
+		public long[] getHistogram() {
+			long[] ret = new long[BUCKETS];
+			for (int i=0; i<BUCKETS; i++) {
+				ret[i] = histogram.get(i);
+			}
+			return ret;
+		}
+
+		@Override
+		public void reset() {
+			count.reset();
+			total.reset();
+			for (int i=0; i<BUCKETS; i++) {
+				histogram.set(i, 0);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,156 @@
+package org.daisy.dotify.translator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.daisy.dotify.api.translator.TranslatorSpecification;
+
+/**
+ * <p>Provides an immutable index of translator specifications, for use by
+ * factory services that are asked whether they support a locale and mode
+ * much more often than they are asked to create something.</p>
+ *
+ * <p>Specifications are indexed by locale and by mode string, so that a lookup
+ * with the locale and mode of a listed specification doesn't allocate. Only if
+ * the locale matches but the mode string doesn't, for example because the same
+ * mode is written differently, is a new specification created and compared with
+ * the specifications for that locale. Locales are matched with {@link #LOCALE_ORDER},
+ * that is, regardless of case and regardless of whether '-' or '_' is used as
+ * a separator, both when looking up a locale and mode and when looking up a
+ * specification.</p>
+ *
+ * @author Joel Håkansson
+ * @param <T> the type of value associated with each specification
+ */
+public final class TranslatorSpecificationIndex<T> {
+	/**
+	 * Orders locales regardless of case and regardless of whether '-' or '_' is
+	 * used as a separator. Locales that are equal according to this comparator
+	 * are considered to be the same locale. No strings are created when comparing.
+	 */
+	public static final Comparator<String> LOCALE_ORDER = TranslatorSpecificationIndex::compareLocales;
+	private final Map<String, LocaleEntry<T>> locales;
+	private final List<TranslatorSpecification> specs;
+
+	/**
+	 * Creates a new index. If a specification occurs more than once, the last value is used.
+	 * @param entries the specifications and their values, in iteration order
+	 */
+	public TranslatorSpecificationIndex(Map<TranslatorSpecification, T> entries) {
+		Map<String, LocaleEntry<T>> m = new TreeMap<>(LOCALE_ORDER);
+		Map<TranslatorSpecification, T> all = new LinkedHashMap<>();
+		for (Map.Entry<TranslatorSpecification, T> e : entries.entrySet()) {
+			m.computeIfAbsent(e.getKey().getLocale(), LocaleEntry::new).put(e.getKey().getMode(), e.getValue());
+			all.put(e.getKey(), e.getValue());
+		}
+		this.locales = m;
+		this.specs = Collections.unmodifiableList(new ArrayList<>(all.keySet()));
+	}
+
+	/**
+	 * Creates a new index for a collection of specifications, where each
+	 * specification is its own value.
+	 * @param specs the specifications
+	 * @return a new index
+	 */
+	public static TranslatorSpecificationIndex<TranslatorSpecification> of(Collection<TranslatorSpecification> specs) {
+		Map<TranslatorSpecification, TranslatorSpecification> entries = new LinkedHashMap<>();
+		for (TranslatorSpecification spec : specs) {
+			entries.put(spec, spec);
+		}
+		return new TranslatorSpecificationIndex<>(entries);
+	}
+
+	private static int compareLocales(String a, String b) {
+		int len = Math.min(a.length(), b.length());
+		for (int i = 0; i<len; i++) {
+			char c1 = normalize(a.charAt(i));
+			char c2 = normalize(b.charAt(i));
+			if (c1!=c2) {
+				return c1 - c2;
+			}
+		}
+		return a.length() - b.length();
+	}
+
+	private static char normalize(char c) {
+		return c=='_'?'-':Character.toLowerCase(c);
+	}
+
+	/**
+	 * Gets the value for the specified locale and mode.
+	 * @param locale the locale
+	 * @param mode the mode
+	 * @return the value, or null if the specification isn't in the index
+	 */
+	public T get(String locale, String mode) {
+		LocaleEntry<T> l = locales.get(locale);
+		return l==null?null:l.get(mode);
+	}
+
+	/**
+	 * Gets the value for the specified specification. The locale of the
+	 * specification is matched in the same way as by {@link #get(String, String)}.
+	 * @param spec the specification
+	 * @return the value, or null if the specification isn't in the index
+	 */
+	public T get(TranslatorSpecification spec) {
+		return get(spec.getLocale(), spec.getMode());
+	}
+
+	/**
+	 * Returns true if the index contains the specified locale and mode.
+	 * @param locale the locale
+	 * @param mode the mode
+	 * @return true if the specification is in the index, false otherwise
+	 */
+	public boolean contains(String locale, String mode) {
+		return get(locale, mode)!=null;
+	}
+
+	/**
+	 * Lists the specifications in the index, in the order they were added.
+	 * @return an unmodifiable list of specifications
+	 */
+	public List<TranslatorSpecification> listSpecifications() {
+		return specs;
+	}
+
+	/**
+	 * Provides the values for the modes of a locale.
+	 */
+	private static final class LocaleEntry<T> {
+		// The locale as written in the first specification, modes are compared with this locale
+		private final String locale;
+		private final Map<String, T> byMode;
+		private final Map<TranslatorSpecification, T> bySpec;
+
+		private LocaleEntry(String locale) {
+			this.locale = locale;
+			this.byMode = new HashMap<>();
+			this.bySpec = new HashMap<>();
+		}
+
+		private void put(String mode, T value) {
+			byMode.put(mode, value);
+			bySpec.put(new TranslatorSpecification(locale, mode), value);
+		}
+
+		private T get(String mode) {
+			T ret = byMode.get(mode);
+			if (ret!=null) {
+				return ret;
+			}
+			// The same mode may be written differently
+			return bySpec.get(new TranslatorSpecification(locale, mode));
+		}
+	}
+
+}
@@ -0,0 +1,217 @@
+package org.daisy.dotify.translator;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.daisy.dotify.api.hyphenator.HyphenatorInterface;
+
+/**
+ * <p>Provides a size bounded cache of hyphenated words for one locale. Text is
+ * split into words at whitespace, only the words that aren't in the cache are
+ * hyphenated, and the result is put back together with the original whitespace.
+ * When the number of words exceeds the capacity, the least recently used words
+ * are removed.</p>
+ *
+ * <p>The cache assumes that the hyphenator hyphenates each word on its own,
+ * regardless of the surrounding words. For hyphenators that don't, the cache
+ * must be turned off, see {@link Policy}. Since this isn't known for hyphenators
+ * in general, the default policy doesn't create any caches unless a capacity
+ * is set with {@value #CAPACITY_PROPERTY}.</p>
+ *
+ * @author Joel Håkansson
+ */
+public final class WordHyphenationCache {
+	/**
+	 * The name of the system property that sets the capacity, in words, of the
+	 * caches created by the default policy. The default is zero, which disables the caches.
+	 */
+	public static final String CAPACITY_PROPERTY = "org.daisy.dotify.translator.wordHyphenationCacheCapacity";
+	/**
+	 * The name of the system property that lists the locales, separated by comma,
+	 * that the default policy doesn't create caches for.
+	 */
+	public static final String EXCLUDED_LOCALES_PROPERTY = "org.daisy.dotify.translator.wordHyphenationCacheExcludedLocales";
+	private static final int DEFAULT_CAPACITY = 0;
+	private final LinkedHashMap<String, String> entries;
+	private final int capacity;
+	private long hits;
+	private long misses;
+
+	/**
+	 * Decides which locales get a word cache.
+	 */
+	@FunctionalInterface
+	public interface Policy {
+		/**
+		 * Creates a new cache for a locale.
+		 * @param locale the locale
+		 * @return a new cache, or null if words in this locale shouldn't be cached
+		 */
+		WordHyphenationCache newCache(String locale);
+	}
+
+	/**
+	 * Creates a new cache.
+	 * @param capacity the maximum number of words in the cache
+	 * @throws IllegalArgumentException if the capacity is less than one
+	 */
+	public WordHyphenationCache(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+		}
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+		this.capacity = capacity;
+		this.hits = 0;
+		this.misses = 0;
+	}
+
+	/**
+	 * Gets the default policy. The default policy creates caches with the capacity
+	 * set by {@value #CAPACITY_PROPERTY}, except for the locales listed in
+	 * {@value #EXCLUDED_LOCALES_PROPERTY}. If the capacity isn't set, no caches
+	 * are created.
+	 * @return the default policy
+	 */
+	public static Policy defaultPolicy() {
+		int capacity = Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY);
+		if (capacity<1) {
+			return locale->null;
+		}
+		Set<String> excluded = new TreeSet<>(TranslatorSpecificationIndex.LOCALE_ORDER);
+		for (String s : System.getProperty(EXCLUDED_LOCALES_PROPERTY, "").split(",")) {
+			if (!s.trim().isEmpty()) {
+				excluded.add(s.trim());
+			}
+		}
+		return locale->excluded.contains(locale)?null:new WordHyphenationCache(capacity);
+	}
+
+	/**
+	 * Hyphenates a text, using the cache for the words that have been hyphenated before.
+	 * @param h the hyphenator
+	 * @param text the text
+	 * @return the hyphenated text
+	 */
+	public String hyphenate(HyphenatorInterface h, String text) {
+		// Word boundaries, as start and end pairs
+		int[] bounds = new int[8];
+		int words = 0;
+		int len = text.length();
+		int i = 0;
+		while (i<len) {
+			while (i<len && Character.isWhitespace(text.charAt(i))) {
+				i++;
+			}
+			if (i==len) {
+				break;
+			}
+			int start = i;
+			while (i<len && !Character.isWhitespace(text.charAt(i))) {
+				i++;
+			}
+			if (words*2+2>bounds.length) {
+				bounds = Arrays.copyOf(bounds, bounds.length*2);
+			}
+			bounds[words*2] = start;
+			bounds[words*2+1] = i;
+			words++;
+		}
+		if (words==0) {
+			return text;
+		}
+		String[] in = new String[words];
+		String[] out = new String[words];
+		for (int w=0; w<words; w++) {
+			in[w] = text.substring(bounds[w*2], bounds[w*2+1]);
+		}
+		synchronized (this) {
+			for (int w=0; w<words; w++) {
+				out[w] = entries.get(in[w]);
+				if (out[w]==null) {
+					misses++;
+				} else {
+					hits++;
+				}
+			}
+		}
+		// Hyphenate the missing words outside of the lock, each word only once
+		Map<String, String> added = null;
+		for (int w=0; w<words; w++) {
+			if (out[w]==null) {
+				if (added==null) {
+					added = new LinkedHashMap<>();
+				}
+				out[w] = added.get(in[w]);
+				if (out[w]==null) {
+					out[w] = h.hyphenate(in[w]);
+					added.put(in[w], out[w]);
+				}
+			}
+		}
+		if (added!=null) {
+			synchronized (this) {
+				entries.putAll(added);
+				Iterator<String> it = entries.keySet().iterator();
+				while (entries.size()>capacity && it.hasNext()) {
+					it.next();
+					it.remove();
+				}
+			}
+		}
+		StringBuilder sb = new StringBuilder(len + len/4);
+		int prev = 0;
+		for (int w=0; w<words; w++) {
+			sb.append(text, prev, bounds[w*2]);
+			sb.append(out[w]);
+			prev = bounds[w*2+1];
+		}
+		sb.append(text, prev, len);
+		return sb.toString();
+	}
+
+	/**
+	 * Gets the maximum number of words in the cache.
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Gets the number of words in the cache.
+	 * @return the number of words
+	 */
+	public synchronized int getSize() {
+		return entries.size();
+	}
+
+	/**
+	 * Gets the number of words that were found in the cache.
+	 * @return the number of hits
+	 */
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * Gets the number of words that weren't found in the cache.
+	 * @return the number of misses
+	 */
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * Gets the ratio of words that were found in the cache.
+	 * @return the hit ratio, or zero if there have been no lookups
+	 */
+	public synchronized double getHitRatio() {
+		long total = hits + misses;
+		return total == 0 ? 0 : (double)hits / total;
+	}
+
+}
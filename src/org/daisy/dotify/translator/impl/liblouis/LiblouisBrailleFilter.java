@@ -1,12 +1,19 @@
 package org.daisy.dotify.translator.impl.liblouis;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -14,15 +21,20 @@ import java.util.stream.Stream;
 
 import org.daisy.dotify.api.hyphenator.HyphenatorConfigurationException;
 import org.daisy.dotify.api.hyphenator.HyphenatorFactoryMakerService;
-import org.daisy.dotify.api.hyphenator.HyphenatorInterface;
 import org.daisy.dotify.api.translator.BrailleFilter;
+import org.daisy.dotify.api.translator.FollowingText;
+import org.daisy.dotify.api.translator.PrecedingText;
 import org.daisy.dotify.api.translator.ResolvableText;
 import org.daisy.dotify.api.translator.TextAttribute;
 import org.daisy.dotify.api.translator.Translatable;
 import org.daisy.dotify.api.translator.TranslatableWithContext;
 import org.daisy.dotify.api.translator.TranslationException;
 import org.daisy.dotify.api.translator.TranslatorSpecification;
+import org.daisy.dotify.translator.BatchBrailleFilter;
 import org.daisy.dotify.translator.DefaultMarkerProcessor;
+import org.daisy.dotify.translator.HyphenatorRegistry;
+import org.daisy.dotify.translator.TranslatorMetrics;
+import org.daisy.dotify.translator.TranslatorMetrics.Stage;
 import org.liblouis.CompilationException;
 import org.liblouis.DisplayException;
 import org.liblouis.DisplayTable.Fallback;
@@ -31,34 +43,88 @@ import org.liblouis.TranslationResult;
 import org.liblouis.Translator;
 import org.liblouis.Typeform;
 
-class LiblouisBrailleFilter implements BrailleFilter {
+/**
+ * <p>Provides a braille filter that uses Liblouis.</p>
+ * 
+ * <p>Instances of this class are thread safe. Liblouis keeps its translation
+ * buffers in static memory, so calls into the library are serialized on
+ * {@link LiblouisTableCache#NATIVE_LOCK}. All other processing, such as hyphenation
+ * and marker processing, runs concurrently.</p>
+ */
+class LiblouisBrailleFilter implements BatchBrailleFilter {
+	/**
+	 * The name of the system property that limits how many characters of preceding
+	 * and following text, on each side, are used when processing markers. Context
+	 * beyond the limit is ignored. By default, all context is used.
+	 */
+	static final String CONTEXT_LIMIT_PROPERTY = "org.daisy.dotify.translator.impl.liblouis.contextLimit";
 	private static final Logger LOGGER = Logger.getLogger(LiblouisBrailleFilter.class.getCanonicalName());
 	private static final int SOFT_HYPHEN = 0x00ad;
 	private static final int ZERO_WIDTH_SPACE = 0x200b;
 	private static final int LIBLOUIS_NO_BREAKPOINT = 0;
 	private static final int LIBLOUIS_SOFT_HYPEN = 1;
 	private static final int LIBLOUIS_ZERO_WIDTH_SPACE = 2;
+	// The maximum number of characters to join in one call to Liblouis
+	private static final int MAX_BATCH_LENGTH = 4096;
+	// Segments that are affected by passage indicators, such as capitalized or numeric passages,
+	// if they are joined. See isJoinSafe.
+	private static final List<String> JOIN_PROBE = Collections.unmodifiableList(Arrays.asList(
+			"ABC", "DEF", "GHI", "JKL", "MNO", "PQR", "STU", "VWX", "YZ", "A",
+			"1", "23", "4", "a", "Bc", "D.", "e"));
+	// Whether segments joined by a space are translated like the segments on their own, by table path
+	private static final Map<String, Boolean> JOIN_SAFE = new ConcurrentHashMap<>();
 	private final String loc;
+	// Keeps the factory maker reachable for the registry
 	private final HyphenatorFactoryMakerService hyphenatorFactoryMaker;
-	private final Map<String, HyphenatorInterface> hyphenators;
+	private final HyphenatorRegistry hyphenators;
+	private final String tablePath;
 	private final Translator table;
 	private final Map<String, Typeform> typeformMap;
+	// Combined type forms, by their parts, so that the same combination is always the same instance
+	private final Map<Set<Typeform>, Typeform> combinedTypeforms;
 	private final LiblouisMarkerProcessor mp;
+	private final LiblouisSegmentCache cache;
+	private final LiblouisSegmentCache wordCache;
+	private final int contextLimit;
 
 	LiblouisBrailleFilter(TranslatorSpecification ts, LiblouisMarkerProcessor mp, HyphenatorFactoryMakerService hyphenatorFactoryMaker) {
+		this(ts, mp, hyphenatorFactoryMaker, LiblouisSegmentCache.newInstance());
+	}
+
+	LiblouisBrailleFilter(TranslatorSpecification ts, LiblouisMarkerProcessor mp, HyphenatorFactoryMakerService hyphenatorFactoryMaker, LiblouisSegmentCache cache) {
+		this(ts, mp, hyphenatorFactoryMaker, cache, LiblouisWordCache.forTable(LiblouisSpecifications.getTable(ts)));
+	}
+
+	/**
+	 * Creates a new Liblouis braille filter.
+	 * @param ts the specification
+	 * @param mp the marker processor
+	 * @param hyphenatorFactoryMaker the hyphenator factory maker
+	 * @param cache the segment cache, or null
+	 * @param wordCache the word cache, or null. A word cache must only be supplied if the table
+	 * 		translates each word independently of the surrounding text.
+	 */
+	LiblouisBrailleFilter(TranslatorSpecification ts, LiblouisMarkerProcessor mp, HyphenatorFactoryMakerService hyphenatorFactoryMaker, LiblouisSegmentCache cache, LiblouisSegmentCache wordCache) {
 		this.loc = ts.getLocale();
 		this.hyphenatorFactoryMaker = hyphenatorFactoryMaker;
-		this.hyphenators = new HashMap<>();
+		this.hyphenators = hyphenatorFactoryMaker==null?null:HyphenatorRegistry.forFactoryMaker(hyphenatorFactoryMaker);
+		this.tablePath = LiblouisSpecifications.getTable(ts);
 		try {
-			this.table = new Translator(LiblouisSpecifications.getMap().get(ts));
+			this.table = LiblouisTableCache.getInstance().acquire(tablePath, this);
 		} catch (CompilationException e) {
 			throw new IllegalArgumentException(e);
 		}
-		this.typeformMap = table.getSupportedTypeforms().stream()
-				.collect(Collectors.toMap(x->x.getName(), x->x));
+		synchronized (LiblouisTableCache.NATIVE_LOCK) {
+			this.typeformMap = table.getSupportedTypeforms().stream()
+					.collect(Collectors.toMap(x->x.getName(), x->x));
+		}
 		addTypeformAlias("italic", "em");
 		addTypeformAlias("bold", "strong");
+		this.combinedTypeforms = new ConcurrentHashMap<>();
 		this.mp = mp;
+		this.cache = cache;
+		this.wordCache = wordCache;
+		this.contextLimit = Integer.getInteger(CONTEXT_LIMIT_PROPERTY, Integer.MAX_VALUE);
 	}
 	
 	private void addTypeformAlias(String name, String alias) {
@@ -89,6 +155,383 @@ class LiblouisBrailleFilter implements BrailleFilter {
 		// 		TextAttribute ta = DefaultMarkerProcessor.toTextAttribute(atts, x);
 		// 		String text = x.stream().collect(Collectors.toList());
 		
+		TextAttribute ta = specification.getAttributes();
+		Typeform[] typeForm = null;
+		if (ta!=null) {
+			typeForm = toTypeForm(ta, typeformMap, combinedTypeforms);
+		}
+
+		LiblouisSegmentCache.Key key = null;
+		if (cache!=null) {
+			key = new LiblouisSegmentCache.Key(specification.getText(), locale, specification.isHyphenating(), specification.shouldMarkCapitalLetters(), typeForm);
+			String ret = cache.get(key);
+			if (ret!=null) {
+				return ret;
+			}
+		}
+
+		// Only style attributes from Liblouis itself are processed here
+		LiblouisTranslatable louisSpec = toLiblouisSpecification(specification, locale);
+		String ret = null;
+		if (typeForm==null && wordCache!=null) {
+			ret = filterWords(louisSpec);
+		}
+		if (ret==null) {
+			if (typeForm==null) {
+				typeForm = new Typeform[louisSpec.getCharAtts().length];
+			}
+			ret = toBrailleFilterString(louisSpec.getText(), translate(louisSpec, typeForm));
+		}
+		if (cache!=null) {
+			cache.put(key, ret);
+		}
+		return ret;
+	}
+	
+	/**
+	 * <p>Translates a list of translatables. This is faster than calling
+	 * {@link #filter(Translatable)} for each item when there are many short
+	 * segments, such as the cells of a table.</p>
+	 * 
+	 * <p>Segments without attributes that share the same locale and settings are
+	 * joined, separated by a space, and translated with a single call to Liblouis.
+	 * The braille is then split back into segments using the character attributes
+	 * returned by Liblouis. If the braille of a batch cannot be split, because Liblouis
+	 * has reordered or contracted characters across a segment boundary,
+	 * the segments in that batch are translated one at a time instead.</p>
+	 * 
+	 * <p>Segments are only joined if the table doesn't use indicators that apply to a
+	 * passage of several words, such as a capitalized passage indicator, since such
+	 * indicators would then be computed for the entire batch. This is checked once
+	 * for each table, see {@link #isJoinSafe()}. Even so, segments translated together
+	 * aren't added to the segment cache used by {@link #filter(Translatable)}.</p>
+	 * 
+	 * @param specifications the translatables
+	 * @return a list of translated strings, in the same order as the input
+	 * @throws TranslationException if the translation fails
+	 */
+	@Override
+	public List<String> filterAll(List<Translatable> specifications) throws TranslationException {
+		String[] ret = new String[specifications.size()];
+		Map<List<Object>, Batch> batches = new LinkedHashMap<>();
+		for (int i=0; i<specifications.size(); i++) {
+			Translatable specification = specifications.get(i);
+			if (specification.getText().isEmpty()) {
+				ret[i] = "";
+				continue;
+			} else if (specification.getAttributes()!=null) {
+				ret[i] = filter(specification);
+				continue;
+			}
+			String locale = specification.getLocale();
+			if (locale==null) {
+				locale = loc;
+			}
+			LiblouisSegmentCache.Key key = null;
+			if (cache!=null) {
+				key = new LiblouisSegmentCache.Key(specification.getText(), locale, specification.isHyphenating(), specification.shouldMarkCapitalLetters(), null);
+				ret[i] = cache.get(key);
+				if (ret[i]!=null) {
+					continue;
+				}
+			}
+			List<Object> batchKey = Arrays.asList(locale, specification.isHyphenating(), specification.shouldMarkCapitalLetters());
+			Batch b = batches.computeIfAbsent(batchKey, k->new Batch());
+			b.add(i, toLiblouisSpecification(specification, locale), key);
+			if (b.length>=MAX_BATCH_LENGTH) {
+				translateBatch(batches.remove(batchKey), ret);
+			}
+		}
+		for (Batch b : batches.values()) {
+			translateBatch(b, ret);
+		}
+		return Arrays.asList(ret);
+	}
+
+	private void translateBatch(Batch b, String[] ret) throws LiblouisBrailleFilterException {
+		String[] out = translateJoined(b.segments);
+		// Only segments translated on their own have the same result as filter(Translatable)
+		boolean cacheable = out==null && cache!=null;
+		if (out==null) {
+			out = translateEach(b.segments);
+		}
+		for (int i=0; i<b.segments.size(); i++) {
+			ret[b.indices.get(i)] = out[i];
+			if (cacheable) {
+				cache.put(b.keys.get(i), out[i]);
+			}
+		}
+	}
+
+	/**
+	 * Translates several segments with a single call to Liblouis, if possible, otherwise
+	 * one at a time.
+	 * @param segments the segments
+	 * @return the braille filter strings, in the same order as the segments
+	 * @throws LiblouisBrailleFilterException if the translation fails
+	 */
+	private String[] translateSegments(List<LiblouisTranslatable> segments) throws LiblouisBrailleFilterException {
+		String[] out = translateJoined(segments);
+		return out!=null?out:translateEach(segments);
+	}
+
+	/**
+	 * Translates several segments with a single call to Liblouis.
+	 * @param segments the segments
+	 * @return the braille filter strings, in the same order as the segments, or null
+	 * 		if there are fewer than two segments, if the table isn't safe to join
+	 * 		segments with or if the braille cannot be split back into segments
+	 * @throws LiblouisBrailleFilterException if the translation fails
+	 */
+	private String[] translateJoined(List<LiblouisTranslatable> segments) throws LiblouisBrailleFilterException {
+		return segments.size()>1 && isJoinSafe()?join(segments):null;
+	}
+
+	/**
+	 * Returns true if segments joined by a space are translated like the segments on their
+	 * own with this table. This isn't the case if the table uses indicators for passages
+	 * of several words. Such indicators can't be recognized in the braille, instead a set
+	 * of segments that would cause capitalized and numeric passages if joined are translated
+	 * both ways, the first time a table is checked.
+	 * @return true if segments can be joined, false otherwise
+	 * @throws LiblouisBrailleFilterException if the translation fails
+	 */
+	private boolean isJoinSafe() throws LiblouisBrailleFilterException {
+		Boolean ret = JOIN_SAFE.get(tablePath);
+		if (ret==null) {
+			List<LiblouisTranslatable> probe = new ArrayList<>();
+			for (String s : JOIN_PROBE) {
+				probe.add(toLiblouisSpecification(s, s));
+			}
+			ret = Arrays.equals(translateEach(probe), join(probe));
+			if (!ret) {
+				LOGGER.fine("Segments are translated one at a time with " + tablePath);
+			}
+			JOIN_SAFE.put(tablePath, ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Joins segments, separated by a space, and translates them with a single call to Liblouis.
+	 * @param segments the segments, at least two
+	 * @return the braille filter strings, in the same order as the segments, or null
+	 * 		if the braille cannot be split back into segments
+	 * @throws LiblouisBrailleFilterException if the translation fails
+	 */
+	private String[] join(List<LiblouisTranslatable> segments) throws LiblouisBrailleFilterException {
+		int len = segments.size() - 1;
+		for (LiblouisTranslatable seg : segments) {
+			len += seg.getCharAtts().length;
+		}
+		StringBuilder text = new StringBuilder();
+		int[] charAtts = new int[len];
+		int[] interCharAtts = new int[len-1];
+		int j = 0;
+		for (LiblouisTranslatable seg : segments) {
+			if (j>0) {
+				// The separator is a space, which the segments on both sides are already
+				// required to handle, since a segment is often followed by another.
+				text.append(' ');
+				charAtts[j] = j;
+				j++;
+			}
+			text.append(seg.getText());
+			System.arraycopy(seg.getInterCharAtts(), 0, interCharAtts, j, seg.getInterCharAtts().length);
+			for (int k=0; k<seg.getCharAtts().length; k++, j++) {
+				charAtts[j] = j;
+			}
+		}
+		TranslationResult res = translate(new LiblouisTranslatable(text.toString(), charAtts, interCharAtts), new Typeform[len]);
+		long t = TranslatorMetrics.start();
+		String[] out = toBrailleFilterStrings(segments, res.getBraille(), res.getCharacterAttributes(), res.getInterCharacterAttributes());
+		TranslatorMetrics.record(tablePath, loc, Stage.STRING_REBUILD, t);
+		return out;
+	}
+
+	private String[] translateEach(List<LiblouisTranslatable> segments) throws LiblouisBrailleFilterException {
+		String[] out = new String[segments.size()];
+		for (int i=0; i<segments.size(); i++) {
+			LiblouisTranslatable seg = segments.get(i);
+			out[i] = toBrailleFilterString(seg.getText(), translate(seg, new Typeform[seg.getCharAtts().length]));
+		}
+		return out;
+	}
+
+	/**
+	 * Translates a segment word by word, using the word cache. This is only done
+	 * for tables that translate each word independently of the surrounding text.
+	 * @param louisSpec the segment
+	 * @return the braille filter string, or null if the segment has a break point
+	 * 		next to a whitespace character and must be translated as a whole
+	 * @throws LiblouisBrailleFilterException if the translation fails
+	 */
+	String filterWords(LiblouisTranslatable louisSpec) throws LiblouisBrailleFilterException {
+		String text = louisSpec.getText();
+		int[] interCharAtts = louisSpec.getInterCharAtts();
+		List<String> parts = new ArrayList<>();
+		// Maps part indexes to indexes in the list of missing words
+		Map<Integer, Integer> missingIndices = new HashMap<>();
+		Map<LiblouisSegmentCache.Key, Integer> pending = new HashMap<>();
+		List<LiblouisTranslatable> missing = new ArrayList<>();
+		int offset = 0;
+		int cp = 0;
+		while (offset<text.length()) {
+			int c = text.codePointAt(offset);
+			if (Character.isWhitespace(c)) {
+				if ((cp>0 && interCharAtts[cp-1]!=LIBLOUIS_NO_BREAKPOINT) || (cp<interCharAtts.length && interCharAtts[cp]!=LIBLOUIS_NO_BREAKPOINT)) {
+					return null;
+				}
+				// Whitespace is always preserved as a single space, see toBrailleFilterString
+				parts.add(" ");
+				offset += Character.charCount(c);
+				cp++;
+				continue;
+			}
+			int startOffset = offset;
+			int startCp = cp;
+			while (offset<text.length() && !Character.isWhitespace(c = text.codePointAt(offset))) {
+				offset += Character.charCount(c);
+				cp++;
+			}
+			String word = text.substring(startOffset, offset);
+			int[] wordInterCharAtts = Arrays.copyOfRange(interCharAtts, startCp, cp-1);
+			LiblouisSegmentCache.Key key = new LiblouisSegmentCache.Key(toWordKey(word, wordInterCharAtts), null, false, false, null);
+			// A word that occurs more than once in the segment is only translated once
+			Integer index = pending.get(key);
+			if (index==null) {
+				String res = wordCache.get(key);
+				if (res!=null) {
+					parts.add(res);
+					continue;
+				}
+				int[] charAtts = new int[cp-startCp];
+				for (int i=0; i<charAtts.length; i++) {
+					charAtts[i] = i;
+				}
+				index = missing.size();
+				pending.put(key, index);
+				missing.add(new LiblouisTranslatable(word, charAtts, wordInterCharAtts));
+			}
+			missingIndices.put(parts.size(), index);
+			parts.add(null);
+		}
+		if (!missing.isEmpty()) {
+			String[] out = translateSegments(missing);
+			for (Map.Entry<Integer, Integer> e : missingIndices.entrySet()) {
+				parts.set(e.getKey(), out[e.getValue()]);
+			}
+			for (Map.Entry<LiblouisSegmentCache.Key, Integer> e : pending.entrySet()) {
+				wordCache.put(e.getKey(), out[e.getValue()]);
+			}
+		}
+		StringBuilder sb = new StringBuilder(text.length());
+		for (String p : parts) {
+			sb.append(p);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Creates a key for the word cache. Break points within the word are part of the key.
+	 * @param word the word
+	 * @param interCharAtts the break points
+	 * @return the key
+	 */
+	private static String toWordKey(String word, int[] interCharAtts) {
+		for (int i=0; i<interCharAtts.length; i++) {
+			if (interCharAtts[i]!=LIBLOUIS_NO_BREAKPOINT) {
+				StringBuilder sb = new StringBuilder(word.length() + 1 + interCharAtts.length);
+				sb.append(word).append('\u0000');
+				for (int v : interCharAtts) {
+					sb.append((char)('0' + v));
+				}
+				return sb.toString();
+			}
+		}
+		return word;
+	}
+
+	/**
+	 * Splits a Liblouis translation of several segments, joined by a single separator
+	 * character, into one braille filter string per segment.
+	 * @param segments the segments
+	 * @param str the Liblouis string
+	 * @param charAtts the input index of each output character
+	 * @param interCharAttr the inter char attributes
+	 * @return the braille filter strings, or null if the Liblouis string cannot be split
+	 * 		at the separators
+	 */
+	static String[] toBrailleFilterStrings(List<LiblouisTranslatable> segments, String str, int[] charAtts, int[] interCharAttr) {
+		int outLen = str.codePointCount(0, str.length());
+		String[] ret = new String[segments.size()];
+		int outputIndex = 0;
+		int offset = 0;
+		int start = 0;
+		for (int i=0; i<segments.size(); i++) {
+			LiblouisTranslatable seg = segments.get(i);
+			if (i>0) {
+				// Skip the output of the separator
+				if (outputIndex>=outLen || charAtts[outputIndex]!=start) {
+					return null;
+				}
+				while (outputIndex<outLen && charAtts[outputIndex]==start) {
+					offset = str.offsetByCodePoints(offset, 1);
+					outputIndex++;
+				}
+				start++;
+			}
+			int end = start + seg.getCharAtts().length;
+			// The first output character must belong to the first input character
+			if (outputIndex>=outLen || charAtts[outputIndex]!=start) {
+				return null;
+			}
+			int first = outputIndex;
+			int firstOffset = offset;
+			int prv = start;
+			while (outputIndex<outLen && charAtts[outputIndex]<end) {
+				if (charAtts[outputIndex]<prv) {
+					return null;
+				}
+				prv = charAtts[outputIndex];
+				offset = str.offsetByCodePoints(offset, 1);
+				outputIndex++;
+			}
+			int[] segCharAtts = new int[outputIndex-first];
+			for (int k=0; k<segCharAtts.length; k++) {
+				segCharAtts[k] = charAtts[first+k]-start;
+			}
+			// The attribute after the last character of the segment refers to the separator
+			int[] segInterCharAttr = Arrays.copyOfRange(interCharAttr, Math.min(first, interCharAttr.length), Math.min(outputIndex-1, interCharAttr.length));
+			ret[i] = toBrailleFilterString(seg.getText(), str.substring(firstOffset, offset), segCharAtts, segInterCharAttr);
+			start = end;
+		}
+		return outputIndex==outLen?ret:null;
+	}
+
+	private static class Batch {
+		private final List<Integer> indices = new ArrayList<>();
+		private final List<LiblouisTranslatable> segments = new ArrayList<>();
+		private final List<LiblouisSegmentCache.Key> keys = new ArrayList<>();
+		private int length = 0;
+
+		private void add(int index, LiblouisTranslatable segment, LiblouisSegmentCache.Key key) {
+			indices.add(index);
+			segments.add(segment);
+			keys.add(key);
+			length += segment.getCharAtts().length;
+		}
+	}
+
+	/**
+	 * Lower cases and hyphenates the text of a translatable, as requested by the translatable,
+	 * and maps the result to a Liblouis specification.
+	 * @param specification the translatable
+	 * @param locale the locale to use for hyphenation
+	 * @return the Liblouis specification
+	 * @throws LiblouisBrailleFilterException if a hyphenator cannot be created
+	 */
+	private LiblouisTranslatable toLiblouisSpecification(Translatable specification, String locale) throws LiblouisBrailleFilterException {
 		String text = specification.getText();
 		
 		if (!specification.shouldMarkCapitalLetters()) {
@@ -99,33 +542,23 @@ class LiblouisBrailleFilter implements BrailleFilter {
 		}
 		
 		if (specification.isHyphenating()) {
-			HyphenatorInterface h = hyphenators.get(locale);
-			if (h == null) {
-				try {
-					h = hyphenatorFactoryMaker.newHyphenator(locale);
-				} catch (HyphenatorConfigurationException e) {
-					throw new LiblouisBrailleFilterException(e);
-				}
-				hyphenators.put(locale, h);
+			long t = TranslatorMetrics.start();
+			try {
+				text = hyphenators.hyphenate(locale, text);
+			} catch (HyphenatorConfigurationException e) {
+				throw new LiblouisBrailleFilterException(e);
 			}
-			text = h.hyphenate(text);
-		}
-		
-		// Only style attributes from Liblouis itself are processed here
-		LiblouisTranslatable louisSpec = toLiblouisSpecification(text, specification.getText());
-		TextAttribute ta = specification.getAttributes();
-		Typeform[] typeForm;
-		if (ta==null) {
-			typeForm = new Typeform[louisSpec.getCharAtts().length];
-		} else {
-			typeForm = toTypeForm(ta, typeformMap);
+			TranslatorMetrics.record(tablePath, locale, Stage.HYPHENATION, t);
 		}
+		return toLiblouisSpecification(text, specification.getText());
+	}
 
-		try {
-			return toBrailleFilterString(louisSpec.getText(), table.translate(louisSpec.getText(), typeForm, louisSpec.getCharAtts(), louisSpec.getInterCharAtts(), new UnicodeBrailleDisplayTable(Fallback.MASK)));
-		} catch (org.liblouis.TranslationException | DisplayException e) {
-			throw new LiblouisBrailleFilterException(e);
-		}
+	/**
+	 * Gets the segment cache used by this filter.
+	 * @return the segment cache, or null if caching is disabled
+	 */
+	LiblouisSegmentCache getSegmentCache() {
+		return cache;
 	}
 	
 	@Override
@@ -134,15 +567,23 @@ class LiblouisBrailleFilter implements BrailleFilter {
 			return "";
 		}
 		
+		List<String> preceding = null;
+		List<String> following = null;
+		if (specification.getAttributes().isPresent()) {
+			// The context is resolved once and used both for marker processing and for the type form
+			preceding = resolvePreceding(specification.getPrecedingText(), contextLimit);
+			following = resolveFollowing(specification.getFollowingText(), contextLimit);
+		}
+
 		Stream<String> inStream = specification.getTextToTranslate().stream().map(v->v.resolve());
 		List<String> texts;
 		
 		if (mp != null && specification.getAttributes().isPresent()) {
-			Stream<String> preceding = specification.getPrecedingText().stream().map(v->v.resolve());
-			Stream<String> following = specification.getFollowingText().stream().map(v->v.peek());
-			List<String> textsI = Stream.concat(Stream.concat(preceding, inStream), following).collect(Collectors.toList());
+			List<String> textsI = Stream.concat(Stream.concat(preceding.stream(), inStream), following.stream()).collect(Collectors.toList());
+			long t = TranslatorMetrics.start();
 			String[] out = mp.getMarkerProcessor().processAttributesRetain(specification.getAttributes().get(), textsI);
-			int start = specification.getPrecedingText().size();
+			TranslatorMetrics.record(tablePath, loc, Stage.MARKER_PROCESSING, t);
+			int start = preceding.size();
 			int end = start + specification.getTextToTranslate().size();
 			texts = Arrays.asList(out).subList(start, end);
 		} else {
@@ -165,11 +606,9 @@ class LiblouisBrailleFilter implements BrailleFilter {
 		Typeform[] typeForm;
 		
 		if (specification.getAttributes().isPresent()) {
-			List<String> preceding = specification.getPrecedingText().stream().map(v->v.resolve()).collect(Collectors.toList()); 
-			List<String> following = specification.getFollowingText().stream().map(v->v.peek()).collect(Collectors.toList());
 			List<String> textsI = Stream.concat(Stream.concat(preceding.stream(), p.parts.stream()), following.stream()).collect(Collectors.toList());
 			TextAttribute ta = DefaultMarkerProcessor.toTextAttribute(specification.getAttributes().get(), textsI);
-			Typeform[] typeForm2 = toTypeForm(ta, typeformMap);
+			Typeform[] typeForm2 = toTypeForm(ta, typeformMap, combinedTypeforms);
 			int start = preceding.stream().mapToInt(v->v.length()).sum();
 			int end = start + strIn.length();
 			typeForm = Arrays.copyOfRange(typeForm2, start, end);
@@ -177,10 +616,64 @@ class LiblouisBrailleFilter implements BrailleFilter {
 			typeForm = new Typeform[louisSpec.getCharAtts().length];
 		}
 		
+		return toBrailleFilterString(louisSpec.getText(), translate(louisSpec, typeForm));
+	}
+	
+	/**
+	 * Resolves the preceding text, starting with the text closest to the text to translate.
+	 * Once the limit has been reached, the remaining items are replaced by empty strings
+	 * without being resolved. This preserves the number of items, so that the items
+	 * can still be matched with the attributes.
+	 * @param preceding the preceding text
+	 * @param limit the maximum number of characters to resolve
+	 * @return a list of strings, in the same order as the preceding text
+	 */
+	static List<String> resolvePreceding(List<PrecedingText> preceding, int limit) {
+		String[] ret = new String[preceding.size()];
+		int len = 0;
+		for (int i=ret.length-1; i>=0; i--) {
+			if (len<limit) {
+				ret[i] = preceding.get(i).resolve();
+				len += ret[i].length();
+			} else {
+				ret[i] = "";
+			}
+		}
+		return Arrays.asList(ret);
+	}
+
+	/**
+	 * Peeks at the following text, starting with the text closest to the text to translate.
+	 * Once the limit has been reached, the remaining items are replaced by empty strings.
+	 * @param following the following text
+	 * @param limit the maximum number of characters to peek at
+	 * @return a list of strings, in the same order as the following text
+	 */
+	static List<String> resolveFollowing(List<FollowingText> following, int limit) {
+		String[] ret = new String[following.size()];
+		int len = 0;
+		for (int i=0; i<ret.length; i++) {
+			if (len<limit) {
+				ret[i] = following.get(i).peek();
+				len += ret[i].length();
+			} else {
+				ret[i] = "";
+			}
+		}
+		return Arrays.asList(ret);
+	}
+
+	private TranslationResult translate(LiblouisTranslatable louisSpec, Typeform[] typeForm) throws LiblouisBrailleFilterException {
+		long t = TranslatorMetrics.start();
 		try {
-			return toBrailleFilterString(louisSpec.getText(), table.translate(louisSpec.getText(), typeForm, louisSpec.getCharAtts(), louisSpec.getInterCharAtts(), new UnicodeBrailleDisplayTable(Fallback.MASK)));
+			synchronized (LiblouisTableCache.NATIVE_LOCK) {
+				return table.translate(louisSpec.getText(), typeForm, louisSpec.getCharAtts(), louisSpec.getInterCharAtts(), new UnicodeBrailleDisplayTable(Fallback.MASK));
+			}
 		} catch (org.liblouis.TranslationException | DisplayException e) {
 			throw new LiblouisBrailleFilterException(e);
+		} finally {
+			// Includes the time spent waiting for the native lock
+			TranslatorMetrics.record(tablePath, loc, Stage.NATIVE_TRANSLATE, t);
 		}
 	}
 	
@@ -229,18 +722,15 @@ class LiblouisBrailleFilter implements BrailleFilter {
 			}
 			if (hyphenate) {
 				String locale = _loc_.orElse(loc);
-				HyphenatorInterface hx = hyphenators.get(locale);
-				if (hx == null) {
-					try {
-						hx = hyphenatorFactoryMaker.newHyphenator(locale);
-					} catch (HyphenatorConfigurationException e) {
-						if (LOGGER.isLoggable(Level.WARNING)) {
-							LOGGER.log(Level.WARNING, String.format("Failed to create hyphenator for %s", locale), e);
-						}
+				long t = TranslatorMetrics.start();
+				try {
+					hyphText = hyphenators.hyphenate(locale, text);
+				} catch (HyphenatorConfigurationException e) {
+					if (LOGGER.isLoggable(Level.WARNING)) {
+						LOGGER.log(Level.WARNING, String.format("Failed to create hyphenator for %s", locale), e);
 					}
-					hyphenators.put(locale, hx);
 				}
-				hyphText = hx.hyphenate(text);
+				TranslatorMetrics.record(tablePath, locale, Stage.HYPHENATION, t);
 			}
 
 			textB.append(text);
@@ -258,89 +748,195 @@ class LiblouisBrailleFilter implements BrailleFilter {
 	 * @return hyphenation information
 	 */
 	static LiblouisTranslatable toLiblouisSpecification(String hyphStr, String inputStr) {
+		int len = inputStr.codePointCount(0, inputStr.length());
+		int[] interCharAttr = new int[Math.max(0, len-1)];
+		toInterCharAttributes(hyphStr, inputStr, interCharAttr);
+		int[] charAtts = new int[len];
+		for (int i=0; i<len; i++) {
+			charAtts[i]=i;
+		}
+		return new LiblouisTranslatable(inputStr, charAtts, interCharAttr);
+	}
+
+	/**
+	 * Writes the intercharacter attributes for the input string, based on the
+	 * breakpoints in the hyphenated string, into the supplied buffer. Both strings
+	 * are scanned in place, no intermediate arrays are created.
+	 * 
+	 * @param hyphStr the hyphenated string
+	 * @param inputStr the input string
+	 * @param interCharAttr the buffer to write to, the length must be at least
+	 * 		the number of code points in the input string minus one
+	 * @return the number of code points in the input string
+	 * @throws IllegalArgumentException if the hyphenated string is shorter than the input string
+	 */
+	static int toInterCharAttributes(String hyphStr, String inputStr, int[] interCharAttr) {
 		if (hyphStr.length() < inputStr.length()) {
 			throw new IllegalArgumentException("The hyphenated string cannot be shorter than the input string");
 		}
-		
-		int[] cpHyph = hyphStr.codePoints().toArray();
-		int[] cpInput = inputStr.codePoints().toArray();
-		int j=0;
+		int hyphLen = hyphStr.length();
+		int inputLen = inputStr.length();
+		// j is the UTF-16 index in the hyphenated string
+		int j = 0;
 		int flag;
-		int[] interCharAttr = new int[cpInput.length-1];
-		int[] charAtts = new int[cpInput.length];
-
-		for (int i=0; i<cpInput.length; i++) {
-			charAtts[i]=i;
+		int i = 0;
+		int inputCP;
+		int nextCP;
+		int hyphCP;
+		for (int offset = 0; offset<inputLen; i++) {
+			inputCP = inputStr.codePointAt(offset);
+			offset += Character.charCount(inputCP);
+			boolean last = offset>=inputLen;
+			nextCP = last?-1:inputStr.codePointAt(offset);
 			flag = LIBLOUIS_NO_BREAKPOINT;
-			while (j<cpHyph.length && i<cpInput.length-1 && cpInput[i+1]!=cpHyph[j]) {
-				if (cpHyph[j]==SOFT_HYPHEN) {
+			while (j<hyphLen && !last && nextCP!=(hyphCP = hyphStr.codePointAt(j))) {
+				if (hyphCP==SOFT_HYPHEN) {
 					flag = LIBLOUIS_SOFT_HYPEN;
-				} else if (cpHyph[j]==ZERO_WIDTH_SPACE && flag!=LIBLOUIS_SOFT_HYPEN) {
+				} else if (hyphCP==ZERO_WIDTH_SPACE && flag!=LIBLOUIS_SOFT_HYPEN) {
 					flag = LIBLOUIS_ZERO_WIDTH_SPACE;
-				} else if (cpInput[i]!=cpHyph[j] && cpInput[i+1]!=cpHyph[j+1]) {
+				} else if (inputCP!=hyphCP && !followedBy(hyphStr, j + Character.charCount(hyphCP), nextCP)) {
 					throw new RuntimeException("'"+hyphStr + ":" + inputStr+"'");
 				}
+				j += Character.charCount(hyphCP);
+			}
+			if (j<hyphLen) {
+				j += Character.charCount(hyphStr.codePointAt(j));
+			} else {
 				j++;
 			}
-			j++;
-			if (i<cpInput.length-1) {
+			if (!last) {
 				interCharAttr[i] = flag;
 			}
 		}
-		return new LiblouisTranslatable(inputStr, charAtts, interCharAttr);
+		return i;
+	}
+
+	private static boolean followedBy(String str, int index, int codePoint) {
+		return index<str.length() && str.codePointAt(index)==codePoint;
 	}
 
 	/**
-	 * Converts a text attribute to its "type form" equivalent.
+	 * Converts a text attribute to its "type form" equivalent. The attribute tree is
+	 * first flattened into intervals, one for each leaf, and then the intervals are
+	 * written to a single array.
 	 * @param attr the text attribute
 	 * @param map the text attribute name to type form value map
 	 * @return returns an array with the corresponding values
 	 */
 	static Typeform[] toTypeForm(TextAttribute attr, Map<String, Typeform> map) {
+		return toTypeForm(attr, map, new HashMap<>());
+	}
+
+	/**
+	 * Converts a text attribute to its "type form" equivalent. Type forms of nested
+	 * attributes are combined once for each set of type forms, and then taken from
+	 * the supplied map. Since {@link Typeform#add(Typeform)} returns a new instance
+	 * each time, this is what makes the same attributes result in the same array
+	 * elements, which the segment cache relies on.
+	 * @param attr the text attribute
+	 * @param map the text attribute name to type form value map
+	 * @param combined the combined type forms, by their parts
+	 * @return returns an array with the corresponding values
+	 */
+	static Typeform[] toTypeForm(TextAttribute attr, Map<String, Typeform> map, Map<Set<Typeform>, Typeform> combined) {
 		Typeform[] ret = new Typeform[attr.getWidth()];
+		List<TypeformInterval> intervals = new ArrayList<>();
+		toTypeformIntervals(attr, map, combined, new ArrayDeque<>(), 0, intervals);
+		for (TypeformInterval ti : intervals) {
+			Arrays.fill(ret, ti.start, ti.end, ti.typeform);
+		}
+		return ret;
+	}
+
+	/**
+	 * Flattens a text attribute into a list of intervals.
+	 * @param attr the text attribute
+	 * @param map the text attribute name to type form value map
+	 * @param combined the combined type forms, by their parts
+	 * @param ancestors the type forms of the ancestors of the attribute, innermost first
+	 * @param offset the start position of the attribute
+	 * @param intervals the list to add intervals to
+	 */
+	private static void toTypeformIntervals(TextAttribute attr, Map<String, Typeform> map, Map<Set<Typeform>, Typeform> combined, Deque<Typeform> ancestors, int offset, List<TypeformInterval> intervals) {
 		Typeform typeForm = Typeform.PLAIN_TEXT;
 		if (attr.getDictionaryIdentifier()!=null) {
 			typeForm = Optional.ofNullable(map.get(attr.getDictionaryIdentifier())).orElse(typeForm);
 		}
-
 		if (attr.hasChildren()) {
-			int offset = 0;
+			ancestors.push(typeForm);
 			for (TextAttribute t : attr) {
-				Typeform[] v = toTypeForm(t, map);
-				//Note: v.length == t.getWidth()
-				for (int i=0; i<v.length; i++) {
-					ret[i+offset] = typeForm.add(v[i]);
-				}
+				toTypeformIntervals(t, map, combined, ancestors, offset, intervals);
 				offset += t.getWidth();
 			}
-		} else {
-			for (int i=0; i<ret.length; i++) {
-				ret[i] = typeForm;
+			ancestors.pop();
+		} else if (attr.getWidth()>0) {
+			if (!ancestors.isEmpty()) {
+				Set<Typeform> parts = new HashSet<>(ancestors);
+				parts.add(typeForm);
+				Typeform leaf = typeForm;
+				typeForm = combined.computeIfAbsent(parts, k->{
+					// Combine from the innermost ancestor and outwards, like the type forms
+					// of nested attributes have always been combined. Since the values are
+					// combined with bitwise or, the order of the parts doesn't matter.
+					Typeform ret = leaf;
+					for (Typeform t : ancestors) {
+						ret = t.add(ret);
+					}
+					return ret;
+				});
 			}
+			intervals.add(new TypeformInterval(offset, offset + attr.getWidth(), typeForm));
+		}
+	}
+
+	private static class TypeformInterval {
+		private final int start;
+		private final int end;
+		private final Typeform typeform;
+
+		private TypeformInterval(int start, int end, Typeform typeform) {
+			this.start = start;
+			this.end = end;
+			this.typeform = typeform;
 		}
-		return ret;
 	}
 
-	private static String toBrailleFilterString(String input, TranslationResult res) {
-		return toBrailleFilterString(input, res.getBraille(), res.getCharacterAttributes(), res.getInterCharacterAttributes());
+	private String toBrailleFilterString(String input, TranslationResult res) {
+		long t = TranslatorMetrics.start();
+		String ret = toBrailleFilterString(input, res.getBraille(), res.getCharacterAttributes(), res.getInterCharacterAttributes());
+		TranslatorMetrics.record(tablePath, loc, Stage.STRING_REBUILD, t);
+		return ret;
 	}
 
 	/**
 	 * Modifies a string from Liblouis into a string that is compatible with {@link BrailleFilter}
-	 * by adding hyphenation characters (soft hyphen and zero width space). 
+	 * by adding hyphenation characters (soft hyphen and zero width space). The Liblouis string
+	 * is processed in a single pass and the result is written to a builder that is sized
+	 * up front.
+	 * @param input the input string
 	 * @param str the Liblouis string
+	 * @param charAtts the input index of each output character, as code point indexes
 	 * @param interCharAttr the inter char attributes.
 	 * @return a string
 	 */
 	static String toBrailleFilterString(String input, String str, int[] charAtts, int[] interCharAttr) {
-		StringBuilder sb = new StringBuilder();
-		int[] inputCodePoints = input.codePoints().toArray();
-		int[] codePoints = str.codePoints().toArray();
+		int markers = 0;
+		for (int i=0; i<interCharAttr.length; i++) {
+			if (interCharAttr[i]==LIBLOUIS_SOFT_HYPEN || interCharAttr[i]==LIBLOUIS_ZERO_WIDTH_SPACE) {
+				markers++;
+			}
+		}
+		StringBuilder sb = new StringBuilder(str.length() + markers);
+		// Code point indexes equal char indexes unless the input contains surrogate pairs
+		int[] inputCodePoints = input.length()==input.codePointCount(0, input.length())?null:input.codePoints().toArray();
 		int prvInputIndex = -1;
-		int inputIndex, inputCP;
-		for (int outputIndex=0; outputIndex<codePoints.length; outputIndex++) {
+		int inputIndex, inputCP, outputCP;
+		int outputIndex = 0;
+		for (int offset=0; offset<str.length(); outputIndex++) {
+			outputCP = str.codePointAt(offset);
+			offset += Character.charCount(outputCP);
 			inputIndex = charAtts[outputIndex];
-			inputCP = inputCodePoints[inputIndex];
+			inputCP = inputCodePoints==null?input.charAt(inputIndex):inputCodePoints[inputIndex];
 			// The following is needed because some tables in Liblouis translate spaces into braille cells, e.g. Danish.
 			// The BrailleFilter contract requires spaces to be preserved.
 			if (Character.isWhitespace(inputCP)) {
@@ -349,12 +945,12 @@ class LiblouisBrailleFilter implements BrailleFilter {
 				// If so, the character has already been processed, and should not be added to the
 				// output again.
 				if (prvInputIndex!=inputIndex) {
-					sb.appendCodePoint(' ');
+					sb.append(' ');
 				}
 				prvInputIndex=inputIndex;
 			} else {
 				prvInputIndex = -1;
-				sb.appendCodePoint(codePoints[outputIndex]);
+				sb.appendCodePoint(outputCP);
 			}
 			if (outputIndex<interCharAttr.length) {
 				switch (interCharAttr[outputIndex]) {
@@ -1,14 +1,14 @@
 package org.daisy.dotify.translator.impl.liblouis;
 
 import java.util.Collection;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import org.daisy.dotify.api.hyphenator.HyphenatorFactoryMaker;
 import org.daisy.dotify.api.hyphenator.HyphenatorFactoryMakerService;
 import org.daisy.dotify.api.translator.BrailleFilterFactory;
 import org.daisy.dotify.api.translator.BrailleFilterFactoryService;
 import org.daisy.dotify.api.translator.TranslatorSpecification;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
@@ -20,33 +20,46 @@ import org.osgi.service.component.annotations.ReferenceCardinality;
  */
 @Component
 public class LiblouisBrailleFilterFactoryService implements BrailleFilterFactoryService {
-	private final List<TranslatorSpecification> specs;
+	private final LiblouisEngineSelection engines;
 	private HyphenatorFactoryMakerService hyphenator = null;
 
 	/**
 	 * Creates a new Liblouis braille filter factory service.
 	 */
 	public LiblouisBrailleFilterFactoryService() {
-		this.specs = LiblouisSpecifications.getMap().keySet()
-				.stream()
-				.map(v->(TranslatorSpecification)v)
-				.collect(Collectors.toList());
+		// The table index is loaded when it is first used, the engine is selected now
+		this(LiblouisEngineSelection.current());
+	}
+
+	/**
+	 * Creates a new Liblouis braille filter factory service with the specified engine selection.
+	 * @param engines the engine selection
+	 */
+	LiblouisBrailleFilterFactoryService(LiblouisEngineSelection engines) {
+		this.engines = engines;
+	}
+
+	/**
+	 * Activates the service. Tables in the warm-up list, if any, are compiled
+	 * in the background. The list is read from the component property
+	 * <code>warmup</code> or, if not set, from the system property
+	 * <code>org.daisy.dotify.translator.impl.liblouis.warmup</code>, for example
+	 * <code>sv-SE/uncontracted, en/contracted</code>.
+	 * @param properties the component properties
+	 */
+	@Activate
+	public void activate(Map<String, Object> properties) {
+		LiblouisTableWarmup.start(LiblouisTableWarmup.getWarmupList(properties), engines);
 	}
 
 	@Override
 	public boolean supportsSpecification(String locale, String mode) {
-		TranslatorSpecification target = new TranslatorSpecification(locale, mode);
-		for (TranslatorSpecification spec : specs) {
-			if (target.equals(spec)) {
-				return true;
-			}
-		}
-		return false;
+		return engines.provides(LiblouisEngine.NATIVE, locale, mode);
 	}
 
 	@Override
 	public Collection<TranslatorSpecification> listSpecifications() {
-		return specs;
+		return engines.listSpecifications(LiblouisEngine.NATIVE);
 	}
 
 	@Override
@@ -74,6 +87,7 @@ public class LiblouisBrailleFilterFactoryService implements BrailleFilterFactory
 	@Override
 	public void setCreatedWithSPI() {
 		setHyphenator(HyphenatorFactoryMaker.newInstance());
+		activate(null);
 	}
 
 }
@@ -1,14 +1,14 @@
 package org.daisy.dotify.translator.impl.liblouis;
 
 import java.util.Collection;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 import org.daisy.dotify.api.hyphenator.HyphenatorFactoryMaker;
 import org.daisy.dotify.api.hyphenator.HyphenatorFactoryMakerService;
 import org.daisy.dotify.api.translator.BrailleTranslatorFactory;
 import org.daisy.dotify.api.translator.BrailleTranslatorFactoryService;
 import org.daisy.dotify.api.translator.TranslatorSpecification;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
@@ -20,30 +20,38 @@ import org.osgi.service.component.annotations.ReferenceCardinality;
  */
 @Component
 public class LiblouisBrailleTranslatorFactoryService implements BrailleTranslatorFactoryService {
-	private final List<TranslatorSpecification> specs;
+	private final LiblouisEngineSelection engines;
 	private HyphenatorFactoryMakerService hyphenator = null;
 
 	/**
 	 * Creates a new Liblouis braille translator factory service.
 	 */
 	public LiblouisBrailleTranslatorFactoryService() {
-		this.specs = LiblouisSpecifications.getMap().keySet().stream().collect(Collectors.toList());
+		// The table index is loaded when it is first used, the engine is selected now
+		this.engines = LiblouisEngineSelection.current();
+	}
+
+	/**
+	 * Activates the service. Tables in the warm-up list, if any, are compiled
+	 * in the background. The list is read from the component property
+	 * <code>warmup</code> or, if not set, from the system property
+	 * <code>org.daisy.dotify.translator.impl.liblouis.warmup</code>, for example
+	 * <code>sv-SE/uncontracted, en/contracted</code>.
+	 * @param properties the component properties
+	 */
+	@Activate
+	public void activate(Map<String, Object> properties) {
+		LiblouisTableWarmup.start(LiblouisTableWarmup.getWarmupList(properties), engines);
 	}
 
 	@Override
 	public boolean supportsSpecification(String locale, String mode) {
-		TranslatorSpecification target = new TranslatorSpecification(locale, mode);
-		for (TranslatorSpecification spec : specs) {
-			if (target.equals(spec)) {
-				return true;
-			}
-		}
-		return false;
+		return engines.provides(LiblouisEngine.NATIVE, locale, mode);
 	}
 
 	@Override
 	public Collection<TranslatorSpecification> listSpecifications() {
-		return specs;
+		return engines.listSpecifications(LiblouisEngine.NATIVE);
 	}
 
 	@Override
@@ -54,6 +62,7 @@ public class LiblouisBrailleTranslatorFactoryService implements BrailleTranslato
 	@Override
 	public void setCreatedWithSPI() {
 		setHyphenator(HyphenatorFactoryMaker.newInstance());
+		activate(null);
 	}
 
 	/**
@@ -0,0 +1,51 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import java.util.Locale;
+import java.util.logging.Logger;
+
+/**
+ * <p>Provides the engines that Liblouis tables can be used with. The engine is
+ * selected with the system property {@value #ENGINE_PROPERTY}, which is either
+ * <code>native</code> (the default) or <code>java</code>.</p>
+ *
+ * <p>When the pure-Java engine is selected, the specifications whose tables it
+ * has been verified with are provided by the pure-Java services, and the native
+ * services decline them. All other specifications are still provided by
+ * the native services. See {@link LiblouisEngineSelection}.</p>
+ *
+ * @author Joel Håkansson
+ */
+enum LiblouisEngine {
+	/**
+	 * The native Liblouis library, through liblouis-java.
+	 */
+	NATIVE,
+	/**
+	 * The pure-Java engine, for the tables it supports.
+	 */
+	JAVA;
+
+	/**
+	 * The name of the system property that selects the engine.
+	 */
+	static final String ENGINE_PROPERTY = "org.daisy.dotify.translator.impl.liblouis.engine";
+	private static final Logger LOGGER = Logger.getLogger(LiblouisEngine.class.getCanonicalName());
+
+	/**
+	 * Gets the selected engine.
+	 * @return the engine
+	 */
+	static LiblouisEngine current() {
+		String value = System.getProperty(ENGINE_PROPERTY);
+		if (value==null) {
+			return NATIVE;
+		}
+		try {
+			return valueOf(value.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			LOGGER.warning("Unknown Liblouis engine: " + value);
+			return NATIVE;
+		}
+	}
+
+}
@@ -0,0 +1,159 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import org.daisy.dotify.api.translator.TranslatorSpecification;
+import org.daisy.dotify.translator.impl.liblouis.java.LiblouisTables;
+
+/**
+ * <p>Decides which engine provides each specification, given the selected engine.
+ * The selected engine is read once, when the selection is created, so that
+ * services can keep a selection and answer whether they support a
+ * specification with lookups only.</p>
+ *
+ * <p>When the native engine is selected, it provides all specifications. When
+ * the pure-Java engine is selected, it provides the specifications whose tables
+ * are listed in the resource {@value #JAVA_TABLES}, and the native engine
+ * provides the rest. That a table can be parsed by the pure-Java engine isn't
+ * enough, since the engine only implements a subset of liblouis. The resource
+ * is therefore generated by <code>ListJavaTables</code>, which lists the tables
+ * that translate the benchmark corpus exactly like the native library does.</p>
+ *
+ * @author Joel Håkansson
+ */
+final class LiblouisEngineSelection {
+	private static final String JAVA_TABLES = "liblouis-java-tables.txt";
+	private static final Logger LOGGER = Logger.getLogger(LiblouisEngineSelection.class.getCanonicalName());
+	private final LiblouisEngine selected;
+	private final Set<String> javaTables;
+	private final Function<String, Optional<org.daisy.dotify.translator.impl.liblouis.java.LiblouisBrailleFilter>> filters;
+
+	/**
+	 * Creates a new selection.
+	 * @param selected the selected engine
+	 */
+	LiblouisEngineSelection(LiblouisEngine selected) {
+		this(selected, JavaTables.VERIFIED, LiblouisTables::getFilter);
+	}
+
+	/**
+	 * Creates a new selection with the specified pure-Java tables.
+	 * @param selected the selected engine
+	 * @param javaTables the tables that the pure-Java engine provides, when selected
+	 * @param filters a function that returns the pure-Java filter for a table
+	 */
+	LiblouisEngineSelection(LiblouisEngine selected, Set<String> javaTables, Function<String, Optional<org.daisy.dotify.translator.impl.liblouis.java.LiblouisBrailleFilter>> filters) {
+		this.selected = selected;
+		this.javaTables = javaTables;
+		this.filters = filters;
+	}
+
+	/**
+	 * Creates a new selection with the engine that is currently selected,
+	 * see {@link LiblouisEngine#current()}.
+	 * @return a new selection
+	 */
+	static LiblouisEngineSelection current() {
+		return new LiblouisEngineSelection(LiblouisEngine.current());
+	}
+
+	/**
+	 * Gets the selected engine.
+	 * @return the engine
+	 */
+	LiblouisEngine getSelected() {
+		return selected;
+	}
+
+	/**
+	 * Returns true if a specification is provided by an engine. Lookups of listed
+	 * specifications don't allocate and no table is parsed.
+	 * @param engine the engine
+	 * @param locale the locale
+	 * @param mode the mode
+	 * @return true if the engine provides the specification, false otherwise
+	 */
+	boolean provides(LiblouisEngine engine, String locale, String mode) {
+		String table = LiblouisSpecifications.getTable(locale, mode);
+		return table!=null && isJavaTable(table)==(engine==LiblouisEngine.JAVA);
+	}
+
+	private boolean isJavaTable(String table) {
+		return selected==LiblouisEngine.JAVA && javaTables.contains(table);
+	}
+
+	/**
+	 * Gets the pure-Java filter for a specification. The table is parsed
+	 * the first time it is requested.
+	 * @param spec the specification
+	 * @return the filter, or an empty optional if the specification isn't provided
+	 * 		by the pure-Java engine
+	 */
+	Optional<org.daisy.dotify.translator.impl.liblouis.java.LiblouisBrailleFilter> getJavaFilter(TranslatorSpecification spec) {
+		String table = LiblouisSpecifications.getTable(spec);
+		if (table==null || !isJavaTable(table)) {
+			return Optional.empty();
+		}
+		Optional<org.daisy.dotify.translator.impl.liblouis.java.LiblouisBrailleFilter> ret = filters.apply(table);
+		if (!ret.isPresent()) {
+			LOGGER.warning("Listed in " + JAVA_TABLES + ", but cannot be loaded by the pure-Java engine: " + table);
+		}
+		return ret;
+	}
+
+	/**
+	 * Lists the specifications provided by an engine.
+	 * @param engine the engine
+	 * @return an unmodifiable list of specifications
+	 */
+	List<TranslatorSpecification> listSpecifications(LiblouisEngine engine) {
+		if (selected==LiblouisEngine.NATIVE) {
+			return engine==LiblouisEngine.NATIVE?LiblouisSpecifications.listSpecifications():Collections.emptyList();
+		}
+		List<TranslatorSpecification> ret = new ArrayList<>();
+		for (TranslatorSpecification spec : LiblouisSpecifications.listSpecifications()) {
+			if (isJavaTable(LiblouisSpecifications.getTable(spec))==(engine==LiblouisEngine.JAVA)) {
+				ret.add(spec);
+			}
+		}
+		return Collections.unmodifiableList(ret);
+	}
+
+	// Reads the resource the first time it is used
+	private static final class JavaTables {
+		private static final Set<String> VERIFIED = read();
+
+		private static Set<String> read() {
+			Set<String> ret = new HashSet<>();
+			try (InputStream is = LiblouisEngineSelection.class.getResourceAsStream(JAVA_TABLES)) {
+				if (is==null) {
+					throw new IllegalStateException("Missing resource: " + JAVA_TABLES);
+				}
+				BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+				String line;
+				while ((line = br.readLine())!=null) {
+					if (!line.isEmpty() && !line.startsWith("#")) {
+						ret.add(line);
+					}
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return Collections.unmodifiableSet(ret);
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import java.util.Objects;
+
+import org.daisy.dotify.api.hyphenator.HyphenatorFactoryMakerService;
+import org.daisy.dotify.api.translator.BrailleFilter;
+import org.daisy.dotify.api.translator.BrailleFilterFactory;
+import org.daisy.dotify.api.translator.TranslatorConfigurationException;
+import org.daisy.dotify.api.translator.TranslatorSpecification;
+import org.daisy.dotify.common.text.StringFilter;
+import org.daisy.dotify.translator.DefaultBrailleFilter;
+
+class LiblouisJavaBrailleFilterFactory implements BrailleFilterFactory {
+	private final LiblouisEngineSelection engines;
+	private final HyphenatorFactoryMakerService hyphenatorService;
+
+	LiblouisJavaBrailleFilterFactory(LiblouisEngineSelection engines, HyphenatorFactoryMakerService hyphenatorService) {
+		this.engines = engines;
+		this.hyphenatorService = Objects.requireNonNull(hyphenatorService);
+	}
+
+	@Override
+	public BrailleFilter newFilter(String locale, String mode) throws TranslatorConfigurationException {
+		return newFilter(locale, mode, engines, hyphenatorService);
+	}
+
+	static BrailleFilter newFilter(String locale, String mode, LiblouisEngineSelection engines, HyphenatorFactoryMakerService hyphenatorService) throws TranslatorConfigurationException {
+		TranslatorSpecification spec;
+		try {
+			spec = new TranslatorSpecification(locale, mode);
+		} catch (IllegalArgumentException e) {
+			throw new LiblouisJavaConfigurationException(e);
+		}
+		org.daisy.dotify.translator.impl.liblouis.java.LiblouisBrailleFilter filter = engines.getJavaFilter(spec).orElseThrow(()->new LiblouisJavaConfigurationException("Factory does not support " + locale + "/" + mode));
+		// The same markers as for the native engine. Note that em and strong, which the native
+		// engine indicates with type forms, aren't indicated.
+		return new DefaultBrailleFilter(new BrailleFilterString(filter), locale,
+				LiblouisMarkerProcessor.newInstance().getMarkerProcessor(), hyphenatorService);
+	}
+
+	/**
+	 * Translates with the pure-Java filter, keeping whitespace and break points
+	 * as required by the braille filter contract.
+	 */
+	private static class BrailleFilterString implements StringFilter {
+		private final org.daisy.dotify.translator.impl.liblouis.java.LiblouisBrailleFilter filter;
+
+		private BrailleFilterString(org.daisy.dotify.translator.impl.liblouis.java.LiblouisBrailleFilter filter) {
+			this.filter = filter;
+		}
+
+		@Override
+		public String filter(String str) {
+			return filter.toBrailleFilterString(str);
+		}
+	}
+
+	private static class LiblouisJavaConfigurationException extends TranslatorConfigurationException {
+
+		/**
+		 * 
+		 */
+		private static final long serialVersionUID = -4786436585924413582L;
+
+		private LiblouisJavaConfigurationException(String message) {
+			super(message);
+		}
+
+		private LiblouisJavaConfigurationException(Throwable cause) {
+			super(cause);
+		}
+	}
+
+}
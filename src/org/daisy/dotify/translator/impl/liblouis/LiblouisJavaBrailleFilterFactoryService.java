@@ -0,0 +1,80 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import java.util.Collection;
+
+import org.daisy.dotify.api.hyphenator.HyphenatorFactoryMaker;
+import org.daisy.dotify.api.hyphenator.HyphenatorFactoryMakerService;
+import org.daisy.dotify.api.translator.BrailleFilterFactory;
+import org.daisy.dotify.api.translator.BrailleFilterFactoryService;
+import org.daisy.dotify.api.translator.TranslatorSpecification;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+
+/**
+ * Provides a braille filter factory service for Liblouis tables, using the pure-Java
+ * engine. The service only supports specifications when the pure-Java engine
+ * is selected, and then only those whose tables the engine has been verified with,
+ * see {@link LiblouisEngineSelection}. No native library is loaded.
+ * @author Joel Håkansson
+ *
+ */
+@Component
+public class LiblouisJavaBrailleFilterFactoryService implements BrailleFilterFactoryService {
+	private final LiblouisEngineSelection engines;
+	private HyphenatorFactoryMakerService hyphenator = null;
+
+	/**
+	 * Creates a new pure-Java Liblouis braille filter factory service.
+	 */
+	public LiblouisJavaBrailleFilterFactoryService() {
+		// The table index is loaded when it is first used, the engine is selected now
+		this(LiblouisEngineSelection.current());
+	}
+
+	/**
+	 * Creates a new pure-Java Liblouis braille filter factory service with the specified engine selection.
+	 * @param engines the engine selection
+	 */
+	LiblouisJavaBrailleFilterFactoryService(LiblouisEngineSelection engines) {
+		this.engines = engines;
+	}
+
+	@Override
+	public boolean supportsSpecification(String locale, String mode) {
+		return engines.provides(LiblouisEngine.JAVA, locale, mode);
+	}
+
+	@Override
+	public Collection<TranslatorSpecification> listSpecifications() {
+		return engines.listSpecifications(LiblouisEngine.JAVA);
+	}
+
+	@Override
+	public BrailleFilterFactory newFactory() {
+		return new LiblouisJavaBrailleFilterFactory(engines, hyphenator);
+	}
+
+	/**
+	 * Sets the hyphenator factory maker service.
+	 * @param hyphenator the hyphenator factory maker service.
+	 */
+	@Reference(cardinality=ReferenceCardinality.MANDATORY)
+	public void setHyphenator(HyphenatorFactoryMakerService hyphenator) {
+		this.hyphenator = hyphenator;
+	}
+
+	/**
+	 * Unsets the hyphenator factory maker service.
+	 * @param hyphenator the instance to unset.
+	 */
+	public void unsetHyphenator(HyphenatorFactoryMakerService hyphenator) {
+		this.hyphenator = null;
+	}
+
+	@Override
+	public void setCreatedWithSPI() {
+		setHyphenator(HyphenatorFactoryMaker.newInstance());
+	}
+
+}
@@ -0,0 +1,28 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import java.util.Objects;
+
+import org.daisy.dotify.api.hyphenator.HyphenatorFactoryMakerService;
+import org.daisy.dotify.api.translator.BrailleTranslator;
+import org.daisy.dotify.api.translator.BrailleTranslatorFactory;
+import org.daisy.dotify.api.translator.TranslatorConfigurationException;
+import org.daisy.dotify.translator.SimpleBrailleTranslator;
+import org.daisy.dotify.translator.impl.ConfigurableBrailleFinalizer;
+
+class LiblouisJavaBrailleTranslatorFactory implements BrailleTranslatorFactory {
+	private final LiblouisEngineSelection engines;
+	private final HyphenatorFactoryMakerService hyphenatorService;
+
+	LiblouisJavaBrailleTranslatorFactory(LiblouisEngineSelection engines, HyphenatorFactoryMakerService hyphenatorService) {
+		this.engines = engines;
+		this.hyphenatorService = Objects.requireNonNull(hyphenatorService);
+	}
+
+	@Override
+	public BrailleTranslator newTranslator(String locale, String mode) throws TranslatorConfigurationException {
+		return new SimpleBrailleTranslator(
+				LiblouisJavaBrailleFilterFactory.newFilter(locale, mode, engines, hyphenatorService),
+				new ConfigurableBrailleFinalizer.Builder().build(), mode);
+	}
+
+}
@@ -0,0 +1,72 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import java.util.Collection;
+
+import org.daisy.dotify.api.hyphenator.HyphenatorFactoryMaker;
+import org.daisy.dotify.api.hyphenator.HyphenatorFactoryMakerService;
+import org.daisy.dotify.api.translator.BrailleTranslatorFactory;
+import org.daisy.dotify.api.translator.BrailleTranslatorFactoryService;
+import org.daisy.dotify.api.translator.TranslatorSpecification;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+
+/**
+ * Provides a braille translator factory service for Liblouis tables, using the pure-Java
+ * engine. The service only supports specifications when the pure-Java engine
+ * is selected, and then only those whose tables the engine has been verified with,
+ * see {@link LiblouisEngineSelection}. No native library is loaded.
+ * @author Joel Håkansson
+ *
+ */
+@Component
+public class LiblouisJavaBrailleTranslatorFactoryService implements BrailleTranslatorFactoryService {
+	private final LiblouisEngineSelection engines;
+	private HyphenatorFactoryMakerService hyphenator = null;
+
+	/**
+	 * Creates a new pure-Java Liblouis braille translator factory service.
+	 */
+	public LiblouisJavaBrailleTranslatorFactoryService() {
+		// The table index is loaded when it is first used, the engine is selected now
+		this.engines = LiblouisEngineSelection.current();
+	}
+
+	@Override
+	public boolean supportsSpecification(String locale, String mode) {
+		return engines.provides(LiblouisEngine.JAVA, locale, mode);
+	}
+
+	@Override
+	public Collection<TranslatorSpecification> listSpecifications() {
+		return engines.listSpecifications(LiblouisEngine.JAVA);
+	}
+
+	@Override
+	public BrailleTranslatorFactory newFactory() {
+		return new LiblouisJavaBrailleTranslatorFactory(engines, hyphenator);
+	}
+
+	@Override
+	public void setCreatedWithSPI() {
+		setHyphenator(HyphenatorFactoryMaker.newInstance());
+	}
+
+	/**
+	 * Sets the hyphenator factory maker service.
+	 * @param hyphenator the hyphenator factory maker service.
+	 */
+	@Reference(cardinality=ReferenceCardinality.MANDATORY)
+	public void setHyphenator(HyphenatorFactoryMakerService hyphenator) {
+		this.hyphenator = hyphenator;
+	}
+
+	/**
+	 * Unsets the hyphenator factory maker service.
+	 * @param hyphenator the instance to unset.
+	 */
+	public void unsetHyphenator(HyphenatorFactoryMakerService hyphenator) {
+		this.hyphenator = null;
+	}
+
+}
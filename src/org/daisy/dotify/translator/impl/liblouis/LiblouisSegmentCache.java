@@ -0,0 +1,201 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.liblouis.Typeform;
+
+/**
+ * Provides a size bounded cache of translated segments. The size of the
+ * cache is measured as the total number of characters in the cached
+ * texts and translations. When the size exceeds the capacity, the least
+ * recently used segments are removed.
+ *
+ * <p>The cache is off by default, since it only pays off when the same
+ * segments are translated many times, and otherwise just holds on to
+ * memory. It is turned on by setting a capacity with {@value #CAPACITY_PROPERTY}.</p>
+ *
+ * @author Joel Håkansson
+ */
+class LiblouisSegmentCache {
+	/**
+	 * The name of the system property that sets the capacity, in characters,
+	 * of new segment caches. The default is zero, which disables the cache.
+	 */
+	static final String CAPACITY_PROPERTY = "org.daisy.dotify.translator.impl.liblouis.segmentCacheCapacity";
+	private static final int DEFAULT_CAPACITY = 0;
+	private final LinkedHashMap<Key, String> entries;
+	private final int capacity;
+	private int size;
+	private long hits;
+	private long misses;
+
+	LiblouisSegmentCache(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+		}
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+		this.capacity = capacity;
+		this.size = 0;
+		this.hits = 0;
+		this.misses = 0;
+	}
+
+	/**
+	 * Creates a new segment cache with the capacity set by the system property
+	 * {@value #CAPACITY_PROPERTY}.
+	 * @return a new segment cache, or null if the cache is disabled
+	 */
+	static LiblouisSegmentCache newInstance() {
+		int capacity = Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY);
+		return capacity > 0 ? new LiblouisSegmentCache(capacity) : null;
+	}
+
+	/**
+	 * Gets a cached translation.
+	 * @param key the key
+	 * @return the translation, or null if the key isn't in the cache
+	 */
+	synchronized String get(Key key) {
+		String ret = entries.get(key);
+		if (ret == null) {
+			misses++;
+		} else {
+			hits++;
+		}
+		return ret;
+	}
+
+	/**
+	 * Adds a translation to the cache.
+	 * @param key the key
+	 * @param value the translation
+	 */
+	synchronized void put(Key key, String value) {
+		int weight = weight(key, value);
+		if (weight > capacity) {
+			return;
+		}
+		String old = entries.put(key, value);
+		if (old != null) {
+			size -= weight(key, old);
+		}
+		size += weight;
+		Iterator<Map.Entry<Key, String>> it = entries.entrySet().iterator();
+		while (size > capacity && it.hasNext()) {
+			Map.Entry<Key, String> e = it.next();
+			size -= weight(e.getKey(), e.getValue());
+			it.remove();
+		}
+	}
+
+	private static int weight(Key key, String value) {
+		return key.text.length() + value.length();
+	}
+
+	int getCapacity() {
+		return capacity;
+	}
+
+	synchronized int getSize() {
+		return size;
+	}
+
+	synchronized long getHitCount() {
+		return hits;
+	}
+
+	synchronized long getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * Gets the ratio of lookups that were found in the cache.
+	 * @return the hit ratio, or zero if there have been no lookups
+	 */
+	synchronized double getHitRatio() {
+		long total = hits + misses;
+		return total == 0 ? 0 : (double)hits / total;
+	}
+
+	/**
+	 * Provides a key that covers everything that affects the translation of a segment.
+	 * Type forms are compared by identity, since {@link Typeform} doesn't implement
+	 * equals. This works because a filter reuses the same type form instances,
+	 * including the combined ones, see {@link LiblouisBrailleFilter#toTypeForm(org.daisy.dotify.api.translator.TextAttribute, java.util.Map, java.util.Map)}.
+	 */
+	static final class Key {
+		private final String text;
+		private final String locale;
+		private final boolean hyphenate;
+		private final boolean markCapitals;
+		private final Typeform[] typeform;
+		private final int hash;
+
+		/**
+		 * Creates a new key.
+		 * @param text the text
+		 * @param locale the locale
+		 * @param hyphenate true if the text should be hyphenated
+		 * @param markCapitals true if capital letters should be marked
+		 * @param typeform the type form array, or null if the text has no type form
+		 */
+		Key(String text, String locale, boolean hyphenate, boolean markCapitals, Typeform[] typeform) {
+			this.text = text;
+			this.locale = locale;
+			this.hyphenate = hyphenate;
+			this.markCapitals = markCapitals;
+			this.typeform = typeform;
+			this.hash = Objects.hash(text, locale, hyphenate, markCapitals, typeformHash(typeform));
+		}
+
+		/**
+		 * Computes a hash of the type form array. Runs of the same type form
+		 * are hashed only once, which makes it cheap for the common case where
+		 * a segment has one style throughout.
+		 * @param typeform the type form array
+		 * @return a hash code
+		 */
+		private static int typeformHash(Typeform[] typeform) {
+			if (typeform == null) {
+				return 0;
+			}
+			int ret = 1;
+			Typeform prv = null;
+			for (int i = 0; i < typeform.length; i++) {
+				if (i == 0 || typeform[i] != prv) {
+					prv = typeform[i];
+					ret = 31 * ret + i;
+					ret = 31 * ret + (prv == null ? 0 : prv.hashCode());
+				}
+			}
+			return ret;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return hash == other.hash
+					&& hyphenate == other.hyphenate
+					&& markCapitals == other.markCapitals
+					&& text.equals(other.text)
+					&& Objects.equals(locale, other.locale)
+					&& Arrays.equals(typeform, other.typeform);
+		}
+	}
+
+}
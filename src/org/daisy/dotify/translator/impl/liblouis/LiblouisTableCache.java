@@ -0,0 +1,340 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.liblouis.CompilationException;
+import org.liblouis.Translator;
+
+/**
+ * <p>Provides a process-wide cache of compiled Liblouis tables, keyed by table path.</p>
+ *
+ * <p>Each cached table is reference counted. A reference is held for as long as the
+ * owner that acquired it is reachable. Tables that are in use are never evicted. When the
+ * number of cached tables exceeds the capacity, the least recently used tables that
+ * are no longer in use are evicted.</p>
+ *
+ * <p>The capacity of the shared instance can be set with the system property
+ * {@value #CAPACITY_PROPERTY}.</p>
+ *
+ * @author Joel Håkansson
+ */
+public final class LiblouisTableCache {
+	/**
+	 * The name of the system property that sets the capacity of the shared instance.
+	 */
+	public static final String CAPACITY_PROPERTY = "org.daisy.dotify.translator.impl.liblouis.tableCacheCapacity";
+	/**
+	 * Liblouis keeps compiled tables and translation buffers in static memory.
+	 * All calls into the library must therefore be made while holding this lock.
+	 */
+	static final Object NATIVE_LOCK = new Object();
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final LiblouisTableCache INSTANCE = new LiblouisTableCache(Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY), Translator::new);
+
+	private final Object lock = new Object();
+	private final TableCompiler compiler;
+	private final LinkedHashMap<String, Entry> entries;
+	private final ReferenceQueue<Object> queue;
+	// Keeps the owner references reachable until they have been processed
+	private final Set<OwnerReference> owners;
+	private int capacity;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long compileTimeNanos;
+
+	@FunctionalInterface
+	interface TableCompiler {
+		Translator compile(String path) throws CompilationException;
+	}
+
+	LiblouisTableCache(int capacity, TableCompiler compiler) {
+		this.capacity = requirePositive(capacity);
+		this.compiler = compiler;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+		this.queue = new ReferenceQueue<>();
+		this.owners = new HashSet<>();
+		this.hits = 0;
+		this.misses = 0;
+		this.evictions = 0;
+		this.compileTimeNanos = 0;
+	}
+
+	/**
+	 * Gets the shared instance.
+	 * @return the shared instance
+	 */
+	public static LiblouisTableCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Gets a compiled translator for the specified table. The table is compiled if
+	 * it isn't in the cache. If another thread is compiling the same table, this
+	 * method waits for that compilation to finish rather than compiling it again.
+	 * The table is kept in the cache for at least as long as the owner is reachable.
+	 * @param path the table path
+	 * @param owner the object that will use the translator
+	 * @return the translator
+	 * @throws CompilationException if the table cannot be compiled
+	 * @throws Error if the compiler throws an error, for example if the native library cannot be loaded
+	 */
+	Translator acquire(String path, Object owner) throws CompilationException {
+		Entry e;
+		boolean compile = false;
+		synchronized (lock) {
+			expungeReleased();
+			e = entries.get(path);
+			if (e == null) {
+				e = new Entry(path);
+				entries.put(path, e);
+				misses++;
+				compile = true;
+			} else {
+				hits++;
+			}
+			e.refs++;
+			owners.add(new OwnerReference(owner, e, queue));
+			trim();
+		}
+		if (compile) {
+			compile(e);
+		}
+		try {
+			return e.translator.join();
+		} catch (CompletionException ex) {
+			if (ex.getCause() instanceof CompilationException) {
+				throw (CompilationException)ex.getCause();
+			} else if (ex.getCause() instanceof Error) {
+				throw (Error)ex.getCause();
+			}
+			throw ex;
+		}
+	}
+
+	/**
+	 * Compiles the specified table on the supplied executor, unless it is already in the cache.
+	 * A later call to {@link #acquire(String, Object)} for the same table waits for the
+	 * compilation to finish instead of compiling the table again. The table isn't held
+	 * by anyone until it is acquired, so it can be evicted once it has been compiled.
+	 * @param path the table path
+	 * @param executor the executor to compile the table on
+	 * @return a future that completes when the table has been compiled
+	 */
+	CompletableFuture<Translator> prefetch(String path, Executor executor) {
+		Entry e;
+		synchronized (lock) {
+			expungeReleased();
+			e = entries.get(path);
+			if (e != null) {
+				return e.translator;
+			}
+			e = new Entry(path);
+			entries.put(path, e);
+			misses++;
+			trim();
+		}
+		final Entry entry = e;
+		try {
+			executor.execute(()->compile(entry));
+		} catch (RejectedExecutionException ex) {
+			synchronized (lock) {
+				if (entries.get(path) == entry) {
+					entries.remove(path);
+				}
+			}
+			entry.translator.completeExceptionally(ex);
+		}
+		return entry.translator;
+	}
+
+	private void compile(Entry e) {
+		long start = System.nanoTime();
+		try {
+			Translator t;
+			synchronized (NATIVE_LOCK) {
+				t = compiler.compile(e.path);
+			}
+			e.translator.complete(t);
+		} catch (Throwable ex) {
+			// Any failure, including errors such as a missing native library, must complete the
+			// future, or else threads waiting for this table would wait forever
+			synchronized (lock) {
+				// Don't keep failed compilations in the cache, they may succeed later
+				if (entries.get(e.path) == e) {
+					entries.remove(e.path);
+				}
+			}
+			e.translator.completeExceptionally(ex);
+		} finally {
+			synchronized (lock) {
+				compileTimeNanos += System.nanoTime() - start;
+			}
+		}
+	}
+
+	/**
+	 * Decrements the reference count of entries whose owners are no longer reachable.
+	 * Must be called while holding the lock.
+	 */
+	private void expungeReleased() {
+		Reference<?> r;
+		while ((r = queue.poll()) != null) {
+			OwnerReference or = (OwnerReference)r;
+			owners.remove(or);
+			or.entry.refs--;
+		}
+	}
+
+	/**
+	 * Evicts the least recently used entries that aren't in use, until the
+	 * size of the cache is within the capacity. Must be called while holding the lock.
+	 */
+	private void trim() {
+		Iterator<Entry> it = entries.values().iterator();
+		while (entries.size() > capacity && it.hasNext()) {
+			Entry e = it.next();
+			if (e.refs <= 0 && e.translator.isDone()) {
+				it.remove();
+				evictions++;
+			}
+		}
+	}
+
+	/**
+	 * Sets the maximum number of tables to keep in the cache. Tables that are
+	 * in use are kept regardless of the capacity.
+	 * @param capacity the capacity
+	 * @throws IllegalArgumentException if the capacity is less than one
+	 */
+	public void setCapacity(int capacity) {
+		synchronized (lock) {
+			this.capacity = requirePositive(capacity);
+			expungeReleased();
+			trim();
+		}
+	}
+
+	/**
+	 * Gets the maximum number of tables to keep in the cache.
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		synchronized (lock) {
+			return capacity;
+		}
+	}
+
+	/**
+	 * Gets the number of tables currently in the cache.
+	 * @return the number of tables
+	 */
+	public int getSize() {
+		synchronized (lock) {
+			expungeReleased();
+			return entries.size();
+		}
+	}
+
+	/**
+	 * Gets the number of requests that were served from the cache.
+	 * @return the number of hits
+	 */
+	public long getHitCount() {
+		synchronized (lock) {
+			return hits;
+		}
+	}
+
+	/**
+	 * Gets the number of requests that required a table to be compiled.
+	 * @return the number of misses
+	 */
+	public long getMissCount() {
+		synchronized (lock) {
+			return misses;
+		}
+	}
+
+	/**
+	 * Gets the number of tables that have been evicted from the cache.
+	 * @return the number of evictions
+	 */
+	public long getEvictionCount() {
+		synchronized (lock) {
+			return evictions;
+		}
+	}
+
+	/**
+	 * Gets the total time spent compiling tables, in nanoseconds.
+	 * @return the compile time
+	 */
+	public long getCompileTimeNanos() {
+		synchronized (lock) {
+			return compileTimeNanos;
+		}
+	}
+
+	/**
+	 * Gets the number of references to the specified table.
+	 * @param path the table path
+	 * @return the number of references, or zero if the table isn't in the cache
+	 */
+	int getReferenceCount(String path) {
+		synchronized (lock) {
+			expungeReleased();
+			Entry e = entries.get(path);
+			return e == null ? 0 : e.refs;
+		}
+	}
+
+	/**
+	 * Removes all tables that aren't in use from the cache.
+	 */
+	public void clear() {
+		synchronized (lock) {
+			expungeReleased();
+			entries.values().removeIf(e->e.refs <= 0 && e.translator.isDone());
+		}
+	}
+
+	private static int requirePositive(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+		}
+		return capacity;
+	}
+
+	private static class Entry {
+		private final String path;
+		private final CompletableFuture<Translator> translator;
+		private int refs;
+
+		private Entry(String path) {
+			this.path = path;
+			this.translator = new CompletableFuture<>();
+			this.refs = 0;
+		}
+	}
+
+	private static class OwnerReference extends PhantomReference<Object> {
+		private final Entry entry;
+
+		private OwnerReference(Object owner, Entry entry, ReferenceQueue<Object> queue) {
+			super(owner, queue);
+			this.entry = entry;
+		}
+	}
+
+}
@@ -0,0 +1,132 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.daisy.dotify.api.translator.TranslatorSpecification;
+
+/**
+ * <p>Compiles Liblouis tables in the background, so that they are ready
+ * when they are first used. Tables provided by the pure-Java engine are
+ * loaded by that engine instead.</p>
+ * 
+ * <p>The tables are given as a comma separated list of <code>locale/mode</code>
+ * pairs, for example <code>sv-SE/uncontracted, en/contracted</code>. The list
+ * is read from the component property {@value #WARMUP_COMPONENT_PROPERTY} or, if not set,
+ * from the system property {@value #WARMUP_PROPERTY}.</p>
+ * 
+ * @author Joel Håkansson
+ */
+final class LiblouisTableWarmup {
+	private static final Logger LOGGER = Logger.getLogger(LiblouisTableWarmup.class.getCanonicalName());
+	/**
+	 * The name of the system property that lists the tables to compile when a service is activated.
+	 */
+	static final String WARMUP_PROPERTY = "org.daisy.dotify.translator.impl.liblouis.warmup";
+	/**
+	 * The name of the component property that lists the tables to compile when a service is activated.
+	 */
+	static final String WARMUP_COMPONENT_PROPERTY = "warmup";
+
+	private LiblouisTableWarmup() {
+		//hide constructor
+	}
+
+	private static class ExecutorHolder {
+		// Liblouis compiles one table at a time, so there is no point in using more than one thread.
+		// Tables for the pure-Java engine are loaded on the same thread, to keep the warm-up in the background.
+		private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r->{
+			Thread t = new Thread(r, "liblouis-table-warmup");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	/**
+	 * Gets the warm-up list from the component properties, or from the system property
+	 * if the component property isn't set.
+	 * @param properties the component properties, or null
+	 * @return the warm-up list, or null if none is configured
+	 */
+	static String getWarmupList(Map<String, Object> properties) {
+		Object value = properties!=null?properties.get(WARMUP_COMPONENT_PROPERTY):null;
+		if (value instanceof String[]) {
+			return String.join(",", (String[])value);
+		} else if (value!=null) {
+			return value.toString();
+		}
+		return System.getProperty(WARMUP_PROPERTY);
+	}
+
+	/**
+	 * Parses a warm-up list.
+	 * @param value the list, as a comma separated list of <code>locale/mode</code> pairs
+	 * @return a list of specifications
+	 */
+	static List<TranslatorSpecification> parse(String value) {
+		List<TranslatorSpecification> ret = new ArrayList<>();
+		if (value==null) {
+			return ret;
+		}
+		for (String s : value.split(",")) {
+			s = s.trim();
+			if (s.isEmpty()) {
+				continue;
+			}
+			int i = s.indexOf('/');
+			if (i<1 || i==s.length()-1) {
+				LOGGER.warning("Ignoring malformed warm-up entry, expected locale/mode: " + s);
+				continue;
+			}
+			try {
+				ret.add(new TranslatorSpecification(s.substring(0, i).trim(), s.substring(i+1).trim()));
+			} catch (IllegalArgumentException e) {
+				LOGGER.log(Level.WARNING, "Ignoring malformed warm-up entry: " + s, e);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Starts compiling the tables in the warm-up list in the background. Tables
+	 * that are already compiled, or are being compiled, are skipped. Tables provided
+	 * by the pure-Java engine are loaded by that engine, in the same background
+	 * thread. Since this is done by the native services, the pure-Java services
+	 * don't start a warm-up of their own.
+	 * @param value the warm-up list, or null
+	 * @param engines the engine selection of the service
+	 */
+	static void start(String value, LiblouisEngineSelection engines) {
+		for (TranslatorSpecification spec : parse(value)) {
+			String path = LiblouisSpecifications.getTable(spec);
+			if (path==null) {
+				LOGGER.warning("No Liblouis table for warm-up entry: " + spec);
+				continue;
+			}
+			if (engines.provides(LiblouisEngine.JAVA, spec.getLocale(), spec.getMode())) {
+				CompletableFuture.supplyAsync(()->engines.getJavaFilter(spec), ExecutorHolder.EXECUTOR).whenComplete((f, ex)->{
+					if (ex!=null) {
+						LOGGER.log(Level.WARNING, "Failed to load " + path, ex);
+					} else if (LOGGER.isLoggable(Level.FINE)) {
+						LOGGER.fine((f.isPresent()?"Loaded ":"Failed to load ") + path + " with the pure-Java engine");
+					}
+				});
+				continue;
+			}
+			LiblouisTableCache.getInstance().prefetch(path, ExecutorHolder.EXECUTOR).whenComplete((t, ex)->{
+				if (ex!=null) {
+					LOGGER.log(Level.WARNING, "Failed to compile " + path, ex);
+				} else if (LOGGER.isLoggable(Level.FINE)) {
+					LOGGER.fine("Compiled " + path);
+				}
+			});
+		}
+	}
+
+}
@@ -0,0 +1,77 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Provides word caches for Liblouis tables that translate each word independently
+ * of the surrounding text. For such tables, a segment can be split on whitespace
+ * and only the words that haven't been translated before need to be sent to Liblouis.</p>
+ *
+ * <p>Whether or not a table is word-context-free cannot be determined from the table
+ * itself. Tables are therefore declared as such with the system property
+ * {@value #TABLES_PROPERTY}, a comma separated list of table names, for example
+ * <code>sv-1.ctb,de-g0.utb</code>. Use <code>VerifyWordContextFree</code> (in the tests)
+ * to verify that a table produces the same result when translated word by word.</p>
+ *
+ * <p>The caches are shared by all filters that use the same table. The capacity of
+ * each cache, in characters, can be set with the system property {@value #CAPACITY_PROPERTY}.</p>
+ *
+ * @author Joel Håkansson
+ */
+final class LiblouisWordCache {
+	/**
+	 * The name of the system property that lists the word-context-free tables.
+	 */
+	static final String TABLES_PROPERTY = "org.daisy.dotify.translator.impl.liblouis.wordContextFreeTables";
+	/**
+	 * The name of the system property that sets the capacity, in characters, of each word cache.
+	 */
+	static final String CAPACITY_PROPERTY = "org.daisy.dotify.translator.impl.liblouis.wordCacheCapacity";
+	private static final int DEFAULT_CAPACITY = 65536;
+	private static final Set<String> TABLES = parse(System.getProperty(TABLES_PROPERTY));
+	private static final Map<String, LiblouisSegmentCache> CACHES = new ConcurrentHashMap<>();
+
+	private LiblouisWordCache() {
+		//hide constructor
+	}
+
+	static Set<String> parse(String value) {
+		if (value==null) {
+			return Collections.emptySet();
+		}
+		Set<String> ret = new HashSet<>();
+		for (String s : value.split(",")) {
+			s = s.trim();
+			if (!s.isEmpty()) {
+				ret.add(s);
+			}
+		}
+		return Collections.unmodifiableSet(ret);
+	}
+
+	/**
+	 * Returns true if the table has been declared word-context-free.
+	 * @param path the table path
+	 * @return true if the table is word-context-free, false otherwise
+	 */
+	static boolean isWordContextFree(String path) {
+		return path!=null && TABLES.contains(path);
+	}
+
+	/**
+	 * Gets the word cache for a table.
+	 * @param path the table path
+	 * @return the word cache, or null if the table hasn't been declared word-context-free
+	 */
+	static LiblouisSegmentCache forTable(String path) {
+		if (!isWordContextFree(path)) {
+			return null;
+		}
+		return CACHES.computeIfAbsent(path, p->new LiblouisSegmentCache(Math.max(1, Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY))));
+	}
+
+}
@@ -25,4 +25,18 @@ enum CharClass {
 	public char token() {
 		return token;
 	}
+	
+	/**
+	 * Gets the enum value with the specified token character.
+	 * @param token the token character
+	 * @return returns the enum value, or null if no value has this token
+	 */
+	public static CharClass forToken(char token) {
+		for (CharClass c : values()) {
+			if (c.token==token) {
+				return c;
+			}
+		}
+		return null;
+	}
 }
\ No newline at end of file
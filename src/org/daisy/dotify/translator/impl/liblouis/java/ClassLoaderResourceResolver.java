@@ -1,6 +1,6 @@
 package org.daisy.dotify.translator.impl.liblouis.java;
 
-import java.io.InputStream;
+import java.net.URL;
 import java.nio.charset.Charset;
 
 /**
@@ -23,9 +23,9 @@ class ClassLoaderResourceResolver implements ResourceResolver {
 
 	@Override
 	public ResourceDescriptor resolve(String subpath) {
-		InputStream is = this.getClass().getResourceAsStream((basepath!=null?basepath:"")+subpath);
-		if (is!=null) {
-			return new ResourceDescriptor(is, encoding);
+		URL url = this.getClass().getResource((basepath!=null?basepath:"")+subpath);
+		if (url!=null) {
+			return new ResourceDescriptor(url, encoding);
 		} else {
 			return null;
 		}
@@ -0,0 +1,177 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Provides a compact binary format for the tables of a pure-Java liblouis
+ * braille filter. A table is parsed and compiled once, after which it can be
+ * loaded by memory mapping the compiled file and rebuilding the lookup
+ * structures directly, without parsing any text.</p>
+ *
+ * <p>The file starts with a magic number and a format version. Files with
+ * another version are rejected, so they must be compiled again when the
+ * format changes. Next follows a pool of the distinct replacement strings,
+ * the number sign and capital sign as indices into the pool, the
+ * substitutions and finally the multi-character rules. Each substitution
+ * is a code point, the index of its replacement and the tokens of its
+ * character classes. Each rule is the indices of its opcode keyword, its
+ * characters and its replacement. All values are big-endian.</p>
+ *
+ * @author Joel Håkansson
+ */
+final class CompiledTable {
+	/**
+	 * The magic number that a compiled table starts with, "DLBT".
+	 */
+	static final int MAGIC = 0x444C4254;
+	/**
+	 * The current format version.
+	 */
+	static final int VERSION = 2;
+
+	private CompiledTable() {
+		//hide constructor
+	}
+
+	/**
+	 * Writes the tables of a filter to a file.
+	 * @param filter the filter
+	 * @param output the output file
+	 * @throws IOException if the file cannot be written
+	 */
+	static void write(LiblouisBrailleFilter filter, File output) throws IOException {
+		List<String> pool = new ArrayList<>();
+		Map<String, Integer> poolIndex = new HashMap<>();
+		int[] entries = new int[1];
+		filter.getSubstitutionTable().forEach((cp, s)->{
+			indexOf(s.getReplacement(), pool, poolIndex);
+			entries[0]++;
+		});
+		RuleTrie rules = filter.getRules();
+		for (int r = 0; r < rules.size(); r++) {
+			indexOf(rules.getOpcode(r).keyword(), pool, poolIndex);
+			indexOf(rules.getChars(r), pool, poolIndex);
+			indexOf(rules.getReplacement(r), pool, poolIndex);
+		}
+		int numsign = indexOf(filter.getNumsign(), pool, poolIndex);
+		int capsign = indexOf(filter.getCapsign(), pool, poolIndex);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(pool.size());
+			for (String s : pool) {
+				out.writeInt(s.length());
+				out.writeChars(s);
+			}
+			out.writeInt(numsign);
+			out.writeInt(capsign);
+			out.writeInt(entries[0]);
+			filter.getSubstitutionTable().forEach((cp, s)->{
+				out.writeInt(cp);
+				out.writeInt(poolIndex.get(s.getReplacement()));
+				out.writeByte(s.getGroups().size());
+				for (CharClass c : s.getGroups()) {
+					out.writeByte(c.token());
+				}
+			});
+			out.writeInt(rules.size());
+			for (int r = 0; r < rules.size(); r++) {
+				out.writeInt(poolIndex.get(rules.getOpcode(r).keyword()));
+				out.writeInt(poolIndex.get(rules.getChars(r)));
+				out.writeInt(poolIndex.get(rules.getReplacement(r)));
+			}
+		}
+	}
+
+	private static int indexOf(String s, List<String> pool, Map<String, Integer> poolIndex) {
+		Integer i = poolIndex.get(s);
+		if (i==null) {
+			i = pool.size();
+			pool.add(s);
+			poolIndex.put(s, i);
+		}
+		return i;
+	}
+
+	/**
+	 * Creates a new filter from a compiled file.
+	 * @param input the compiled file
+	 * @return returns a new filter
+	 * @throws IOException if the file cannot be read, or isn't a compiled table
+	 * 			of the current version
+	 */
+	static LiblouisBrailleFilter read(File input) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(input, "r");
+				FileChannel channel = raf.getChannel()) {
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Creates a new filter from a compiled table.
+	 * @param buf the compiled table
+	 * @return returns a new filter
+	 * @throws IOException if the buffer doesn't contain a compiled table of the
+	 * 			current version
+	 */
+	static LiblouisBrailleFilter read(ByteBuffer buf) throws IOException {
+		try {
+			if (buf.getInt()!=MAGIC) {
+				throw new IOException("Not a compiled table.");
+			}
+			int version = buf.getInt();
+			if (version!=VERSION) {
+				throw new IOException("Unsupported compiled table version: " + version);
+			}
+			String[] pool = new String[buf.getInt()];
+			for (int i = 0; i < pool.length; i++) {
+				char[] c = new char[buf.getInt()];
+				buf.asCharBuffer().get(c);
+				buf.position(buf.position() + c.length * 2);
+				pool[i] = new String(c);
+			}
+			LiblouisBrailleFilter.Builder builder = new LiblouisBrailleFilter.Builder().
+					numsign(pool[buf.getInt()]).
+					capsign(pool[buf.getInt()]);
+			int entries = buf.getInt();
+			for (int i = 0; i < entries; i++) {
+				int cp = buf.getInt();
+				String replacement = pool[buf.getInt()];
+				int groups = buf.get();
+				for (int j = 0; j < groups; j++) {
+					char token = (char)buf.get();
+					CharClass c = CharClass.forToken(token);
+					if (c==null) {
+						throw new IOException("Unknown character class: " + token);
+					}
+					builder.put(cp, replacement, c);
+				}
+			}
+			int rules = buf.getInt();
+			for (int i = 0; i < rules; i++) {
+				String keyword = pool[buf.getInt()];
+				Opcode opcode = Opcode.forKeyword(keyword);
+				if (opcode==null) {
+					throw new IOException("Unknown opcode: " + keyword);
+				}
+				builder.rule(opcode, pool[buf.getInt()], pool[buf.getInt()]);
+			}
+			return builder.build();
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+			throw new IOException("Corrupt compiled table.", e);
+		}
+	}
+
+}
@@ -0,0 +1,154 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>Provides a directory of compiled tables, see {@link CompiledTable}, so that a
+ * table list only has to be parsed the first time it is used, also across processes.
+ * The directory is set with the system property {@value #DIRECTORY_PROPERTY}.
+ * If it isn't set, tables aren't compiled.</p>
+ *
+ * <p>Next to each compiled table is a list of the files that it was built from,
+ * including nested includes, with their last modified time. A compiled table is
+ * only used if none of the files has changed since, otherwise the table list
+ * is parsed and compiled again. Table lists where a file has no URL can't be
+ * checked, and aren't compiled.</p>
+ *
+ * @author Joel Håkansson
+ */
+final class CompiledTableCache {
+	/**
+	 * The name of the system property that sets the directory of compiled tables.
+	 */
+	static final String DIRECTORY_PROPERTY = "org.daisy.dotify.translator.impl.liblouis.java.compiledTableDirectory";
+	private static final Logger LOGGER = Logger.getLogger(CompiledTableCache.class.getCanonicalName());
+	private final File directory;
+
+	/**
+	 * Creates a new compiled table cache.
+	 * @param directory the directory of the compiled tables
+	 */
+	CompiledTableCache(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Creates a new compiled table cache in the directory set by the system property
+	 * {@value #DIRECTORY_PROPERTY}.
+	 * @return a new compiled table cache, or null if the directory isn't set
+	 */
+	static CompiledTableCache newInstance() {
+		String value = System.getProperty(DIRECTORY_PROPERTY);
+		return value==null || value.trim().isEmpty()?null:new CompiledTableCache(new File(value.trim()));
+	}
+
+	/**
+	 * Gets a filter from a compiled table.
+	 * @param tableList the table list
+	 * @return the filter, or an empty optional if the table list hasn't been compiled,
+	 * 		or if any of its files has changed since it was compiled
+	 */
+	Optional<LiblouisBrailleFilter> get(String tableList) {
+		File table = getTableFile(tableList);
+		File sources = getSourcesFile(tableList);
+		if (!table.isFile() || !sources.isFile()) {
+			return Optional.empty();
+		}
+		try {
+			for (String line : Files.readAllLines(sources.toPath(), StandardCharsets.UTF_8)) {
+				int i = line.indexOf('\t');
+				if (i<0 || lastModified(new URL(line.substring(i+1)))!=Long.parseLong(line.substring(0, i))) {
+					LOGGER.fine("Compiled table is out of date: " + tableList);
+					return Optional.empty();
+				}
+			}
+			return Optional.of(CompiledTable.read(table));
+		} catch (IOException | NumberFormatException e) {
+			LOGGER.log(Level.FINE, "Failed to read compiled table: " + tableList, e);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * Compiles the tables of a filter. Failures are logged, since the table
+	 * list can still be parsed the next time.
+	 * @param tableList the table list
+	 * @param filter the filter
+	 * @param sources the files that the filter was built from
+	 */
+	void put(String tableList, LiblouisBrailleFilter filter, Collection<URL> sources) {
+		try {
+			List<String> lines = new ArrayList<>();
+			for (URL url : sources) {
+				lines.add(lastModified(url) + "\t" + url.toExternalForm());
+			}
+			Files.createDirectories(directory.toPath());
+			// Written to temporary files first, so that a concurrent reader never sees a partial file
+			File table = File.createTempFile("table", ".tmp", directory);
+			File list = File.createTempFile("sources", ".tmp", directory);
+			try {
+				CompiledTable.write(filter, table);
+				Files.write(list.toPath(), lines, StandardCharsets.UTF_8);
+				// The sources are moved last, a compiled table without sources isn't used
+				Files.move(table.toPath(), getTableFile(tableList).toPath(), StandardCopyOption.REPLACE_EXISTING);
+				Files.move(list.toPath(), getSourcesFile(tableList).toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				table.delete();
+				list.delete();
+			}
+		} catch (IOException e) {
+			LOGGER.log(Level.WARNING, "Failed to compile " + tableList, e);
+		}
+	}
+
+	private File getTableFile(String tableList) {
+		return new File(directory, getBaseName(tableList) + ".bin");
+	}
+
+	private File getSourcesFile(String tableList) {
+		return new File(directory, getBaseName(tableList) + ".sources");
+	}
+
+	/**
+	 * Gets a file name for a table list. Since the table list may contain characters
+	 * that can't be used in file names, a hash of the table list is added.
+	 * @param tableList the table list
+	 * @return the file name, without extension
+	 */
+	private static String getBaseName(String tableList) {
+		return tableList.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + Integer.toHexString(tableList.hashCode());
+	}
+
+	/**
+	 * Gets the last modified time of a URL. For resources in a jar, this is the
+	 * time of the entry in the jar.
+	 * @param url the URL
+	 * @return the last modified time, or zero if it isn't known
+	 * @throws IOException if the URL cannot be accessed
+	 */
+	private static long lastModified(URL url) throws IOException {
+		if ("file".equals(url.getProtocol())) {
+			try {
+				return new File(url.toURI()).lastModified();
+			} catch (URISyntaxException | IllegalArgumentException e) {
+				return new File(url.getPath()).lastModified();
+			}
+		}
+		URLConnection c = url.openConnection();
+		return c.getLastModified();
+	}
+
+}
@@ -0,0 +1,104 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * <p>Provides a cache of parsed include files, so that includes shared by several
+ * tables are only parsed once. Fragments are keyed by the resolved location of
+ * the include and stamped with its last modified time, or, for resources that
+ * are only available as a stream, a hash of its contents. Resources on the class
+ * path have a constant stamp, since they don't change while the process is running.
+ * A fragment is only returned if the stamp matches, otherwise the include
+ * has changed and must be parsed again.</p>
+ *
+ * <p>The cache holds at most one fragment per location. When the number of
+ * fragments exceeds the capacity, the least recently used fragments are removed.
+ * The capacity of the default cache is set with the system property
+ * {@value #CAPACITY_PROPERTY}.</p>
+ *
+ * @author Joel Håkansson
+ */
+final class IncludeCache {
+	/**
+	 * The name of the system property that sets the capacity, in fragments, of the default cache.
+	 */
+	static final String CAPACITY_PROPERTY = "org.daisy.dotify.translator.impl.liblouis.java.includeCacheCapacity";
+	private static final int DEFAULT_CAPACITY = 256;
+	private static final IncludeCache DEFAULT = new IncludeCache(Math.max(1, Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY)));
+	private final LinkedHashMap<String, Entry> entries;
+	private final int capacity;
+
+	/**
+	 * Creates a new cache without a capacity limit.
+	 */
+	IncludeCache() {
+		this(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Creates a new cache.
+	 * @param capacity the maximum number of fragments
+	 */
+	IncludeCache(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+		}
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Gets the cache that is shared by all file readers that don't
+	 * specify a cache.
+	 * @return the default cache
+	 */
+	static IncludeCache getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Gets a fragment from the cache.
+	 * @param location the resolved location of the include
+	 * @param stamp the current stamp of the include
+	 * @return the fragment, or null if the location isn't in the cache or has another stamp
+	 */
+	synchronized TableFragment get(String location, long stamp) {
+		Entry e = entries.get(location);
+		return e!=null && e.stamp==stamp?e.fragment:null;
+	}
+
+	/**
+	 * Puts a fragment in the cache, replacing any fragment for the same location.
+	 * @param location the resolved location of the include
+	 * @param stamp the stamp of the include
+	 * @param fragment the fragment
+	 */
+	synchronized void put(String location, long stamp, TableFragment fragment) {
+		entries.put(location, new Entry(stamp, fragment));
+		Iterator<String> it = entries.keySet().iterator();
+		while (entries.size() > capacity && it.hasNext()) {
+			it.next();
+			it.remove();
+		}
+	}
+
+	/**
+	 * Gets the number of fragments in the cache.
+	 * @return the number of fragments
+	 */
+	synchronized int size() {
+		return entries.size();
+	}
+
+	private static class Entry {
+		private final long stamp;
+		private final TableFragment fragment;
+
+		private Entry(long stamp, TableFragment fragment) {
+			this.stamp = stamp;
+			this.fragment = fragment;
+		}
+	}
+
+}
@@ -1,11 +1,8 @@
 package org.daisy.dotify.translator.impl.liblouis.java;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
-import java.util.regex.Pattern;
 
 import org.daisy.dotify.common.text.StringFilter;
 
@@ -14,9 +11,12 @@ import org.daisy.dotify.common.text.StringFilter;
  * @author Joel Håkansson
  */
 public class LiblouisBrailleFilter implements StringFilter {
-	private final Map<Integer, Substitution> mSubstitutionTable;
-
-	private final List<RegexReplace> replacers;
+	private static final char SOFT_HYPHEN = '\u00ad';
+	private static final char ZERO_WIDTH_SPACE = '\u200b';
+	private final SubstitutionTable mSubstitutionTable;
+	private final RuleTrie rules;
+	private final String numsign;
+	private final String capsign;
 
 	/**
 	 * Provides a builder for liblouis braille filters.
@@ -24,6 +24,7 @@ public class LiblouisBrailleFilter implements StringFilter {
 	public static class Builder {
 		private final Logger logger;
 		private final Map<Integer, Substitution> mSubstitutionTable;
+		private final RuleTrie.Builder rules;
 		//Braille Indicators
 		private String numsign = "";
 		private String capsign = "";
@@ -39,6 +40,7 @@ public class LiblouisBrailleFilter implements StringFilter {
 		 */
 		public Builder() {
 			this.mSubstitutionTable = new HashMap<>();
+			this.rules = new RuleTrie.Builder();
 			this.logger = Logger.getLogger(this.getClass().getCanonicalName());
 		}
 		
@@ -60,6 +62,20 @@ public class LiblouisBrailleFilter implements StringFilter {
 			return this;
 		}
 		
+		/**
+		 * Adds a multi-character rule. Rules are matched case insensitively.
+		 * Where several rules match, the longest is used. Where several
+		 * rules of the same length match, the first that was added is used.
+		 * @param opcode the opcode
+		 * @param chars the characters to match
+		 * @param replacement the replacement string (in unicode braille patterns)
+		 * @return returns this builder
+		 */
+		public Builder rule(Opcode opcode, String chars, String replacement) {
+			rules.add(opcode, chars, replacement);
+			return this;
+		}
+		
 		/**
 		 * Sets the number sign.
 		 * @param value a string of unicode braille patterns representing a number sign.
@@ -96,92 +112,272 @@ public class LiblouisBrailleFilter implements StringFilter {
 	}
 
 	private LiblouisBrailleFilter(Builder b) {
-		this.mSubstitutionTable = new HashMap<>();
-		mSubstitutionTable.putAll(b.mSubstitutionTable);
-		this.replacers = new ArrayList<>();
-		//Add more regular expressions here, based on character classes
-		char uc = CharClass.UPPERCASE.token();
-		replacers.add(new RegexReplace("(?<!"+uc+")("+uc+"{1})(?!"+uc+")", b.capsign+"$1"));
-		char d = CharClass.DIGIT.token();
-		replacers.add(new RegexReplace("(?<!"+d+")("+d+"+)(?!"+d+")", b.numsign+"$1"));
+		this.mSubstitutionTable = new SubstitutionTable(b.mSubstitutionTable);
+		this.rules = b.rules.build();
+		this.numsign = b.numsign;
+		this.capsign = b.capsign;
+	}
+
+	SubstitutionTable getSubstitutionTable() {
+		return mSubstitutionTable;
+	}
+
+	RuleTrie getRules() {
+		return rules;
+	}
+
+	String getNumsign() {
+		return numsign;
+	}
+
+	String getCapsign() {
+		return capsign;
 	}
 
 	@Override
 	public String filter(String input) {
-		//Translate characters and determine character class for each character
-		int codePoint;
-		StringBuilder sbr = new StringBuilder(input.length());
-		StringBuilder sbc = new StringBuilder(input.length());
-		
-		for (int offset = 0; offset < input.length();) {
-			codePoint = input.codePointAt(offset);
-			Substitution rd = mSubstitutionTable.get(Integer.valueOf(codePoint));
-			if (codePoint>=0x2800&&codePoint<=0x28FF) {
-				sbr.appendCodePoint(codePoint);
-				sbc.append(CharClass.BRAILLE);
-			} else if (null != rd && rd.getReplacement().length() > 0) {
-				// a replacement occurred
-				sbr.append(rd.getReplacement());
-				CharClass cg;
-				if (rd.getGroups().size()>1) {
-					//TODO: select
-					cg = rd.getGroups().iterator().next();
-				} else {
-					cg = rd.getGroups().iterator().next();
+		return translate(input, null);
+	}
+
+	/**
+	 * <p>Translates a string for use in a braille filter. The result is the same as
+	 * for {@link #filter(String)}, except for the following:</p>
+	 * <ul>
+	 * <li>each whitespace character is kept as a space, instead of being translated</li>
+	 * <li>soft hyphens and zero width spaces are break points. They are removed before
+	 * translating and inserted again after the braille of the character before them.
+	 * A break point between two characters that are translated by the same
+	 * multi-character rule is dropped.</li>
+	 * </ul>
+	 * @param input the input, possibly hyphenated
+	 * @return returns the braille, with spaces and break points
+	 */
+	public String toBrailleFilterString(String input) {
+		int len = input.length();
+		char[] breaks = new char[len + 1];
+		StringBuilder text = null;
+		for (int i = 0; i < len; i++) {
+			char c = input.charAt(i);
+			if (c==SOFT_HYPHEN || c==ZERO_WIDTH_SPACE) {
+				if (text==null) {
+					text = new StringBuilder(len);
+					text.append(input, 0, i);
 				}
-				sbc.append(cg.token());
-			} else {
-				// no replacement found
-				sbr.appendCodePoint(codePoint);
-				sbc.append(CharClass.UNDEFINED);
+				// a soft hyphen takes precedence over a zero width space, like in Liblouis
+				if (breaks[text.length()]!=SOFT_HYPHEN) {
+					breaks[text.length()] = c;
+				}
+			} else if (text!=null) {
+				text.append(c);
 			}
-			offset += Character.charCount(codePoint);
 		}
-		String contentStr = sbr.toString();
-		
-		//Insert markers in charClassStr
-		String charClassStr = insertMarkers(sbc.toString());
-		
-		//Merge markers from charClassStr and translation from contentStr
-		return merge(charClassStr, contentStr);
-	}
-	
-	private String insertMarkers(String input) {
-		String ret = input;
-		System.out.println(ret);
-		for (RegexReplace rr : replacers) {
-			ret = rr.replaceAll(ret);			
-		}
-		System.out.println(ret);
-		return ret;
-	}
-	
-	private String merge(String charClassStr, String contentStr) {
-		StringBuilder sb = new StringBuilder();
-		int j = 0;
-		for (int i=0; i<charClassStr.length(); i++) {
-			char c = charClassStr.charAt(i);
-			if (c>=0x2800&&c<=0x28FF) {
-				sb.append(c);
+		return translate(text==null?input:text.toString(), breaks);
+	}
+
+	/**
+	 * Translates a string.
+	 * @param input the input
+	 * @param breaks the break point to insert before each offset in the input, or null if
+	 * 		the input should be translated as is. If not null, whitespace is kept as a space.
+	 * @return returns the braille
+	 */
+	private String translate(String input, char[] breaks) {
+		//Translate characters and insert indicators based on the character class
+		//of the current, previous and next character, from left to right.
+		//At each offset, multi-character rules are matched by looking ahead
+		int len = input.length();
+		if (len==0) {
+			return "";
+		}
+		StringBuilder sb = new StringBuilder(len + len/4);
+		CharClass prev = null;
+		int codePoint = input.codePointAt(0);
+		Substitution rd = mSubstitutionTable.get(codePoint);
+		CharClass cc = classify(codePoint, rd);
+		int offset = 0;
+		while (offset < len) {
+			int nextOffset = offset + Character.charCount(codePoint);
+			int nextCodePoint = 0;
+			Substitution nextRd = null;
+			CharClass next = null;
+			if (nextOffset < len) {
+				nextCodePoint = input.codePointAt(nextOffset);
+				nextRd = mSubstitutionTable.get(nextCodePoint);
+				next = classify(nextCodePoint, nextRd);
+			}
+			sb.append(indicator(prev, cc, next));
+			int rule = rules.isEmpty()?-1:matchRule(input, offset, prev);
+			if (rule>=0) {
+				// a multi-character rule matched
+				sb.append(rules.getReplacement(rule));
+				int end = offset + rules.getChars(rule).length();
+				prev = classAt(input, input.offsetByCodePoints(end, -1));
+				offset = end;
+				if (offset < len) {
+					appendBreak(sb, breaks, offset);
+					codePoint = input.codePointAt(offset);
+					rd = mSubstitutionTable.get(codePoint);
+					cc = classify(codePoint, rd);
+				}
+				continue;
+			} else if (breaks!=null && Character.isWhitespace(codePoint)) {
+				// whitespace is preserved, as required by the braille filter contract
+				sb.append(' ');
+			} else if (cc==CharClass.BRAILLE || !hasReplacement(rd)) {
+				// no replacement found
+				sb.appendCodePoint(codePoint);
 			} else {
-				sb.append(contentStr.charAt(j));
-				j++;
+				// a replacement occurred
+				sb.append(rd.getReplacement());
 			}
+			if (nextOffset < len) {
+				appendBreak(sb, breaks, nextOffset);
+			}
+			prev = cc;
+			offset = nextOffset;
+			codePoint = nextCodePoint;
+			rd = nextRd;
+			cc = next;
 		}
 		return sb.toString();
 	}
-	
-	private static class RegexReplace {
-		private final Pattern p;
-		private final String replacement;
 
-		public RegexReplace(String regex, String replacement) {
-			this.p = Pattern.compile(regex);
-			this.replacement = replacement;
+	private static void appendBreak(StringBuilder sb, char[] breaks, int offset) {
+		if (breaks!=null && breaks[offset]!=0) {
+			sb.append(breaks[offset]);
+		}
+	}
+
+	/**
+	 * Gets the indicator to insert before a character.
+	 * @param prev the class of the previous character, or null if there is none
+	 * @param cc the class of the character
+	 * @param next the class of the next character, or null if there is none
+	 * @return returns the indicator, or an empty string
+	 */
+	private String indicator(CharClass prev, CharClass cc, CharClass next) {
+		//Add more indicators here, based on character classes
+		if (cc==CharClass.UPPERCASE && prev!=CharClass.UPPERCASE && next!=CharClass.UPPERCASE) {
+			// a single capital letter
+			return capsign;
+		} else if (cc==CharClass.DIGIT && prev!=CharClass.DIGIT) {
+			// the first digit in a number
+			return numsign;
+		} else {
+			return "";
+		}
+	}
+
+	/**
+	 * Finds the longest rule that matches at an offset. A rule only matches if its
+	 * opcode allows the characters around it, and if no indicator is needed inside
+	 * the matched characters. The indicators are only checked for the longest rule
+	 * that the opcodes allow. If an indicator is needed inside it, the longest rule
+	 * that ends at or before the first such indicator is used instead.
+	 * @param input the input
+	 * @param offset the offset
+	 * @param prev the class of the character before the offset
+	 * @return returns the rule, or -1 if no rule matches
+	 */
+	private int matchRule(String input, int offset, CharClass prev) {
+		boolean letterBefore = isLetter(prev);
+		int best = longestRule(input, offset, input.length(), letterBefore);
+		if (best<0) {
+			return -1;
+		}
+		int end = offset + rules.getChars(best).length();
+		int limit = firstInnerIndicator(input, offset, end);
+		if (limit<end) {
+			best = longestRule(input, offset, limit, letterBefore);
 		}
+		return best;
+	}
+
+	/**
+	 * Finds the longest rule that matches at an offset, by walking the trie from
+	 * the root, without checking for indicators.
+	 * @param input the input
+	 * @param offset the offset
+	 * @param limit the offset that the rule must end at or before
+	 * @param letterBefore true if the character before the offset is a letter
+	 * @return returns the rule, or -1 if no rule matches
+	 */
+	private int longestRule(String input, int offset, int limit, boolean letterBefore) {
+		int best = -1;
+		int node = RuleTrie.ROOT;
+		for (int i = offset; i < limit; i++) {
+			node = rules.child(node, Character.toLowerCase(input.charAt(i)));
+			if (node<0) {
+				break;
+			}
+			int end = i + 1;
+			if (rules.firstRule(node)==rules.endRule(node)
+					|| (Character.isHighSurrogate(input.charAt(i)) && end < input.length() && Character.isLowSurrogate(input.charAt(end)))) {
+				// no rules, or the end is inside a surrogate pair
+				continue;
+			}
+			boolean letterAfter = isLetter(classAt(input, end));
+			for (int r = rules.firstRule(node); r < rules.endRule(node); r++) {
+				if (rules.getOpcode(r).matches(letterBefore, letterAfter)) {
+					best = r;
+					break;
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Finds the first character after the start that needs an indicator. Since
+	 * the indicator for a character only depends on the characters next to it,
+	 * a rule ending at or before this character doesn't need an indicator inside.
+	 * @param input the input
+	 * @param start the start offset
+	 * @param end the end offset
+	 * @return returns the offset of the character, or the end offset if no
+	 * 		character before the end needs an indicator
+	 */
+	private int firstInnerIndicator(String input, int start, int end) {
+		int cp = input.codePointAt(start);
+		CharClass prev = classify(cp, mSubstitutionTable.get(cp));
+		int i = start + Character.charCount(cp);
+		while (i < end) {
+			cp = input.codePointAt(i);
+			CharClass cc = classify(cp, mSubstitutionTable.get(cp));
+			int next = i + Character.charCount(cp);
+			if (!indicator(prev, cc, classAt(input, next)).isEmpty()) {
+				return i;
+			}
+			prev = cc;
+			i = next;
+		}
+		return end;
+	}
+
+	private CharClass classAt(String input, int offset) {
+		if (offset >= input.length()) {
+			return null;
+		}
+		int cp = input.codePointAt(offset);
+		return classify(cp, mSubstitutionTable.get(cp));
+	}
+
+	private static boolean isLetter(CharClass cc) {
+		return cc==CharClass.LOWERCASE || cc==CharClass.UPPERCASE;
+	}
+
+	private static boolean hasReplacement(Substitution rd) {
+		return null != rd && rd.getReplacement().length() > 0;
+	}
 
-		public String replaceAll(String input) {
-			return p.matcher(input).replaceAll(replacement);
+	private static CharClass classify(int codePoint, Substitution rd) {
+		if (codePoint>=0x2800&&codePoint<=0x28FF) {
+			return CharClass.BRAILLE;
+		} else if (hasReplacement(rd)) {
+			//TODO: select, if the character belongs to several groups
+			return rd.getGroups().iterator().next();
+		} else {
+			return CharClass.UNDEFINED;
 		}
 	}
 
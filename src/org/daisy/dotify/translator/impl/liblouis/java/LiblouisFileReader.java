@@ -1,29 +1,114 @@
 package org.daisy.dotify.translator.impl.liblouis.java;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 import java.util.logging.Logger;
+import java.util.zip.CRC32;
 
 import org.daisy.dotify.common.braille.BrailleNotationConverter;
-import org.daisy.dotify.common.text.TextFileReader;
 
 class LiblouisFileReader {
 	private final ResourceResolver rr;
 	private final LiblouisBrailleFilter.Builder cr;
 	private final BrailleNotationConverter nc;
+	private final IncludeCache includes;
+	// The files that have been read or checked, by URL
+	private final Map<String, URL> sources;
+	private boolean complete;
+	private boolean located;
 	
 	private final Logger logger;
 
+	/**
+	 * Handles a line in a table file.
+	 */
+	@FunctionalInterface
+	private interface Handler {
+		/**
+		 * Handles the current line of a tokenizer.
+		 * @param r the reader
+		 * @param fragment the fragment to add the rules to
+		 * @param t the tokenizer
+		 * @param op the index of the opcode field
+		 * @param encoding the encoding of the file
+		 */
+		void handle(LiblouisFileReader r, TableFragment fragment, TableTokenizer t, int op, Charset encoding);
+	}
+
+	private static class Directive {
+		private final int operands;
+		private final Handler handler;
+		private Directive(int operands, Handler handler) {
+			this.operands = operands;
+			this.handler = handler;
+		}
+	}
+
+	// The supported opcodes, by keyword
+	private static final Map<String, Directive> DIRECTIVES = new HashMap<>();
+	static {
+		for (Opcode o : Opcode.values()) {
+			DIRECTIVES.put(o.keyword(), new Directive(2, (r, f, t, op, enc)->r.addRule(f, o, t.field(op+1), t.field(op+2))));
+		}
+		DIRECTIVES.put("uplow", new Directive(2, (r, f, t, op, enc)->r.addUplow(f, t.field(op+1), t.field(op+2))));
+		putEntry("punctuation", CharClass.PUNCTUATION);
+		putEntry("space", CharClass.SPACE);
+		putEntry("sign", CharClass.SIGN);
+		putEntry("math", CharClass.MATH);
+		putEntry("lowercase", CharClass.LOWERCASE);
+		putEntry("uppercase", CharClass.UPPERCASE);
+		putEntry("digit", CharClass.DIGIT);
+		DIRECTIVES.put("include", new Directive(1, (r, f, t, op, enc)->r.addInclude(f, t.field(op+1), enc)));
+		DIRECTIVES.put("display", new Directive(0, (r, f, t, op, enc)->{}));
+		DIRECTIVES.put("locale", new Directive(0, (r, f, t, op, enc)->{}));
+		DIRECTIVES.put("numsign", new Directive(1, (r, f, t, op, enc)->{
+			String value = r.nc.parseBrailleNotation(t.field(op+1));
+			f.add(b->b.numsign(value));
+		}));
+		DIRECTIVES.put("capsign", new Directive(1, (r, f, t, op, enc)->{
+			String value = r.nc.parseBrailleNotation(t.field(op+1));
+			f.add(b->b.capsign(value));
+		}));
+	}
+
+	private static void putEntry(String keyword, CharClass group) {
+		DIRECTIVES.put(keyword, new Directive(2, (r, f, t, op, enc)->r.addEntry(f, t.field(op+1), t.field(op+2), group)));
+	}
+
 	/**
 	 * Creates a new empty filter.
 	 * @param resolver a resource resolver
 	 */
 	public LiblouisFileReader(ResourceResolver resolver) {
+		this(resolver, IncludeCache.getDefault());
+	}
+
+	/**
+	 * Creates a new empty filter.
+	 * @param resolver a resource resolver
+	 * @param includes the cache of parsed include files
+	 */
+	LiblouisFileReader(ResourceResolver resolver, IncludeCache includes) {
 		this.rr = resolver;
 		this.cr = new LiblouisBrailleFilter.Builder();
+		this.includes = includes;
+		this.sources = new LinkedHashMap<>();
+		this.complete = true;
+		this.located = true;
 		this.nc = new BrailleNotationConverter("-");
 		this.logger = Logger.getLogger(this.getClass().getCanonicalName());
 	}
@@ -33,7 +118,11 @@ class LiblouisFileReader {
 	}
 	
 	public void parse(String path) throws IOException {
-		parse(rr.resolve(path));
+		ResourceDescriptor rd = rr.resolve(path);
+		if (rd==null) {
+			throw new FileNotFoundException(path);
+		}
+		parse(rd);
 	}
 	
 	public LiblouisBrailleFilter getFilter() {
@@ -42,82 +131,241 @@ class LiblouisFileReader {
 
 	/**
 	 * Parses a Liblouis input stream with the specified encoding and
-	 * adds its contents to the filter.
+	 * adds its contents to the filter. Included files are parsed once
+	 * and then taken from the include cache, for as long as they, and the
+	 * files they include, are unchanged.
+	 * The input stream of the resource is closed when done.
 	 * @param resource a resource descriptor
 	 * @throws IOException if the resource cannot be read
 	 */
 	public void parse(ResourceDescriptor resource) throws IOException {
-		TextFileReader tfr = new TextFileReader.Builder(resource.getInputStream()).
-				charset(resource.getEncoding()).
-				regex("\\s").build();
-		
-		TextFileReader.LineData ld;
-		while ((ld= tfr.nextLine())!=null) {
-			String[] f = ld.getFields();
-			if ("uplow".equals(f[0])) {
-				addUplow(f[1], f[2]);
-			} else if ("punctuation".equals(f[0])) {
-				addEntry(f[1], f[2], CharClass.PUNCTUATION);
-			} else if ("space".equals(f[0])) {
-				addEntry(f[1], f[2], CharClass.SPACE);
-			} else if ("sign".equals(f[0])) {
-				addEntry(f[1], f[2], CharClass.SIGN);
-			} else if ("math".equals(f[0])) {
-				addEntry(f[1], f[2], CharClass.MATH);
-			} else if ("lowercase".equals(f[0])) {
-				addEntry(f[1], f[2], CharClass.LOWERCASE);
-			} else if ("uppercase".equals(f[0])) {
-				addEntry(f[1], f[2], CharClass.UPPERCASE);
-			} else if ("digit".equals(f[0])) {
-				addEntry(f[1], f[2], CharClass.DIGIT);
+		addSource(resource.getURL());
+		TableFragment f;
+		try (InputStream is = resource.getInputStream()) {
+			f = parse(is, resource.getEncoding());
+		}
+		complete &= f.isComplete();
+		f.applyTo(cr);
+	}
+
+	/**
+	 * Gets the files that the filter was built from, including nested includes,
+	 * whether they were parsed or taken from the include cache.
+	 * @return the URLs of the files, or an empty optional if a file was only
+	 * 		available as a stream
+	 */
+	Optional<Collection<URL>> getSources() {
+		return located?Optional.of(Collections.unmodifiableCollection(sources.values())):Optional.empty();
+	}
+
+	private void addSource(URL url) {
+		if (url!=null) {
+			sources.putIfAbsent(url.toExternalForm(), url);
+		} else {
+			located = false;
+		}
+	}
+
+	/**
+	 * Returns true if every line in the parsed files was recognized. If not, the
+	 * filter may translate differently than liblouis does with the same files.
+	 * Note that the reverse isn't true: the filter only implements a subset of
+	 * liblouis, for example, capsign is only inserted before single capitals,
+	 * numsign is the only other indicator and emphasis isn't indicated, so a
+	 * complete table may still translate differently.
+	 * @return returns true if every line in the parsed files was recognized, false otherwise
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	private TableFragment parse(InputStream is, Charset encoding) throws IOException {
+		TableTokenizer t = new TableTokenizer(is, encoding);
+		TableFragment ret = new TableFragment();
+		while (t.next()) {
+			int op = 0;
+			if ("nofor".equals(t.field(op))) {
+				// only used when back-translating
+				continue;
+			} else if ("noback".equals(t.field(op)) && t.fieldCount()>1) {
+				op++;
+			}
+			Directive d = DIRECTIVES.get(t.field(op));
+			if (d==null) {
+				logger.fine("Not implemented: " + t.line());
+				ret.markIncomplete();
+			} else if (t.fieldCount()<=op+d.operands) {
+				logger.info("Missing operands: " + t.line());
+				ret.markIncomplete();
+			} else {
+				d.handler.handle(this, ret, t, op, encoding);
+			}
+		}
+		return ret;
+	}
+
+	private TableFragment parseInclude(String path, Charset encoding) throws IOException {
+		IncludeSource source = resolveInclude(path, encoding);
+		TableFragment ret = includes.get(source.location, source.stamp);
+		if (ret==null || !isCurrent(ret)) {
+			try (InputStream is = source.open()) {
+				ret = parse(is, source.encoding);
+			}
+			includes.put(source.location, source.stamp, ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns true if the includes of a cached fragment, and their includes, still
+	 * resolve to the fragments it was parsed with. The stamp of a fragment only covers
+	 * its own file, so a change to a nested include must be detected this way. This
+	 * doesn't read the includes, except those that the resolver only provides as a
+	 * stream.
+	 * @param fragment the fragment
+	 * @return true if the fragment is current, false otherwise
+	 * @throws IOException if an include cannot be read
+	 */
+	private boolean isCurrent(TableFragment fragment) throws IOException {
+		for (TableFragment.Include inc : fragment.getIncludes()) {
+			IncludeSource source;
+			try {
+				source = resolveInclude(inc.getPath(), inc.getEncoding());
+			} catch (FileNotFoundException e) {
+				source = null;
 			}
-			else if ("include".equals(f[0])) {
-				try {
-					ResourceDescriptor rd = rr.resolve(f[1]);
-					if (rd!=null) {
-						parse(rd);
-					} else {
-						File f2 = new File(f[1]);
-						if (f2.isFile()) {
-							parse(new ResourceDescriptor(new FileInputStream(f2), resource.getEncoding()));
-						} else {
-							throw new FileNotFoundException(f[1]);
-						}
-					}
-				} catch (IOException e) {
-					logger.warning("Include not found: " + f[1]);
+			if (inc.getFragment()==null) {
+				if (source!=null) {
+					// The include was missing, but has been added since
+					return false;
 				}
-			} 
-			else if ("display".equals(f[0]) || "locale".equals(f[0])) {
-				//ignore
-			} else if ("numsign".equals(f[0])) {
-				System.out.println("NUMSIGN");
-				cr.numsign(nc.parseBrailleNotation(f[1]));
-			} else if ("capsign".equals(f[0])) {
-				cr.capsign(nc.parseBrailleNotation(f[1]));
+			} else if (source==null
+					|| includes.get(source.location, source.stamp)!=inc.getFragment()
+					|| !isCurrent(inc.getFragment())) {
+				return false;
 			}
-			else {
-				System.out.println("Not implemented: " + ld.getLine());
+		}
+		return true;
+	}
+
+	private IncludeSource resolveInclude(String path, Charset encoding) throws IOException {
+		ResourceDescriptor rd = rr.resolve(path);
+		if (rd!=null && rd.getURL()!=null) {
+			URL url = rd.getURL();
+			addSource(url);
+			if ("file".equals(url.getProtocol())) {
+				File f = toFile(url);
+				return new IncludeSource("file:" + f.getAbsolutePath(), f.lastModified(), rd.getEncoding(), rd::getInputStream);
+			}
+			// Other resources, for example in a jar on the class path, don't change while
+			// the process is running, so they are identified by their URL alone
+			return new IncludeSource(url.toString(), 0, rd.getEncoding(), rd::getInputStream);
+		} else if (rd!=null) {
+			// Without a location, use the contents to tell whether the resource has changed
+			addSource(null);
+			byte[] data;
+			try (InputStream is = rd.getInputStream()) {
+				data = readAll(is);
+			}
+			CRC32 crc = new CRC32();
+			crc.update(data);
+			return new IncludeSource("resource:" + path, crc.getValue(), rd.getEncoding(), ()->new ByteArrayInputStream(data));
+		} else {
+			File f2 = new File(path);
+			if (f2.isFile()) {
+				addSource(f2.toURI().toURL());
+				return new IncludeSource("file:" + f2.getAbsolutePath(), f2.lastModified(), encoding, ()->new FileInputStream(f2));
+			} else {
+				throw new FileNotFoundException(path);
 			}
 		}
 	}
+
+	private static File toFile(URL url) {
+		try {
+			return new File(url.toURI());
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			return new File(url.getPath());
+		}
+	}
+
+	/**
+	 * Opens an include.
+	 */
+	@FunctionalInterface
+	private interface Opener {
+		InputStream open() throws IOException;
+	}
+
+	/**
+	 * Provides the resolved location and stamp of an include, and a way to read it.
+	 */
+	private static class IncludeSource {
+		private final String location;
+		private final long stamp;
+		private final Charset encoding;
+		private final Opener opener;
+
+		private IncludeSource(String location, long stamp, Charset encoding, Opener opener) {
+			this.location = location;
+			this.stamp = stamp;
+			this.encoding = encoding;
+			this.opener = opener;
+		}
+
+		private InputStream open() throws IOException {
+			return opener.open();
+		}
+	}
+
+	private static byte[] readAll(InputStream is) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buf = new byte[8192];
+		int len;
+		while ((len = is.read(buf))>-1) {
+			out.write(buf, 0, len);
+		}
+		return out.toByteArray();
+	}
 	
-	public void addEntry(String value, String replacement, CharClass group) {
+	private void addEntry(TableFragment fragment, String value, String replacement, CharClass group) {
 		int key = StringProcessor.unescape(value).codePointAt(0);
-		cr.put(key, nc.parseBrailleNotation(replacement), group);
+		String braille = nc.parseBrailleNotation(replacement);
+		fragment.add(b->b.put(key, braille, group));
+	}
+	
+	private void addInclude(TableFragment fragment, String path, Charset encoding) {
+		try {
+			fragment.add(path, encoding, parseInclude(path, encoding));
+		} catch (IOException e) {
+			logger.warning("Include not found: " + path);
+			fragment.addMissing(path, encoding);
+		}
+	}
+
+	private void addRule(TableFragment fragment, Opcode opcode, String chars, String replacement) {
+		String value = StringProcessor.unescape(chars);
+		String braille = nc.parseBrailleNotation(replacement);
+		fragment.add(b->b.rule(opcode, value, braille));
 	}
 	
-	public void addUplow(String op, String value) {
+	private void addUplow(TableFragment fragment, String op, String value) {
 		op = StringProcessor.unescape(op);
 		if (op.length()!=2) {
-			Logger.getLogger(this.getClass().getCanonicalName()).info("Uplow op incorrect: " + op);
+			logger.info("Uplow op incorrect: " + op);
+			fragment.markIncomplete();
 		} else {
 			String[] r = StringProcessor.unescape(value).split(",");
 			if (r.length>2 || r.length<1) {
-				Logger.getLogger(this.getClass().getCanonicalName()).info("Uplow value incorrect: " + value);
+				logger.info("Uplow value incorrect: " + value);
+				fragment.markIncomplete();
 			} else {
-				cr.put((int)op.charAt(0), nc.parseBrailleNotation(r[0]), CharClass.UPPERCASE);
-				cr.put((int)op.charAt(1), nc.parseBrailleNotation(r[(r.length>1?1:0)]), CharClass.LOWERCASE);
+				int upper = op.charAt(0);
+				int lower = op.charAt(1);
+				String upperBraille = nc.parseBrailleNotation(r[0]);
+				String lowerBraille = nc.parseBrailleNotation(r[(r.length>1?1:0)]);
+				fragment.add(b->b.put(upper, upperBraille, CharClass.UPPERCASE));
+				fragment.add(b->b.put(lower, lowerBraille, CharClass.LOWERCASE));
 			}
 		}
 	}
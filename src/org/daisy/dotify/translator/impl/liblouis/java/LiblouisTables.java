@@ -0,0 +1,92 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>Provides pure-Java filters for the tables bundled with liblouis-java. The
+ * tables are read as resources, so no native library is loaded and no files
+ * are extracted.</p>
+ *
+ * <p>A filter is only provided for tables where every line is recognized by
+ * the pure-Java engine, see {@link LiblouisFileReader#isComplete()}. This doesn't
+ * guarantee that the filter translates like liblouis. Each table list is parsed
+ * once, the result is kept for the lifetime of the class.</p>
+ *
+ * <p>If the system property {@value CompiledTableCache#DIRECTORY_PROPERTY} is set,
+ * parsed tables are also compiled to that directory and read from there the
+ * next time, for as long as the files they were built from are unchanged.</p>
+ *
+ * @author Joel Håkansson
+ */
+public final class LiblouisTables {
+	private static final Logger LOGGER = Logger.getLogger(LiblouisTables.class.getCanonicalName());
+	private static final String TABLES = "/org/liblouis/resource-files/tables/";
+	private static final Map<String, Optional<LiblouisBrailleFilter>> FILTERS = new ConcurrentHashMap<>();
+	private static final CompiledTableCache COMPILED = CompiledTableCache.newInstance();
+
+	private LiblouisTables() {
+		//hide constructor
+	}
+
+	/**
+	 * Gets a filter for a table list.
+	 * @param tableList the table list, in the liblouis format, that is, table paths separated by comma
+	 * @return returns the filter, or an empty optional if the tables cannot be read or
+	 * 		contain something that the pure-Java engine doesn't recognize
+	 */
+	public static Optional<LiblouisBrailleFilter> getFilter(String tableList) {
+		return FILTERS.computeIfAbsent(tableList, t->load(t, IncludeCache.getDefault(), COMPILED));
+	}
+
+	/**
+	 * Loads a filter for a table list, without using any previously parsed
+	 * or compiled tables or includes. The result isn't kept.
+	 * @param tableList the table list, in the liblouis format, that is, table paths separated by comma
+	 * @return returns a new filter, or an empty optional if the tables cannot be read or
+	 * 		contain something that the pure-Java engine doesn't recognize
+	 */
+	public static Optional<LiblouisBrailleFilter> load(String tableList) {
+		return load(tableList, new IncludeCache(), null);
+	}
+
+	/**
+	 * Loads a filter for a table list.
+	 * @param tableList the table list
+	 * @param includes the include cache
+	 * @param compiled the compiled tables, or null
+	 * @return returns the filter, or an empty optional
+	 */
+	static Optional<LiblouisBrailleFilter> load(String tableList, IncludeCache includes, CompiledTableCache compiled) {
+		if (compiled!=null) {
+			Optional<LiblouisBrailleFilter> ret = compiled.get(tableList);
+			if (ret.isPresent()) {
+				return ret;
+			}
+		}
+		LiblouisFileReader reader = new LiblouisFileReader(new ClassLoaderResourceResolver(TABLES, StandardCharsets.UTF_8), includes);
+		try {
+			for (String t : tableList.split(",")) {
+				reader.parse(t);
+			}
+		} catch (IOException e) {
+			LOGGER.log(Level.FINE, "Failed to read " + tableList, e);
+			return Optional.empty();
+		}
+		if (!reader.isComplete()) {
+			LOGGER.fine("Not fully recognized: " + tableList);
+			return Optional.empty();
+		}
+		LiblouisBrailleFilter filter = reader.getFilter();
+		if (compiled!=null) {
+			reader.getSources().ifPresent(s->compiled.put(tableList, filter, s));
+		}
+		return Optional.of(filter);
+	}
+
+}
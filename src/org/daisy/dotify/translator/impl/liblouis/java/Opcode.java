@@ -0,0 +1,78 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+/**
+ * Provides the liblouis opcodes for multi-character rules. The opcodes differ
+ * in where in a word the characters may be matched.
+ * @author Joel Håkansson
+ */
+enum Opcode {
+	/**
+	 * Matches anywhere.
+	 */
+	ALWAYS("always"),
+	/**
+	 * Matches a whole word.
+	 */
+	WORD("word"),
+	/**
+	 * Matches at the beginning of a word, but not a whole word.
+	 */
+	BEGWORD("begword"),
+	/**
+	 * Matches at the end of a word, but not a whole word.
+	 */
+	ENDWORD("endword"),
+	/**
+	 * Matches in the middle of a word.
+	 */
+	MIDWORD("midword");
+	
+	private final String keyword;
+	private Opcode(String keyword) {
+		this.keyword = keyword;
+	}
+	
+	/**
+	 * Gets the keyword used for this opcode in liblouis tables.
+	 * @return returns the keyword
+	 */
+	public String keyword() {
+		return keyword;
+	}
+	
+	/**
+	 * Returns true if a rule with this opcode applies, given the characters
+	 * around the match.
+	 * @param letterBefore true if the match is preceded by a letter
+	 * @param letterAfter true if the match is followed by a letter
+	 * @return returns true if the rule applies, false otherwise
+	 */
+	public boolean matches(boolean letterBefore, boolean letterAfter) {
+		switch (this) {
+			case WORD:
+				return !letterBefore && !letterAfter;
+			case BEGWORD:
+				return !letterBefore && letterAfter;
+			case ENDWORD:
+				return letterBefore && !letterAfter;
+			case MIDWORD:
+				return letterBefore && letterAfter;
+			case ALWAYS: default:
+				return true;
+		}
+	}
+	
+	/**
+	 * Gets the opcode with the specified keyword.
+	 * @param keyword the keyword
+	 * @return returns the opcode, or null if no opcode has this keyword
+	 */
+	public static Opcode forKeyword(String keyword) {
+		for (Opcode o : values()) {
+			if (o.keyword.equals(keyword)) {
+				return o;
+			}
+		}
+		return null;
+	}
+}
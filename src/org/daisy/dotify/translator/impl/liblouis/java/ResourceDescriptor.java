@@ -1,20 +1,45 @@
 package org.daisy.dotify.translator.impl.liblouis.java;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
 import java.nio.charset.Charset;
 
 class ResourceDescriptor {
 	private final InputStream inputStream;
+	private final URL url;
 	private final Charset encoding;
 
 	public ResourceDescriptor(InputStream inputStream, Charset encoding) {
 		super();
 		this.inputStream = inputStream;
+		this.url = null;
 		this.encoding = encoding;
 	}
 
-	public InputStream getInputStream() {
-		return inputStream;
+	/**
+	 * Creates a new resource descriptor for a URL. The URL is opened
+	 * when the input stream is requested.
+	 * @param url the URL
+	 * @param encoding the encoding
+	 */
+	public ResourceDescriptor(URL url, Charset encoding) {
+		super();
+		this.inputStream = null;
+		this.url = url;
+		this.encoding = encoding;
+	}
+
+	public InputStream getInputStream() throws IOException {
+		return url!=null?url.openStream():inputStream;
+	}
+
+	/**
+	 * Gets the URL of the resource.
+	 * @return the URL, or null if the resource is only available as a stream
+	 */
+	public URL getURL() {
+		return url;
 	}
 
 	public Charset getEncoding() {
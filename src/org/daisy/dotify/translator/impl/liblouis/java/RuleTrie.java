@@ -0,0 +1,201 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>Provides a compiled trie of multi-character rules. The characters of the
+ * rules are matched case insensitively, one character at a time from the root,
+ * so that all rules that match at a position in the input are found in a single
+ * walk that is no longer than the longest rule.</p>
+ *
+ * <p>The trie is stored in flat arrays. The children of a node are sorted by
+ * character and found with a binary search. Rules are numbered so that the rules
+ * of a node are consecutive, in the order they were added. Navigating the trie
+ * doesn't allocate.</p>
+ *
+ * @author Joel Håkansson
+ */
+final class RuleTrie {
+	/**
+	 * The root node.
+	 */
+	static final int ROOT = 0;
+	private final int[] childStart;
+	private final char[] childChar;
+	private final int[] childNode;
+	private final int[] ruleStart;
+	private final Opcode[] ruleOpcode;
+	private final String[] ruleChars;
+	private final String[] ruleReplacement;
+
+	/**
+	 * Provides a builder for rule tries.
+	 */
+	static class Builder {
+		private final Node root;
+		private int nodes;
+		private int rules;
+
+		Builder() {
+			this.root = new Node();
+			this.nodes = 1;
+			this.rules = 0;
+		}
+
+		/**
+		 * Adds a rule.
+		 * @param opcode the opcode
+		 * @param chars the characters to match
+		 * @param replacement the replacement string (in unicode braille patterns)
+		 * @return returns this builder
+		 * @throws IllegalArgumentException if the characters are empty
+		 */
+		Builder add(Opcode opcode, String chars, String replacement) {
+			if (chars.isEmpty()) {
+				throw new IllegalArgumentException("No characters to match.");
+			}
+			Node n = root;
+			for (int i = 0; i < chars.length(); i++) {
+				Character c = Character.toLowerCase(chars.charAt(i));
+				Node child = n.children.get(c);
+				if (child==null) {
+					child = new Node();
+					n.children.put(c, child);
+					nodes++;
+				}
+				n = child;
+			}
+			n.opcodes.add(opcode);
+			n.chars.add(chars);
+			n.replacements.add(replacement);
+			rules++;
+			return this;
+		}
+
+		/**
+		 * Creates a new rule trie.
+		 * @return returns a new rule trie
+		 */
+		RuleTrie build() {
+			return new RuleTrie(this);
+		}
+	}
+
+	private static class Node {
+		private final Map<Character, Node> children = new TreeMap<>();
+		private final List<Opcode> opcodes = new ArrayList<>();
+		private final List<String> chars = new ArrayList<>();
+		private final List<String> replacements = new ArrayList<>();
+	}
+
+	private RuleTrie(Builder b) {
+		this.childStart = new int[b.nodes + 1];
+		this.childChar = new char[b.nodes - 1];
+		this.childNode = new int[b.nodes - 1];
+		this.ruleStart = new int[b.nodes + 1];
+		this.ruleOpcode = new Opcode[b.rules];
+		this.ruleChars = new String[b.rules];
+		this.ruleReplacement = new String[b.rules];
+		// Number the nodes breadth first, so that the children of a node are consecutive
+		Deque<Node> queue = new ArrayDeque<>();
+		queue.add(b.root);
+		int node = 0;
+		int next = 1;
+		int rule = 0;
+		while (!queue.isEmpty()) {
+			Node n = queue.remove();
+			childStart[node] = next - 1;
+			ruleStart[node] = rule;
+			for (Map.Entry<Character, Node> e : n.children.entrySet()) {
+				childChar[next - 1] = e.getKey();
+				childNode[next - 1] = next;
+				queue.add(e.getValue());
+				next++;
+			}
+			for (int i = 0; i < n.opcodes.size(); i++) {
+				ruleOpcode[rule] = n.opcodes.get(i);
+				ruleChars[rule] = n.chars.get(i);
+				ruleReplacement[rule] = n.replacements.get(i);
+				rule++;
+			}
+			node++;
+		}
+		childStart[node] = next - 1;
+		ruleStart[node] = rule;
+	}
+
+	/**
+	 * Returns true if this trie doesn't contain any rules.
+	 * @return returns true if the trie is empty, false otherwise
+	 */
+	boolean isEmpty() {
+		return ruleOpcode.length==0;
+	}
+
+	/**
+	 * Gets the child of a node.
+	 * @param node the node
+	 * @param c the character, in lower case
+	 * @return returns the child node, or -1 if there is no child for the character
+	 */
+	int child(int node, char c) {
+		int low = childStart[node];
+		int high = childStart[node + 1] - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			char m = childChar[mid];
+			if (m < c) {
+				low = mid + 1;
+			} else if (m > c) {
+				high = mid - 1;
+			} else {
+				return childNode[mid];
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the number of the first rule of a node.
+	 * @param node the node
+	 * @return returns the first rule
+	 */
+	int firstRule(int node) {
+		return ruleStart[node];
+	}
+
+	/**
+	 * Gets the number after the last rule of a node.
+	 * @param node the node
+	 * @return returns the end of the rules for the node
+	 */
+	int endRule(int node) {
+		return ruleStart[node + 1];
+	}
+
+	/**
+	 * Gets the number of rules.
+	 * @return returns the number of rules
+	 */
+	int size() {
+		return ruleOpcode.length;
+	}
+
+	Opcode getOpcode(int rule) {
+		return ruleOpcode[rule];
+	}
+
+	String getChars(int rule) {
+		return ruleChars[rule];
+	}
+
+	String getReplacement(int rule) {
+		return ruleReplacement[rule];
+	}
+
+}
@@ -1,61 +1,101 @@
 package org.daisy.dotify.translator.impl.liblouis.java;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 class StringProcessor {
-	private static final Pattern b = Pattern.compile("\\\\{1}([\\\\fnrstve]{1}|x{1}[0-9A-Fa-f]{4})");
 	private StringProcessor() {
 		//hide constructor
 	}
-	static String unescape(String input) {
-		Matcher m = b.matcher(input);
-		StringBuilder ret = new StringBuilder();
 
-		int index = 0;
-		while (m.find()) {
-			if (m.start()>index) {
-				// false
-				ret.append(input.substring(index, m.start()));
+	/**
+	 * Replaces the liblouis escape sequences in a string, by scanning the characters
+	 * of the string once.
+	 * @param input the string
+	 * @return returns the unescaped string, or the input if it doesn't contain any escape sequences
+	 */
+	static String unescape(String input) {
+		int index = input.indexOf('\\');
+		if (index<0) {
+			return input;
+		}
+		int len = input.length();
+		StringBuilder ret = new StringBuilder(len);
+		ret.append(input, 0, index);
+		while (index<len) {
+			char c = input.charAt(index);
+			if (c=='\\' && index+1<len) {
+				int n = unescape(input, index+1, ret);
+				if (n>0) {
+					index += 1 + n;
+					continue;
+				}
 			}
-			// true
-			
-			String t = input.substring(m.start(), m.end());
-			if (t.startsWith("\\x")) {
-				ret.append((char)Integer.parseInt(t.substring(2), 16));
-			} else if ("\\\\".equals(t)) {
+			ret.append(c);
+			index++;
+		}
+		return ret.toString();
+	}
+
+	/**
+	 * Appends the character of an escape sequence.
+	 * @param input the input
+	 * @param i the index after the backslash
+	 * @param ret the output
+	 * @return returns the number of characters after the backslash, or zero if this isn't an escape sequence
+	 */
+	private static int unescape(String input, int i, StringBuilder ret) {
+		switch (input.charAt(i)) {
+			case '\\':
 				ret.append('\\');
-			} else if ("\\f".equals(t)) {
+				return 1;
+			case 'f':
 				ret.append('\f');
-			} else if ("\\n".equals(t)) {
-					ret.append('\n');
-			} else if ("\\r".equals(t)) {
+				return 1;
+			case 'n':
+				ret.append('\n');
+				return 1;
+			case 'r':
 				ret.append('\r');
-			} else if ("\\s".equals(t)) {
+				return 1;
+			case 's':
 				ret.append(' ');
-			} else if ("\\t".equals(t)) {
+				return 1;
+			case 't':
 				ret.append('\t');
-			} else if ("\\v".equals(t)) {
+				return 1;
+			case 'v':
 				ret.append("\0x0B");
-			} else if ("\\e".equals(t)) {
+				return 1;
+			case 'e':
 				ret.append("\0x1B");
-			}
-			
-			else {
-				ret.append(t);
-			}
-			index = m.end();
-		}
-		if (index==0) {
-			return input;
-		}
-		// add remaining segment
-		if (index<input.length()) {
-			// false
-			ret.append(input.substring(index, input.length()));
+				return 1;
+			case 'x':
+				if (i+4<input.length()) {
+					int value = 0;
+					for (int j=i+1; j<=i+4; j++) {
+						int d = hex(input.charAt(j));
+						if (d<0) {
+							return 0;
+						}
+						value = value*16 + d;
+					}
+					ret.append((char)value);
+					return 5;
+				}
+				return 0;
+			default:
+				return 0;
 		}
+	}
 
-		return ret.toString();
+	private static int hex(char c) {
+		if (c>='0' && c<='9') {
+			return c - '0';
+		} else if (c>='a' && c<='f') {
+			return c - 'a' + 10;
+		} else if (c>='A' && c<='F') {
+			return c - 'A' + 10;
+		} else {
+			return -1;
+		}
 	}
 
 }
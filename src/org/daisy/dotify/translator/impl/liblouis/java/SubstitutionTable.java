@@ -0,0 +1,125 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Provides an immutable map from code points to substitutions. Code points in the
+ * basic multilingual plane are looked up in an array indexed by code point, which is
+ * only as long as the highest such code point in the table. Supplementary code points
+ * are looked up in an open addressing hash table with linear probing. Lookups
+ * don't allocate.
+ *
+ * @author Joel Håkansson
+ */
+final class SubstitutionTable {
+	private static final int BMP_SIZE = 0x10000;
+	// Zero can be used to mark empty slots, since all keys are supplementary code points
+	private static final int EMPTY = 0;
+	private final Substitution[] bmp;
+	private final int[] keys;
+	private final Substitution[] values;
+	private final int mask;
+
+	/**
+	 * Accepts the entries of a substitution table.
+	 */
+	@FunctionalInterface
+	interface EntryConsumer {
+		/**
+		 * Accepts an entry.
+		 * @param codePoint the code point
+		 * @param s the substitution
+		 * @throws IOException if an I/O error occurs
+		 */
+		void accept(int codePoint, Substitution s) throws IOException;
+	}
+
+	/**
+	 * Creates a new substitution table.
+	 * @param map the substitutions, by code point
+	 * @throws IllegalArgumentException if a key isn't a valid code point
+	 */
+	SubstitutionTable(Map<Integer, Substitution> map) {
+		int maxBmp = -1;
+		int supplementary = 0;
+		for (int cp : map.keySet()) {
+			if (!Character.isValidCodePoint(cp)) {
+				throw new IllegalArgumentException("Not a code point: " + cp);
+			}
+			if (cp<BMP_SIZE) {
+				maxBmp = Math.max(maxBmp, cp);
+			} else {
+				supplementary++;
+			}
+		}
+		int capacity = 1;
+		while (capacity < supplementary * 2) {
+			capacity <<= 1;
+		}
+		this.bmp = new Substitution[maxBmp + 1];
+		this.keys = new int[capacity];
+		this.values = new Substitution[capacity];
+		this.mask = capacity - 1;
+		for (Map.Entry<Integer, Substitution> e : map.entrySet()) {
+			int cp = e.getKey();
+			if (cp<BMP_SIZE) {
+				bmp[cp] = e.getValue();
+			} else {
+				int i = hash(cp) & mask;
+				while (keys[i]!=EMPTY) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = cp;
+				values[i] = e.getValue();
+			}
+		}
+	}
+
+	private static int hash(int cp) {
+		int h = cp * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Gets the substitution for a code point.
+	 * @param codePoint the code point
+	 * @return the substitution, or null if there is none
+	 */
+	Substitution get(int codePoint) {
+		if (codePoint < bmp.length) {
+			return bmp[codePoint];
+		} else if (codePoint < BMP_SIZE) {
+			return null;
+		}
+		int i = hash(codePoint) & mask;
+		int k;
+		while ((k = keys[i])!=EMPTY) {
+			if (k==codePoint) {
+				return values[i];
+			}
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Passes the entries of this table to a consumer, in code point order for
+	 * the basic multilingual plane, followed by the supplementary code points.
+	 * @param consumer the consumer
+	 * @throws IOException if the consumer throws an I/O exception
+	 */
+	void forEach(EntryConsumer consumer) throws IOException {
+		for (int cp = 0; cp < bmp.length; cp++) {
+			if (bmp[cp]!=null) {
+				consumer.accept(cp, bmp[cp]);
+			}
+		}
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i]!=EMPTY) {
+				consumer.accept(keys[i], values[i]);
+			}
+		}
+	}
+
+}
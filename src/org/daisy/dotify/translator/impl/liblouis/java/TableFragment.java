@@ -0,0 +1,134 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Provides the parsed rules of a liblouis table file, in file order. Included
+ * files are added as fragments of their own, so that a fragment can be parsed
+ * once and then applied to any number of filter builders.
+ * A fragment is complete if every line in it, and in the files it
+ * includes, was understood. The includes are also kept as they were resolved
+ * when the fragment was parsed, so that a cached fragment can be checked
+ * against the current state of the files it includes.
+ *
+ * @author Joel Håkansson
+ */
+final class TableFragment {
+	private final List<Consumer<LiblouisBrailleFilter.Builder>> rules;
+	private final List<Include> includes;
+	private boolean complete;
+
+	/**
+	 * Provides an include directive of a fragment, and the fragment it resolved to.
+	 */
+	static final class Include {
+		private final String path;
+		private final Charset encoding;
+		private final TableFragment fragment;
+
+		private Include(String path, Charset encoding, TableFragment fragment) {
+			this.path = path;
+			this.encoding = encoding;
+			this.fragment = fragment;
+		}
+
+		/**
+		 * Gets the path of the include directive.
+		 * @return the path
+		 */
+		String getPath() {
+			return path;
+		}
+
+		/**
+		 * Gets the encoding of the including file.
+		 * @return the encoding
+		 */
+		Charset getEncoding() {
+			return encoding;
+		}
+
+		/**
+		 * Gets the included fragment.
+		 * @return the fragment, or null if the include couldn't be found
+		 */
+		TableFragment getFragment() {
+			return fragment;
+		}
+	}
+
+	TableFragment() {
+		this.rules = new ArrayList<>();
+		this.includes = new ArrayList<>();
+		this.complete = true;
+	}
+
+	/**
+	 * Adds a rule to this fragment.
+	 * @param rule the rule
+	 */
+	void add(Consumer<LiblouisBrailleFilter.Builder> rule) {
+		rules.add(rule);
+	}
+
+	/**
+	 * Adds the rules of an included fragment to this fragment.
+	 * @param path the path of the include directive
+	 * @param encoding the encoding of the including file
+	 * @param include the included fragment
+	 */
+	void add(String path, Charset encoding, TableFragment include) {
+		rules.add(include::applyTo);
+		includes.add(new Include(path, encoding, include));
+		complete &= include.complete;
+	}
+
+	/**
+	 * Adds an include that couldn't be found. This marks the fragment as incomplete.
+	 * @param path the path of the include directive
+	 * @param encoding the encoding of the including file
+	 */
+	void addMissing(String path, Charset encoding) {
+		includes.add(new Include(path, encoding, null));
+		complete = false;
+	}
+
+	/**
+	 * Gets the includes of this fragment, in file order.
+	 * @return the includes
+	 */
+	List<Include> getIncludes() {
+		return Collections.unmodifiableList(includes);
+	}
+
+	/**
+	 * Marks this fragment as incomplete, because a line in it wasn't understood.
+	 */
+	void markIncomplete() {
+		complete = false;
+	}
+
+	/**
+	 * Returns true if every line in this fragment, and in the included
+	 * fragments, was understood.
+	 * @return returns true if this fragment is complete, false otherwise
+	 */
+	boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Applies the rules of this fragment to a builder.
+	 * @param builder the builder
+	 */
+	void applyTo(LiblouisBrailleFilter.Builder builder) {
+		for (Consumer<LiblouisBrailleFilter.Builder> r : rules) {
+			r.accept(builder);
+		}
+	}
+
+}
@@ -0,0 +1,125 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * <p>Provides a streaming tokenizer for liblouis table files. Lines are read one at
+ * a time and split into fields at runs of whitespace, by scanning the characters of
+ * the line. Empty lines and comment lines are skipped.</p>
+ *
+ * <p>The fields of the current line are kept as offsets into the line, and are
+ * only extracted when asked for.</p>
+ *
+ * @author Joel Håkansson
+ */
+final class TableTokenizer {
+	private final BufferedReader reader;
+	private String line;
+	// Field boundaries, as start and end pairs
+	private int[] bounds;
+	private int fields;
+	private boolean first;
+
+	/**
+	 * Creates a new tokenizer. The stream isn't closed by the tokenizer.
+	 * @param is the input stream
+	 * @param encoding the encoding of the stream
+	 */
+	TableTokenizer(InputStream is, Charset encoding) {
+		this.reader = new BufferedReader(new InputStreamReader(is, encoding));
+		this.line = null;
+		this.bounds = new int[16];
+		this.fields = 0;
+		this.first = true;
+	}
+
+	/**
+	 * Advances to the next line that contains fields.
+	 * @return returns true if there is such a line, false if the end of the stream is reached
+	 * @throws IOException if the stream cannot be read
+	 */
+	boolean next() throws IOException {
+		String l;
+		while ((l = reader.readLine())!=null) {
+			if (first) {
+				first = false;
+				// Skip a byte order mark
+				if (!l.isEmpty() && l.charAt(0)=='\uFEFF') {
+					l = l.substring(1);
+				}
+			}
+			if (split(l)) {
+				line = l;
+				return true;
+			}
+		}
+		line = null;
+		fields = 0;
+		return false;
+	}
+
+	private boolean split(String l) {
+		fields = 0;
+		int len = l.length();
+		int i = 0;
+		while (true) {
+			while (i<len && isSeparator(l.charAt(i))) {
+				i++;
+			}
+			if (i==len || (fields==0 && l.charAt(i)=='#')) {
+				break;
+			}
+			int start = i;
+			while (i<len && !isSeparator(l.charAt(i))) {
+				i++;
+			}
+			if (fields*2+2>bounds.length) {
+				bounds = Arrays.copyOf(bounds, bounds.length*2);
+			}
+			bounds[fields*2] = start;
+			bounds[fields*2+1] = i;
+			fields++;
+		}
+		return fields>0;
+	}
+
+	private static boolean isSeparator(char c) {
+		// The same characters as \s in a regular expression, except line breaks
+		return c==' ' || c=='\t' || c=='\f' || c=='\r' || c=='\u000B';
+	}
+
+	/**
+	 * Gets the number of fields on the current line.
+	 * @return returns the number of fields
+	 */
+	int fieldCount() {
+		return fields;
+	}
+
+	/**
+	 * Gets a field on the current line.
+	 * @param i the index of the field
+	 * @return returns the field
+	 * @throws IndexOutOfBoundsException if there is no such field
+	 */
+	String field(int i) {
+		if (i<0 || i>=fields) {
+			throw new IndexOutOfBoundsException("Field " + i + " of " + fields);
+		}
+		return line.substring(bounds[i*2], bounds[i*2+1]);
+	}
+
+	/**
+	 * Gets the current line.
+	 * @return returns the line, or null if there is no current line
+	 */
+	String line() {
+		return line;
+	}
+
+}
@@ -0,0 +1,359 @@
+package org.daisy.dotify.translator.impl.sv_SE;
+
+import java.util.Locale;
+
+import org.daisy.dotify.common.text.StringFilter;
+
+/**
+ * <p>Provides a single pass implementation of the Swedish braille filter. Zero
+ * width spaces are removed, number signs and capitalization markers are
+ * inserted, characters are replaced using the character tables, whitespace is
+ * collapsed and, in strict mode, break point characters are processed, all while
+ * writing to a single output buffer. The result is the same as that of the
+ * staged filter that it is created with.</p>
+ *
+ * <p>The replacement of a character is looked up by passing the character through
+ * the character table filters, the first time the character is seen. The result is
+ * kept in a table indexed by character. This assumes that the table filters replace
+ * one character at a time, so the following are passed to the staged filter
+ * instead:</p>
+ * <ul>
+ * <li>input containing characters from U+3000 and up, combining marks,
+ * conjoining jamo or characters that don't have a single character lower case</li>
+ * <li>input containing a sequence of upper case letters with whitespace, dashes or
+ * slashes in between, e.g. "M/S", since such sequences can be marked as a group</li>
+ * </ul>
+ *
+ * @author Joel Håkansson
+ */
+class FusedSwedishBrailleFilter implements StringFilter {
+	private static final char ZERO_WIDTH_SPACE = '\u200b';
+	private static final char SOFT_HYPHEN = '\u00ad';
+	private static final char NO_BREAK_SPACE = '\u00a0';
+	private static final char NUMBER_SIGN = '\u283c';
+	private static final char CAPITAL_SIGN = '\u2820';
+	private static final char RESET_SIGN = '\u2831';
+	private static final char BRAILLE_HYPHEN = '\u2824';
+	private static final char BRAILLE_SPACE = '\u2800';
+	private static final char GREEK_CAPITAL_SIGMA = '\u03a3';
+	private static final int LIMIT = 0x3000;
+	// Marks characters that this filter doesn't translate, compared by identity
+	private static final String UNSUPPORTED = new String();
+	private final Locale locale;
+	private final StringFilter pas1;
+	private final StringFilter pas2;
+	private final StringFilter staged;
+	private final boolean strict;
+	// Computed on demand. Threads may compute the same replacement concurrently,
+	// which is harmless since the replacements are immutable.
+	private final String[] replacements;
+
+	/**
+	 * Creates a new fused filter.
+	 * @param locale the locale
+	 * @param pas1 the first character table filter
+	 * @param pas2 the second character table filter
+	 * @param strict true if break point characters should be processed, see {@link SwedishBrailleFilter}
+	 * @param staged the staged filter, used for input that this filter doesn't translate
+	 */
+	FusedSwedishBrailleFilter(Locale locale, StringFilter pas1, StringFilter pas2, boolean strict, StringFilter staged) {
+		this.locale = locale;
+		this.pas1 = pas1;
+		this.pas2 = pas2;
+		this.strict = strict;
+		this.staged = staged;
+		this.replacements = new String[LIMIT];
+	}
+
+	@Override
+	public String filter(String str) {
+		char[] text = new char[str.length()];
+		int len = 0;
+		for (int i = 0; i<str.length(); i++) {
+			char c = str.charAt(i);
+			if (c==ZERO_WIDTH_SPACE) {
+				continue;
+			}
+			if (replacement(c)==UNSUPPORTED) {
+				return staged.filter(str);
+			}
+			text[len++] = c;
+		}
+		if (hasUppercaseSequence(text, len)) {
+			return staged.filter(str);
+		}
+		return new Pass(text, len).translate();
+	}
+
+	private String replacement(char c) {
+		if (c>=LIMIT) {
+			return UNSUPPORTED;
+		}
+		String r = replacements[c];
+		if (r==null) {
+			r = isSupported(c)?pas2.filter(pas1.filter(String.valueOf(c))):UNSUPPORTED;
+			replacements[c] = r;
+		}
+		return r;
+	}
+
+	private boolean isSupported(char c) {
+		switch (Character.getType(c)) {
+			case Character.SURROGATE:
+			case Character.NON_SPACING_MARK:
+			case Character.ENCLOSING_MARK:
+			case Character.COMBINING_SPACING_MARK:
+				return false;
+			default:
+		}
+		if (Character.UnicodeBlock.of(c)==Character.UnicodeBlock.HANGUL_JAMO) {
+			return false;
+		}
+		// Capital sigma is lower cased differently at the end of a word
+		return c!=GREEK_CAPITAL_SIGMA && String.valueOf(c).toLowerCase(locale).length()==1;
+	}
+
+	/**
+	 * Returns true if the text contains an upper case letter, optionally followed by a soft hyphen,
+	 * followed by whitespace, dashes or slashes and another upper case letter. This is required
+	 * for a match of the group pattern in {@link CapitalizationMarkers}.
+	 */
+	private static boolean hasUppercaseSequence(char[] text, int len) {
+		for (int i = 0; i<len; i++) {
+			if (isUppercase(text[i])) {
+				int j = i + 1;
+				if (j<len && text[j]==SOFT_HYPHEN) {
+					j++;
+				}
+				int k = j;
+				while (k<len && isSeparator(text[k])) {
+					k++;
+				}
+				if (k>j && k<len && isUppercase(text[k])) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean isUppercase(char c) {
+		return Character.getType(c)==Character.UPPERCASE_LETTER;
+	}
+
+	private static boolean isDigit(char c) {
+		return c>='0' && c<='9';
+	}
+
+	// Matches \s
+	private static boolean isSpace(char c) {
+		return c==' ' || c=='\t' || c=='\n' || c=='\u000b' || c=='\f' || c=='\r';
+	}
+
+	private static boolean isSeparator(char c) {
+		return isSpace(c) || c=='-' || c=='/';
+	}
+
+	// Matches the word pattern in CapitalizationMarkers
+	private static boolean isWordCharacter(char c) {
+		return Character.isLetter(c) || isDigit(c) || c=='-' || c==SOFT_HYPHEN;
+	}
+
+	/**
+	 * Returns true if the digit filter inserts a character between the specified characters.
+	 */
+	private static boolean isNumberBoundary(char prev, char c) {
+		return isDigit(c)?!isDigit(prev):(c>='a' && c<='j' && isDigit(prev));
+	}
+
+	private class Pass {
+		private final char[] text;
+		private final int len;
+		private final StringBuilder out;
+		// Digit filter state
+		private boolean inNumber = false;
+		private boolean lastWasDigit = false;
+		// Whitespace state
+		private boolean lastWasSpace = false;
+		// Strict mode state, a hyphen is written when the following character is known
+		private boolean hyphen = false;
+		private int hyphenIndex = 0;
+		private char beforeHyphen = 0;
+		private char previous = 0;
+		private int count = 0;
+
+		private Pass(char[] text, int len) {
+			this.text = text;
+			this.len = len;
+			this.out = new StringBuilder(len + len/4);
+		}
+
+		private String translate() {
+			int i = 0;
+			while (i<len) {
+				char c = text[i];
+				digit(c);
+				if (isWordCharacter(c)) {
+					int end = wordEnd(i);
+					for (int j = i + 1; j<end; j++) {
+						digit(text[j]);
+					}
+					word(i, end);
+					i = end;
+				} else {
+					emit(c);
+					i++;
+				}
+			}
+			if (hyphen) {
+				out.append(BRAILLE_HYPHEN);
+			}
+			return out.toString();
+		}
+
+		/**
+		 * Updates the digit filter state and inserts a number sign or reset sign
+		 * before the character, if needed. See {@link DigitFilter}.
+		 */
+		private void digit(char c) {
+			if (c>='a' && c<='j') {
+				if (lastWasDigit) {
+					emit(RESET_SIGN);
+				}
+				inNumber = false;
+				lastWasDigit = false;
+			} else if (isDigit(c)) {
+				if (!inNumber) {
+					emit(NUMBER_SIGN);
+				}
+				inNumber = true;
+				lastWasDigit = true;
+			} else if (c=='.' || c==',') {
+				lastWasDigit = false;
+			} else {
+				inNumber = false;
+				lastWasDigit = false;
+			}
+		}
+
+		/**
+		 * Finds the end of the word starting at the specified index. A word ends
+		 * where the digit filter inserts a character.
+		 */
+		private int wordEnd(int start) {
+			int i = start + 1;
+			while (i<len && isWordCharacter(text[i]) && !isNumberBoundary(text[i-1], text[i])) {
+				i++;
+			}
+			return i;
+		}
+
+		/**
+		 * Finds the end of a sequence of upper case letters, each optionally followed by a soft hyphen.
+		 */
+		private int uppercaseEnd(int start, int end) {
+			int i = start;
+			while (i<end && isUppercase(text[i])) {
+				i++;
+				if (i<end && text[i]==SOFT_HYPHEN) {
+					i++;
+				}
+			}
+			return i;
+		}
+
+		private int uppercaseCount(int start, int end) {
+			int ret = 0;
+			for (int i = start; i<end; i++) {
+				if (isUppercase(text[i])) {
+					ret++;
+				}
+			}
+			return ret;
+		}
+
+		/**
+		 * Writes a word with capitalization markers, see {@link CapitalizationMarkers}.
+		 */
+		private void word(int start, int end) {
+			if (uppercaseEnd(start, end)==end && uppercaseCount(start, end)>1) {
+				// At least two upper case letters and nothing else
+				emit(CAPITAL_SIGN);
+				emit(CAPITAL_SIGN);
+				emit(start, end);
+				return;
+			}
+			int i = start;
+			while (i<end) {
+				if ((i==start || text[i-1]=='-') && isUppercase(text[i])) {
+					int seqEnd = uppercaseEnd(i, end);
+					if (seqEnd-i>2) {
+						emit(CAPITAL_SIGN);
+						emit(CAPITAL_SIGN);
+						emit(i, seqEnd);
+						emit(RESET_SIGN);
+						i = seqEnd;
+						continue;
+					}
+				}
+				if (isUppercase(text[i])) {
+					emit(CAPITAL_SIGN);
+				}
+				emit(text[i]);
+				i++;
+			}
+		}
+
+		private void emit(int start, int end) {
+			for (int i = start; i<end; i++) {
+				emit(text[i]);
+			}
+		}
+
+		private void emit(char c) {
+			String r = replacement(c);
+			for (int i = 0; i<r.length(); i++) {
+				append(r.charAt(i));
+			}
+		}
+
+		/**
+		 * Appends a translated character, collapsing whitespace and processing
+		 * break point characters in strict mode.
+		 */
+		private void append(char c) {
+			if (isSpace(c)) {
+				if (lastWasSpace) {
+					return;
+				}
+				lastWasSpace = true;
+				c = ' ';
+			} else {
+				lastWasSpace = false;
+			}
+			if (!strict) {
+				out.append(c);
+				return;
+			}
+			if (hyphen) {
+				out.append(BRAILLE_HYPHEN);
+				if (hyphenIndex>0 && !(beforeHyphen==' ' && c==NUMBER_SIGN)) {
+					out.append(ZERO_WIDTH_SPACE);
+				}
+				hyphen = false;
+			}
+			if (c=='-') {
+				hyphen = true;
+				hyphenIndex = count;
+				beforeHyphen = previous;
+			} else if (c==NO_BREAK_SPACE) {
+				out.append(BRAILLE_SPACE);
+			} else {
+				out.append(c);
+			}
+			previous = c;
+			count++;
+		}
+	}
+
+}
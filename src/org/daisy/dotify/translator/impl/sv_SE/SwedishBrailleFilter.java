@@ -14,7 +14,18 @@ import org.daisy.dotify.common.text.UCharFilter;
  * @author Joel Håkansson
  */
 public class SwedishBrailleFilter implements StringFilter {
-	private CombinationFilter filters;
+	enum Algorithm {
+		/**
+		 * Process using a chain of filters, one for each step.
+		 */
+		STAGED,
+		/**
+		 * Process all steps in a single pass.
+		 */
+		FUSED}
+
+	private final CombinationFilter filters;
+	private final StringFilter filter;
 	
 	/**
 	 * Creates a new Swedish braille filter.
@@ -31,6 +42,17 @@ public class SwedishBrailleFilter implements StringFilter {
 	 * 			contains break point characters such as space, dash and soft hyphen.
 	 */
 	public SwedishBrailleFilter(String locale, boolean strict) {
+		this(locale, strict, Algorithm.FUSED);
+	}
+
+	/**
+	 * Creates a new Swedish braille filter with the specified mode and algorithm.
+	 * @param locale the locale
+	 * @param strict if true the result is braille only, if false the result 
+	 * 			contains break point characters such as space, dash and soft hyphen.
+	 * @param mode the algorithm to use
+	 */
+	SwedishBrailleFilter(String locale, boolean strict, Algorithm mode) {
 		filters = new CombinationFilter();
 		// Remove zero width space
 		filters.add(new RegexFilter("\\u200B", ""));
@@ -43,20 +65,26 @@ public class SwedishBrailleFilter implements StringFilter {
 
 		Locale l = FilterLocale.parse(locale).toLocale();
 		// Text to braille, Pas 1
-		filters.add(new UCharFilter(getResource("sv_SE-pas1.xml"), l));
+		UCharFilter pas1 = new UCharFilter(getResource("sv_SE-pas1.xml"), l);
+		filters.add(pas1);
 		// Text to braille, Pas 2
-		filters.add(new UCharFilter(getResource("sv_SE-pas2.xml"), l));
+		UCharFilter pas2 = new UCharFilter(getResource("sv_SE-pas2.xml"), l);
+		filters.add(pas2);
 		// Remove redundant whitespace
 		filters.add(new RegexFilter("(\\s+)", " "));
 		
 		if (strict) {
 			filters.add(new StrictFilter());
 		}
+		switch (mode) {
+			case STAGED: filter = filters; break;
+			case FUSED: default: filter = new FusedSwedishBrailleFilter(l, pas1, pas2, strict, filters);
+		}
 	}
 
 	@Override
 	public String filter(String str) {
-		return filters.filter(str);
+		return filter.filter(str);
 	}
 	
 	/**
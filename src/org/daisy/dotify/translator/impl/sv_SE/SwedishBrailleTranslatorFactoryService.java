@@ -12,6 +12,7 @@ import org.daisy.dotify.api.translator.BrailleTranslatorFactoryService;
 import org.daisy.dotify.api.translator.TranslatorMode;
 import org.daisy.dotify.api.translator.TranslatorSpecification;
 import org.daisy.dotify.api.translator.TranslatorType;
+import org.daisy.dotify.translator.TranslatorSpecificationIndex;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
@@ -28,6 +29,7 @@ public class SwedishBrailleTranslatorFactoryService implements
 	private static final ResourceBundle RESOURCE_BUNDLE = ResourceBundle.getBundle(SwedishBrailleTranslatorFactoryService.class.getPackage().getName() + ".messages", Locale.getDefault());
 	private HyphenatorFactoryMakerService hyphenator = null;
 	private final ArrayList<TranslatorSpecification> specs;
+	private final TranslatorSpecificationIndex<TranslatorSpecification> index;
 
 	/**
 	 * Creates a new Swedish braille translator factory service.
@@ -58,17 +60,12 @@ public class SwedishBrailleTranslatorFactoryService implements
 				.displayName(preTranslated)
 				.description(descPreTranslated)
 				.build()));
+		this.index = TranslatorSpecificationIndex.of(specs);
 	}
 	
 	@Override
 	public boolean supportsSpecification(String locale, String mode) {
-		TranslatorSpecification target = new TranslatorSpecification(locale, mode);
-		for (TranslatorSpecification spec : specs) {
-			if (target.equals(spec)) {
-				return true;
-			}
-		}
-		return false;
+		return index.contains(locale, mode);
 	}
 
 	@Override
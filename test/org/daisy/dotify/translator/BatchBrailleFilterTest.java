@@ -0,0 +1,34 @@
+package org.daisy.dotify.translator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.daisy.dotify.api.translator.BrailleFilter;
+import org.daisy.dotify.api.translator.Translatable;
+import org.daisy.dotify.api.translator.TranslationException;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+@SuppressWarnings("javadoc")
+public class BatchBrailleFilterTest {
+
+	@Test
+	public void testFilterAll_OneAtATime() throws TranslationException {
+		List<Translatable> input = Arrays.asList(Translatable.text("⠁").build(), Translatable.text("⠃").build());
+		assertEquals(Arrays.asList("⠁", "⠃"), BatchBrailleFilter.filterAll(new PreTranslatedBrailleFilter(), input));
+	}
+
+	@Test
+	public void testFilterAll_Batch() throws TranslationException {
+		List<Translatable> input = Collections.singletonList(Translatable.text("a").build());
+		BatchBrailleFilter filter = Mockito.mock(BatchBrailleFilter.class);
+		Mockito.when(filter.filterAll(input)).thenReturn(Collections.singletonList("⠁"));
+		BrailleFilter f = filter;
+		assertEquals(Collections.singletonList("⠁"), BatchBrailleFilter.filterAll(f, input));
+		Mockito.verify(filter, Mockito.never()).filter(Mockito.any(Translatable.class));
+	}
+
+}
@@ -0,0 +1,147 @@
+package org.daisy.dotify.translator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.daisy.dotify.api.hyphenator.HyphenatorConfigurationException;
+import org.daisy.dotify.api.hyphenator.HyphenatorFactoryMakerService;
+import org.daisy.dotify.api.hyphenator.HyphenatorInterface;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+@SuppressWarnings("javadoc")
+public class HyphenatorRegistryTest {
+
+	private static class TestHyphenatorConfigurationException extends HyphenatorConfigurationException {
+		private static final long serialVersionUID = 1L;
+
+		private TestHyphenatorConfigurationException(String message) {
+			super(message);
+		}
+	}
+
+	private static HyphenatorFactoryMakerService newFactoryMaker(AtomicInteger count) throws HyphenatorConfigurationException {
+		HyphenatorFactoryMakerService hs = Mockito.mock(HyphenatorFactoryMakerService.class);
+		Mockito.when(hs.newHyphenator(Mockito.anyString())).thenAnswer(inv->{
+			count.incrementAndGet();
+			return Mockito.mock(HyphenatorInterface.class);
+		});
+		return hs;
+	}
+
+	@Test
+	public void testForFactoryMaker_01() throws HyphenatorConfigurationException {
+		HyphenatorFactoryMakerService hs = newFactoryMaker(new AtomicInteger());
+		assertSame(HyphenatorRegistry.forFactoryMaker(hs), HyphenatorRegistry.forFactoryMaker(hs));
+	}
+
+	@Test
+	public void testGet_01() throws HyphenatorConfigurationException {
+		AtomicInteger count = new AtomicInteger();
+		HyphenatorRegistry r = new HyphenatorRegistry(newFactoryMaker(count), 0);
+		HyphenatorInterface h = r.get("sv");
+		assertSame(h, r.get("sv"));
+		assertEquals(1, count.get());
+		r.get("en");
+		assertEquals(2, count.get());
+		assertEquals(2, r.size());
+	}
+
+	@Test
+	public void testGet_SingleFlight() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger count = new AtomicInteger();
+		HyphenatorFactoryMakerService hs = Mockito.mock(HyphenatorFactoryMakerService.class);
+		Mockito.when(hs.newHyphenator(Mockito.anyString())).thenAnswer(inv->{
+			count.incrementAndGet();
+			started.countDown();
+			release.await();
+			return Mockito.mock(HyphenatorInterface.class);
+		});
+		HyphenatorRegistry r = new HyphenatorRegistry(hs, 0);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<HyphenatorInterface>> futures = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				futures.add(executor.submit(()->r.get("sv")));
+			}
+			started.await();
+			release.countDown();
+			HyphenatorInterface h = futures.get(0).get();
+			for (Future<HyphenatorInterface> f : futures) {
+				assertSame(h, f.get());
+			}
+			assertEquals(1, count.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testGet_FailureIsNotKept() throws HyphenatorConfigurationException {
+		AtomicInteger count = new AtomicInteger();
+		HyphenatorFactoryMakerService hs = Mockito.mock(HyphenatorFactoryMakerService.class);
+		Mockito.when(hs.newHyphenator(Mockito.anyString())).thenAnswer(inv->{
+			if (count.incrementAndGet()==1) {
+				throw new TestHyphenatorConfigurationException("Not yet");
+			}
+			return Mockito.mock(HyphenatorInterface.class);
+		});
+		HyphenatorRegistry r = new HyphenatorRegistry(hs, 0);
+		try {
+			r.get("sv");
+			fail();
+		} catch (HyphenatorConfigurationException e) {
+			// expected
+		}
+		assertEquals(0, r.size());
+		r.get("sv");
+		assertEquals(2, count.get());
+	}
+
+	@Test
+	public void testHyphenate_WordCache() throws HyphenatorConfigurationException {
+		AtomicInteger words = new AtomicInteger();
+		HyphenatorInterface h = Mockito.mock(HyphenatorInterface.class);
+		Mockito.when(h.hyphenate(Mockito.anyString())).thenAnswer(inv->{
+			words.incrementAndGet();
+			return inv.getArguments()[0];
+		});
+		HyphenatorFactoryMakerService hs = Mockito.mock(HyphenatorFactoryMakerService.class);
+		Mockito.when(hs.newHyphenator(Mockito.anyString())).thenReturn(h);
+		HyphenatorRegistry r = new HyphenatorRegistry(hs, 0);
+		r.setWordCachePolicy(locale->"sv".equals(locale)?new WordHyphenationCache(100):null);
+		assertEquals("en ett en", r.hyphenate("sv", "en ett en"));
+		assertEquals("en ett", r.hyphenate("sv", "en ett"));
+		assertEquals(2, words.get());
+		assertEquals(2, r.getWordCache("sv").getHitCount());
+		assertEquals("en ett", r.hyphenate("en", "en ett"));
+		assertEquals(3, words.get());
+		assertNull(r.getWordCache("en"));
+	}
+
+	@Test
+	public void testGet_IdleEviction() throws Exception {
+		AtomicInteger count = new AtomicInteger();
+		HyphenatorRegistry r = new HyphenatorRegistry(newFactoryMaker(count), 1000000);
+		r.get("sv");
+		Thread.sleep(10);
+		// Triggers a sweep that releases the idle hyphenator for sv
+		r.get("en");
+		assertEquals(1, r.size());
+		r.get("sv");
+		assertEquals(3, count.get());
+	}
+
+}
@@ -0,0 +1,72 @@
+package org.daisy.dotify.translator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.daisy.dotify.translator.TranslatorMetrics.Stage;
+import org.daisy.dotify.translator.TranslatorMetrics.StageMetricsMBean;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class TranslatorMetricsTest {
+
+	@Test
+	public void testAdd_01() {
+		StageMetricsMBean m = TranslatorMetrics.getMetrics("test-add", "sv-SE", Stage.HYPHENATION);
+		m.reset();
+		TranslatorMetrics.add("test-add", "sv-SE", Stage.HYPHENATION, 1000);
+		TranslatorMetrics.add("test-add", "sv-SE", Stage.HYPHENATION, 3000);
+		assertEquals(2, m.getCount());
+		assertEquals(4000, m.getTotalNanos());
+		assertEquals(2000, m.getMeanNanos(), 0);
+	}
+
+	@Test
+	public void testHistogram_01() {
+		StageMetricsMBean m = TranslatorMetrics.getMetrics("test-histogram", null, Stage.NATIVE_TRANSLATE);
+		m.reset();
+		TranslatorMetrics.add("test-histogram", null, Stage.NATIVE_TRANSLATE, 0);
+		TranslatorMetrics.add("test-histogram", null, Stage.NATIVE_TRANSLATE, 1);
+		TranslatorMetrics.add("test-histogram", null, Stage.NATIVE_TRANSLATE, 1024);
+		TranslatorMetrics.add("test-histogram", null, Stage.NATIVE_TRANSLATE, 2047);
+		long[] expected = new long[64];
+		expected[0] = 2;
+		expected[10] = 2;
+		assertArrayEquals(expected, m.getHistogram());
+	}
+
+	@Test
+	public void testGetMetrics_SameInstance() {
+		StageMetricsMBean m = TranslatorMetrics.getMetrics("test-same", "en", Stage.FILTER);
+		assertSame(m, TranslatorMetrics.getMetrics("test-same", "en", Stage.FILTER));
+	}
+
+	@Test
+	public void testGetMetrics_StagesAreSeparate() {
+		StageMetricsMBean a = TranslatorMetrics.getMetrics("test-stages", "en", Stage.ROW_BREAKING);
+		StageMetricsMBean b = TranslatorMetrics.getMetrics("test-stages", "en", Stage.FINALIZATION);
+		a.reset();
+		b.reset();
+		TranslatorMetrics.add("test-stages", "en", Stage.ROW_BREAKING, 10);
+		assertEquals(1, a.getCount());
+		assertEquals(0, b.getCount());
+	}
+
+	@Test
+	public void testMBean_01() throws Exception {
+		StageMetricsMBean m = TranslatorMetrics.getMetrics("test-mbean", "en", Stage.TRANSLATE);
+		m.reset();
+		TranslatorMetrics.add("test-mbean", "en", Stage.TRANSLATE, 5);
+		ObjectName name = new ObjectName("org.daisy.dotify.translator:type=TranslatorMetrics"
+				+ ",source=" + ObjectName.quote("test-mbean")
+				+ ",locale=" + ObjectName.quote("en")
+				+ ",stage=TRANSLATE");
+		assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Count"));
+	}
+
+}
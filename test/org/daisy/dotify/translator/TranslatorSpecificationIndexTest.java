@@ -0,0 +1,69 @@
+package org.daisy.dotify.translator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.daisy.dotify.api.translator.TranslatorMode;
+import org.daisy.dotify.api.translator.TranslatorSpecification;
+import org.daisy.dotify.api.translator.TranslatorType;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class TranslatorSpecificationIndexTest {
+	private static final TranslatorSpecification SV_UNCONTRACTED = new TranslatorSpecification("sv-SE", TranslatorMode.withType(TranslatorType.UNCONTRACTED));
+	private static final TranslatorSpecification EN_GRADE2 = new TranslatorSpecification("en", TranslatorMode.withGrade(2));
+
+	@Test
+	public void testContains_01() {
+		TranslatorSpecificationIndex<TranslatorSpecification> index = TranslatorSpecificationIndex.of(Arrays.asList(SV_UNCONTRACTED, EN_GRADE2));
+		assertTrue(index.contains("sv-SE", SV_UNCONTRACTED.getMode()));
+		assertTrue(index.contains("en", EN_GRADE2.getMode()));
+		assertFalse(index.contains("sv-SE", EN_GRADE2.getMode()));
+		assertFalse(index.contains("da", SV_UNCONTRACTED.getMode()));
+	}
+
+	@Test
+	public void testContains_LocaleKey() {
+		TranslatorSpecificationIndex<TranslatorSpecification> index = TranslatorSpecificationIndex.of(Arrays.asList(SV_UNCONTRACTED));
+		assertEquals(SV_UNCONTRACTED, index.get("sv-se", SV_UNCONTRACTED.getMode()));
+		assertEquals(SV_UNCONTRACTED, index.get("sv_SE", SV_UNCONTRACTED.getMode()));
+	}
+
+	@Test
+	public void testGet_LocaleKeyIsConsistent() {
+		TranslatorSpecificationIndex<TranslatorSpecification> index = TranslatorSpecificationIndex.of(Arrays.asList(SV_UNCONTRACTED));
+		for (String locale : Arrays.asList("sv-SE", "sv_SE", "SV_se", "sv-se")) {
+			TranslatorSpecification spec = new TranslatorSpecification(locale, SV_UNCONTRACTED.getMode());
+			assertEquals(locale, SV_UNCONTRACTED, index.get(locale, SV_UNCONTRACTED.getMode()));
+			assertEquals(locale, SV_UNCONTRACTED, index.get(spec));
+		}
+		assertNull(index.get("sv", SV_UNCONTRACTED.getMode()));
+		assertNull(index.get(new TranslatorSpecification("sv-SE-x", SV_UNCONTRACTED.getMode())));
+	}
+
+	@Test
+	public void testLocaleOrder() {
+		assertEquals(0, TranslatorSpecificationIndex.LOCALE_ORDER.compare("sv_SE", "SV-se"));
+		assertTrue(TranslatorSpecificationIndex.LOCALE_ORDER.compare("sv", "sv-SE")<0);
+		assertTrue(TranslatorSpecificationIndex.LOCALE_ORDER.compare("en-US", "en_gb")>0);
+	}
+
+	@Test
+	public void testGet_01() {
+		Map<TranslatorSpecification, String> entries = new LinkedHashMap<>();
+		entries.put(EN_GRADE2, "a.tbl");
+		entries.put(SV_UNCONTRACTED, "b.tbl");
+		TranslatorSpecificationIndex<String> index = new TranslatorSpecificationIndex<>(entries);
+		assertEquals("a.tbl", index.get(new TranslatorSpecification("en", TranslatorMode.withGrade(2))));
+		assertEquals("b.tbl", index.get("sv-SE", SV_UNCONTRACTED.getMode()));
+		assertNull(index.get(new TranslatorSpecification("en", TranslatorMode.withGrade(1))));
+		assertEquals(Arrays.asList(EN_GRADE2, SV_UNCONTRACTED), index.listSpecifications());
+	}
+
+}
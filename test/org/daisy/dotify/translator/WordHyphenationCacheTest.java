@@ -0,0 +1,95 @@
+package org.daisy.dotify.translator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.daisy.dotify.api.hyphenator.HyphenatorInterface;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+@SuppressWarnings("javadoc")
+public class WordHyphenationCacheTest {
+
+	/**
+	 * Creates a hyphenator that encloses the input in angle brackets.
+	 */
+	private static HyphenatorInterface newHyphenator(AtomicInteger count) {
+		HyphenatorInterface h = Mockito.mock(HyphenatorInterface.class);
+		Mockito.when(h.hyphenate(Mockito.anyString())).thenAnswer(inv->{
+			count.incrementAndGet();
+			return "<" + inv.getArguments()[0] + ">";
+		});
+		return h;
+	}
+
+	@Test
+	public void testHyphenate_PreservesWhitespace() {
+		WordHyphenationCache cache = new WordHyphenationCache(100);
+		HyphenatorInterface h = newHyphenator(new AtomicInteger());
+		assertEquals("  <a>  <bb>\t<ccc> ", cache.hyphenate(h, "  a  bb\tccc "));
+		assertEquals(" \n ", cache.hyphenate(h, " \n "));
+		assertEquals("", cache.hyphenate(h, ""));
+	}
+
+	@Test
+	public void testHyphenate_HitsAndMisses() {
+		WordHyphenationCache cache = new WordHyphenationCache(100);
+		AtomicInteger count = new AtomicInteger();
+		HyphenatorInterface h = newHyphenator(count);
+		assertEquals("<the> <cat> <the> <dog>", cache.hyphenate(h, "the cat the dog"));
+		// Repeated words are only hyphenated once
+		assertEquals(3, count.get());
+		assertEquals(0, cache.getHitCount());
+		assertEquals(4, cache.getMissCount());
+		assertEquals("<the> <cat>", cache.hyphenate(h, "the cat"));
+		assertEquals(3, count.get());
+		assertEquals(2, cache.getHitCount());
+		assertEquals(2/6d, cache.getHitRatio(), 0.0001);
+	}
+
+	@Test
+	public void testHyphenate_Capacity() {
+		WordHyphenationCache cache = new WordHyphenationCache(2);
+		AtomicInteger count = new AtomicInteger();
+		HyphenatorInterface h = newHyphenator(count);
+		cache.hyphenate(h, "a b c");
+		assertEquals(2, cache.getSize());
+		// a is the least recently used word
+		cache.hyphenate(h, "a");
+		assertEquals(4, count.get());
+	}
+
+	@Test
+	public void testDefaultPolicy_ExcludedLocales() {
+		System.setProperty(WordHyphenationCache.CAPACITY_PROPERTY, "100");
+		System.setProperty(WordHyphenationCache.EXCLUDED_LOCALES_PROPERTY, "sv_SE, de");
+		try {
+			WordHyphenationCache.Policy p = WordHyphenationCache.defaultPolicy();
+			assertNull(p.newCache("sv-SE"));
+			assertNull(p.newCache("DE"));
+			assertNotNull(p.newCache("en"));
+		} finally {
+			System.clearProperty(WordHyphenationCache.CAPACITY_PROPERTY);
+			System.clearProperty(WordHyphenationCache.EXCLUDED_LOCALES_PROPERTY);
+		}
+	}
+
+	@Test
+	public void testDefaultPolicy_DisabledByDefault() {
+		assertNull(WordHyphenationCache.defaultPolicy().newCache("en"));
+	}
+
+	@Test
+	public void testDefaultPolicy_Disabled() {
+		System.setProperty(WordHyphenationCache.CAPACITY_PROPERTY, "0");
+		try {
+			assertNull(WordHyphenationCache.defaultPolicy().newCache("en"));
+		} finally {
+			System.clearProperty(WordHyphenationCache.CAPACITY_PROPERTY);
+		}
+	}
+
+}
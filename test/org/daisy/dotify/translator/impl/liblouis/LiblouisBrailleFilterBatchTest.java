@@ -0,0 +1,126 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.daisy.dotify.api.hyphenator.HyphenatorConfigurationException;
+import org.daisy.dotify.api.hyphenator.HyphenatorFactoryMakerService;
+import org.daisy.dotify.api.hyphenator.HyphenatorInterface;
+import org.daisy.dotify.api.translator.Translatable;
+import org.daisy.dotify.api.translator.TranslationException;
+import org.daisy.dotify.api.translator.TranslatorMode;
+import org.daisy.dotify.api.translator.TranslatorSpecification;
+import org.daisy.dotify.api.translator.TranslatorType;
+import org.daisy.dotify.translator.BatchBrailleFilter;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+@SuppressWarnings("javadoc")
+public class LiblouisBrailleFilterBatchTest {
+	private static final List<String> CELLS = Arrays.asList(
+			"Name", "Age", "City",
+			"Anna", "34", "Stockholm",
+			"", "7", "New York",
+			"Bob", "1984", "",
+			"Chapter", "one", "and the"
+	);
+
+	private static LiblouisBrailleFilter newFilter() throws HyphenatorConfigurationException {
+		HyphenatorInterface h = Mockito.mock(HyphenatorInterface.class);
+		Mockito.when(h.hyphenate(Mockito.anyString())).thenAnswer(inv->inv.getArguments()[0]);
+		HyphenatorFactoryMakerService hs = Mockito.mock(HyphenatorFactoryMakerService.class);
+		Mockito.when(hs.newHyphenator(Mockito.anyString())).thenReturn(h);
+		return new LiblouisBrailleFilter(
+				new TranslatorSpecification("en", TranslatorMode.Builder.withType(TranslatorType.UNCONTRACTED).build()),
+				LiblouisMarkerProcessor.newInstance(),
+				hs,
+				null);
+	}
+
+	private static List<Translatable> toTranslatables(boolean hyphenate) {
+		List<Translatable> ret = new ArrayList<>();
+		for (String s : CELLS) {
+			ret.add(Translatable.text(s).locale("en").hyphenate(hyphenate).build());
+		}
+		return ret;
+	}
+
+	private static void assertSameAsFilter(boolean hyphenate) throws HyphenatorConfigurationException, TranslationException {
+		LiblouisBrailleFilter filter = newFilter();
+		List<Translatable> input = toTranslatables(hyphenate);
+		List<String> expected = new ArrayList<>();
+		for (Translatable t : input) {
+			expected.add(filter.filter(t));
+		}
+		assertEquals(expected, filter.filterAll(input));
+	}
+
+	@Test
+	public void testFilterAll_01() throws Exception {
+		assertSameAsFilter(false);
+	}
+
+	@Test
+	public void testFilterAll_Hyphenating() throws Exception {
+		assertSameAsFilter(true);
+	}
+
+	@Test
+	public void testFilterAll_SegmentCache() throws Exception {
+		LiblouisBrailleFilter filter = new LiblouisBrailleFilter(
+				new TranslatorSpecification("en", TranslatorMode.Builder.withType(TranslatorType.UNCONTRACTED).build()),
+				LiblouisMarkerProcessor.newInstance(),
+				Mockito.mock(HyphenatorFactoryMakerService.class),
+				new LiblouisSegmentCache(1024));
+		List<Translatable> input = toTranslatables(false);
+		List<String> first = filter.filterAll(input);
+		assertEquals(first, filter.filterAll(input));
+		assertEquals(first, newFilter().filterAll(input));
+	}
+
+	@Test
+	public void testFilterAll_CapitalPassage() throws Exception {
+		LiblouisBrailleFilter filter = newFilter();
+		// If joined, a passage indicator could cover all three segments
+		List<Translatable> input = new ArrayList<>();
+		List<String> expected = new ArrayList<>();
+		for (String s : Arrays.asList("THE", "BIG", "DOG", "IS", "HERE")) {
+			Translatable t = Translatable.text(s).locale("en").build();
+			input.add(t);
+			expected.add(filter.filter(t));
+		}
+		assertEquals(expected, filter.filterAll(input));
+	}
+
+	@Test
+	public void testFilterAll_PublicApi() throws Exception {
+		List<Translatable> input = toTranslatables(false);
+		assertEquals(newFilter().filterAll(input), BatchBrailleFilter.filterAll(newFilter(), input));
+	}
+
+	@Test
+	public void testFilterWords_01() throws Exception {
+		TranslatorSpecification spec = new TranslatorSpecification("en", TranslatorMode.Builder.withType(TranslatorType.UNCONTRACTED).build());
+		LiblouisSegmentCache wordCache = new LiblouisSegmentCache(1024);
+		LiblouisBrailleFilter words = new LiblouisBrailleFilter(spec, LiblouisMarkerProcessor.newInstance(), Mockito.mock(HyphenatorFactoryMakerService.class), null, wordCache);
+		LiblouisBrailleFilter whole = newFilter();
+		Translatable t = Translatable.text("one two  one three").locale("en").build();
+		assertEquals(whole.filter(t), words.filter(t));
+		assertEquals(3, wordCache.getMissCount());
+		assertEquals(0, wordCache.getHitCount());
+		assertEquals(whole.filter(t), words.filter(t));
+		assertEquals(4, wordCache.getHitCount());
+	}
+
+	@Test
+	public void testFilterWords_BreakPointNextToSpace() throws Exception {
+		TranslatorSpecification spec = new TranslatorSpecification("en", TranslatorMode.Builder.withType(TranslatorType.UNCONTRACTED).build());
+		LiblouisBrailleFilter words = new LiblouisBrailleFilter(spec, LiblouisMarkerProcessor.newInstance(), Mockito.mock(HyphenatorFactoryMakerService.class), null, new LiblouisSegmentCache(1024));
+		assertNull(words.filterWords(LiblouisBrailleFilter.toLiblouisSpecification("-\u200b -", "- -")));
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,118 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.daisy.dotify.api.hyphenator.HyphenatorConfigurationException;
+import org.daisy.dotify.api.hyphenator.HyphenatorFactoryMakerService;
+import org.daisy.dotify.api.hyphenator.HyphenatorInterface;
+import org.daisy.dotify.api.translator.Translatable;
+import org.daisy.dotify.api.translator.TranslationException;
+import org.daisy.dotify.api.translator.TranslatorMode;
+import org.daisy.dotify.api.translator.TranslatorSpecification;
+import org.daisy.dotify.api.translator.TranslatorType;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+@SuppressWarnings("javadoc")
+public class LiblouisBrailleFilterConcurrencyTest {
+	private static final int THREADS = 8;
+	private static final int ROUNDS = 20;
+	private static final List<String> CORPUS = Arrays.asList(
+			"Page",
+			"Chapter 1",
+			"The quick brown fox jumps over the lazy dog.",
+			"Table of contents",
+			"It was 1984, and the clocks were striking thirteen.",
+			"Braille is a tactile writing system used by people who are visually impaired.",
+			"ISBN 978-3-16-148410-0",
+			"Read more at www.example.com - or don't.",
+			"Hyphenation breaks long words such as internationalization.",
+			"UPPER CASE, lower case and Mixed Case"
+	);
+
+	private static HyphenatorFactoryMakerService newHyphenatorService() throws HyphenatorConfigurationException {
+		HyphenatorInterface h = Mockito.mock(HyphenatorInterface.class);
+		Mockito.when(h.hyphenate(Mockito.anyString())).thenAnswer(inv->inv.getArguments()[0]);
+		HyphenatorFactoryMakerService hs = Mockito.mock(HyphenatorFactoryMakerService.class);
+		Mockito.when(hs.newHyphenator(Mockito.anyString())).thenReturn(h);
+		return hs;
+	}
+
+	private static LiblouisBrailleFilter newFilter(LiblouisSegmentCache cache) throws HyphenatorConfigurationException {
+		return new LiblouisBrailleFilter(
+				new TranslatorSpecification("en", TranslatorMode.Builder.withType(TranslatorType.UNCONTRACTED).build()),
+				LiblouisMarkerProcessor.newInstance(),
+				newHyphenatorService(),
+				cache);
+	}
+
+	private static Translatable toTranslatable(String text, boolean hyphenate) {
+		return Translatable.text(text).locale("en").hyphenate(hyphenate).build();
+	}
+
+	private static List<String> translateAll(LiblouisBrailleFilter filter, boolean hyphenate) throws TranslationException {
+		List<String> ret = new ArrayList<>();
+		for (String s : CORPUS) {
+			ret.add(filter.filter(toTranslatable(s, hyphenate)));
+		}
+		return ret;
+	}
+
+	private static void assertConcurrentResult(LiblouisBrailleFilter filter, List<String> expected, boolean hyphenate) throws InterruptedException, ExecutionException {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<Void>> futures = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				final long seed = t;
+				futures.add(executor.submit(()->{
+					List<Integer> order = new ArrayList<>();
+					for (int i = 0; i < CORPUS.size(); i++) {
+						order.add(i);
+					}
+					Random rnd = new Random(seed);
+					for (int r = 0; r < ROUNDS; r++) {
+						Collections.shuffle(order, rnd);
+						for (int i : order) {
+							assertEquals(expected.get(i), filter.filter(toTranslatable(CORPUS.get(i), hyphenate)));
+						}
+					}
+					return null;
+				}));
+			}
+			for (Future<Void> f : futures) {
+				f.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testConcurrentFilter_01() throws Exception {
+		List<String> expected = translateAll(newFilter(null), false);
+		assertConcurrentResult(newFilter(null), expected, false);
+	}
+
+	@Test
+	public void testConcurrentFilter_Hyphenating() throws Exception {
+		List<String> expected = translateAll(newFilter(null), true);
+		assertConcurrentResult(newFilter(null), expected, true);
+	}
+
+	@Test
+	public void testConcurrentFilter_SegmentCache() throws Exception {
+		List<String> expected = translateAll(newFilter(null), true);
+		assertConcurrentResult(newFilter(new LiblouisSegmentCache(256)), expected, true);
+	}
+
+}
@@ -3,13 +3,19 @@ package org.daisy.dotify.translator.impl.liblouis;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.daisy.dotify.api.translator.DefaultTextAttribute;
+import org.daisy.dotify.api.translator.FollowingText;
+import org.daisy.dotify.api.translator.PrecedingText;
 import org.daisy.dotify.api.translator.TextAttribute;
 import org.junit.Test;
+import org.mockito.Mockito;
 
 @SuppressWarnings("javadoc")
 public class LiblouisBrailleFilterTest {
@@ -81,6 +87,23 @@ public class LiblouisBrailleFilterTest {
 		assertArrayEquals(new int[] {2,0,2,0}, hp.getInterCharAtts());
 	}
 	
+	@Test
+	public void testToLiblouisSpecification_03() {
+		String input = "a\ud835\udc00bc"; // a, U+1D400, b, c
+		String hyph = "a\ud835\udc00\u00adb\u200bc";
+		LiblouisTranslatable hp = LiblouisBrailleFilter.toLiblouisSpecification(hyph, input);
+		assertArrayEquals(new int[] {0,1,2,3}, hp.getCharAtts());
+		assertArrayEquals(new int[] {0,1,2}, hp.getInterCharAtts());
+	}
+	
+	@Test
+	public void testToInterCharAttributes_01() {
+		int[] buffer = new int[] {9,9,9,9,9,9,9,9,9,9};
+		int len = LiblouisBrailleFilter.toInterCharAttributes("hy\u00adphen", "hyphen", buffer);
+		assertEquals(6, len);
+		assertArrayEquals(new int[] {0,1,0,0,0,9,9,9,9,9}, buffer);
+	}
+	
 	@Test
 	public void testToBrailleFilterString() {
 		String input = "hyphenate";
@@ -89,4 +112,55 @@ public class LiblouisBrailleFilterTest {
 		assertEquals(hyph, res);
 	}
 
-}
+	@Test
+	public void testToBrailleFilterString_Whitespace() {
+		// Some tables translate a space into several cells, but only one space should be kept
+		String res = LiblouisBrailleFilter.toBrailleFilterString("a b", "⠁⠀⠀⠃", new int[] {0,1,1,2}, new int[] {0,0,2});
+		assertEquals("⠁ \u200b⠃", res);
+	}
+	
+	@Test
+	public void testToBrailleFilterString_SurrogatePair() {
+		String res = LiblouisBrailleFilter.toBrailleFilterString("\ud835\udc00 b", "⠠⠁ ⠃", new int[] {0,0,1,2}, new int[] {0,0,0});
+		assertEquals("⠠⠁ ⠃", res);
+	}
+
+	@Test
+	public void testToBrailleFilterStrings_01() {
+		List<LiblouisTranslatable> segments = Arrays.asList(
+				LiblouisBrailleFilter.toLiblouisSpecification("a\u00adb", "ab"),
+				LiblouisBrailleFilter.toLiblouisSpecification("c", "c"));
+		String[] res = LiblouisBrailleFilter.toBrailleFilterStrings(segments, "⠁⠃⠀⠉", new int[] {0,1,2,3}, new int[] {1,0,0});
+		assertArrayEquals(new String[] {"⠁\u00ad⠃", "⠉"}, res);
+	}
+	
+	@Test
+	public void testToBrailleFilterStrings_02() {
+		List<LiblouisTranslatable> segments = Arrays.asList(
+				LiblouisBrailleFilter.toLiblouisSpecification("ab", "ab"),
+				LiblouisBrailleFilter.toLiblouisSpecification("c", "c"));
+		// The separator has been contracted together with the preceding segment
+		assertNull(LiblouisBrailleFilter.toBrailleFilterStrings(segments, "⠁⠃⠉", new int[] {0,1,3}, new int[] {0,0}));
+	}
+
+	@Test
+	public void testResolvePreceding_01() {
+		PrecedingText far = Mockito.mock(PrecedingText.class);
+		PrecedingText near = Mockito.mock(PrecedingText.class);
+		Mockito.when(near.resolve()).thenReturn("near");
+		List<String> res = LiblouisBrailleFilter.resolvePreceding(Arrays.asList(far, near), 3);
+		assertEquals(Arrays.asList("", "near"), res);
+		Mockito.verify(far, Mockito.never()).resolve();
+	}
+	
+	@Test
+	public void testResolveFollowing_01() {
+		FollowingText near = Mockito.mock(FollowingText.class);
+		FollowingText far = Mockito.mock(FollowingText.class);
+		Mockito.when(near.peek()).thenReturn("near");
+		Mockito.when(far.peek()).thenReturn("far");
+		assertEquals(Arrays.asList("near", ""), LiblouisBrailleFilter.resolveFollowing(Arrays.asList(near, far), 4));
+		assertEquals(Arrays.asList("near", "far"), LiblouisBrailleFilter.resolveFollowing(Arrays.asList(near, far), Integer.MAX_VALUE));
+	}
+
+}
\ No newline at end of file
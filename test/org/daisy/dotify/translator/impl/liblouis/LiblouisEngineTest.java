@@ -0,0 +1,106 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.daisy.dotify.api.hyphenator.HyphenatorFactoryMakerService;
+import org.daisy.dotify.api.translator.BrailleFilter;
+import org.daisy.dotify.api.translator.Translatable;
+import org.daisy.dotify.api.translator.TranslationException;
+import org.daisy.dotify.api.translator.TranslatorConfigurationException;
+import org.daisy.dotify.api.translator.TranslatorSpecification;
+import org.daisy.dotify.translator.impl.liblouis.java.LiblouisTables;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+@SuppressWarnings("javadoc")
+public class LiblouisEngineTest {
+	// See test/org/liblouis/resource-files/tables
+	private static final String TEST_TABLE = "dotify-test.ctb";
+
+	@After
+	public void tearDown() {
+		System.clearProperty(LiblouisEngine.ENGINE_PROPERTY);
+	}
+
+	@Test
+	public void testCurrent() {
+		assertEquals(LiblouisEngine.NATIVE, LiblouisEngine.current());
+		System.setProperty(LiblouisEngine.ENGINE_PROPERTY, " Java ");
+		assertEquals(LiblouisEngine.JAVA, LiblouisEngine.current());
+		System.setProperty(LiblouisEngine.ENGINE_PROPERTY, "other");
+		assertEquals(LiblouisEngine.NATIVE, LiblouisEngine.current());
+	}
+
+	@Test
+	public void testSelectionCurrent() {
+		assertEquals(LiblouisEngine.NATIVE, LiblouisEngineSelection.current().getSelected());
+		System.setProperty(LiblouisEngine.ENGINE_PROPERTY, "java");
+		LiblouisEngineSelection engines = LiblouisEngineSelection.current();
+		// The engine is read when the selection is created
+		System.clearProperty(LiblouisEngine.ENGINE_PROPERTY);
+		assertEquals(LiblouisEngine.JAVA, engines.getSelected());
+	}
+
+	@Test
+	public void testNative() {
+		LiblouisEngineSelection engines = new LiblouisEngineSelection(LiblouisEngine.NATIVE);
+		assertTrue(engines.provides(LiblouisEngine.NATIVE, "en", "uncontracted"));
+		assertFalse(engines.provides(LiblouisEngine.JAVA, "en", "uncontracted"));
+		assertTrue(engines.listSpecifications(LiblouisEngine.JAVA).isEmpty());
+		assertEquals(LiblouisSpecifications.listSpecifications(), engines.listSpecifications(LiblouisEngine.NATIVE));
+	}
+
+	@Test
+	public void testJava_Unsupported() {
+		LiblouisEngineSelection engines = new LiblouisEngineSelection(LiblouisEngine.JAVA);
+		assertFalse(engines.provides(LiblouisEngine.JAVA, "xx-unknown", "uncontracted"));
+		assertFalse(engines.provides(LiblouisEngine.NATIVE, "xx-unknown", "uncontracted"));
+	}
+
+	@Test
+	public void testJava_Partition() {
+		LiblouisEngineSelection engines = new LiblouisEngineSelection(LiblouisEngine.JAVA);
+		// Every specification is provided by exactly one of the engines
+		assertEquals(LiblouisSpecifications.listSpecifications().size(),
+				engines.listSpecifications(LiblouisEngine.JAVA).size()
+				+ engines.listSpecifications(LiblouisEngine.NATIVE).size());
+	}
+
+	@Test
+	public void testJava_Listed() {
+		// The pure-Java engine only provides the tables listed in the resource
+		assertEquals(LiblouisSpecifications.listSpecifications(),
+				new LiblouisEngineSelection(LiblouisEngine.JAVA, Collections.emptySet(), t->LiblouisTables.getFilter(TEST_TABLE))
+				.listSpecifications(LiblouisEngine.NATIVE));
+	}
+
+	@Test
+	public void testJava_Services() throws TranslationException, TranslatorConfigurationException {
+		// Let the pure-Java engine provide the table of the first specification, using the test table
+		TranslatorSpecification spec = LiblouisSpecifications.listSpecifications().get(0);
+		String table = LiblouisSpecifications.getTable(spec);
+		LiblouisEngineSelection engines = new LiblouisEngineSelection(LiblouisEngine.JAVA,
+				Collections.singleton(table), t->LiblouisTables.getFilter(TEST_TABLE));
+		LiblouisJavaBrailleFilterFactoryService java = new LiblouisJavaBrailleFilterFactoryService(engines);
+		LiblouisBrailleFilterFactoryService nativeService = new LiblouisBrailleFilterFactoryService(engines);
+		assertTrue(engines.getJavaFilter(spec).isPresent());
+		assertTrue(java.supportsSpecification(spec.getLocale(), spec.getMode()));
+		assertTrue(java.listSpecifications().contains(spec));
+		assertFalse(nativeService.supportsSpecification(spec.getLocale(), spec.getMode()));
+		assertFalse(nativeService.listSpecifications().contains(spec));
+		for (TranslatorSpecification s : nativeService.listSpecifications()) {
+			assertFalse(s.toString(), java.supportsSpecification(s.getLocale(), s.getMode()));
+			assertTrue(s.toString(), nativeService.supportsSpecification(s.getLocale(), s.getMode()));
+		}
+		java.setHyphenator(Mockito.mock(HyphenatorFactoryMakerService.class));
+		BrailleFilter filter = java.newFactory().newFilter(spec.getLocale(), spec.getMode());
+		// Spaces are kept, so that rows can be broken
+		assertEquals("⠇ ⠠⠃⠁", filter.filter(Translatable.text("ab Ba").build()));
+	}
+
+}
@@ -0,0 +1,91 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.daisy.dotify.api.translator.DefaultTextAttribute;
+import org.daisy.dotify.api.translator.TextAttribute;
+import org.junit.Test;
+import org.liblouis.Typeform;
+
+@SuppressWarnings("javadoc")
+public class LiblouisSegmentCacheTest {
+
+	private static LiblouisSegmentCache.Key key(String text) {
+		return new LiblouisSegmentCache.Key(text, "en", false, true, null);
+	}
+
+	@Test
+	public void testHitRatio_01() {
+		LiblouisSegmentCache cache = new LiblouisSegmentCache(100);
+		assertNull(cache.get(key("Page")));
+		cache.put(key("Page"), "⠠⠏⠁⠛⠑");
+		assertEquals("⠠⠏⠁⠛⠑", cache.get(key("Page")));
+		assertEquals("⠠⠏⠁⠛⠑", cache.get(key("Page")));
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(2/3d, cache.getHitRatio(), 0.0001);
+	}
+
+	@Test
+	public void testKey_01() {
+		LiblouisSegmentCache cache = new LiblouisSegmentCache(100);
+		cache.put(key("abc"), "⠁⠃⠉");
+		assertNull(cache.get(new LiblouisSegmentCache.Key("abc", "sv", false, true, null)));
+		assertNull(cache.get(new LiblouisSegmentCache.Key("abc", "en", true, true, null)));
+		assertNull(cache.get(new LiblouisSegmentCache.Key("abc", "en", false, false, null)));
+		assertNull(cache.get(new LiblouisSegmentCache.Key("abc", "en", false, true, new Typeform[3])));
+		assertEquals("⠁⠃⠉", cache.get(key("abc")));
+	}
+
+	@Test
+	public void testCapacity_01() {
+		LiblouisSegmentCache cache = new LiblouisSegmentCache(12);
+		cache.put(key("abc"), "⠁⠃⠉");
+		cache.put(key("def"), "⠙⠑⠋");
+		assertEquals(12, cache.getSize());
+		// Makes abc the most recently used entry
+		cache.get(key("abc"));
+		cache.put(key("ghi"), "⠛⠓⠊");
+		assertEquals(12, cache.getSize());
+		assertNull(cache.get(key("def")));
+		assertEquals("⠁⠃⠉", cache.get(key("abc")));
+	}
+
+	@Test
+	public void testCapacity_02() {
+		LiblouisSegmentCache cache = new LiblouisSegmentCache(4);
+		cache.put(key("abc"), "⠁⠃⠉");
+		assertEquals(0, cache.getSize());
+		assertNull(cache.get(key("abc")));
+	}
+
+	@Test
+	public void testKey_CombinedTypeforms() {
+		// Typeform.add returns a new instance each time, the combinations must be reused
+		TextAttribute ta = new DefaultTextAttribute.Builder()
+				.add(1)
+				.add(new DefaultTextAttribute.Builder("code").build(3))
+				.build(4);
+		Map<String, Typeform> map = new HashMap<>();
+		map.put("code", Typeform.COMPUTER);
+		Map<Set<Typeform>, Typeform> combined = new HashMap<>();
+		Typeform[] t1 = LiblouisBrailleFilter.toTypeForm(ta, map, combined);
+		Typeform[] t2 = LiblouisBrailleFilter.toTypeForm(ta, map, combined);
+		assertSame(t1[1], t2[1]);
+		LiblouisSegmentCache cache = new LiblouisSegmentCache(100);
+		cache.put(new LiblouisSegmentCache.Key("abcd", "en", false, true, t1), "⠁⠃⠉⠙");
+		assertEquals("⠁⠃⠉⠙", cache.get(new LiblouisSegmentCache.Key("abcd", "en", false, true, t2)));
+	}
+
+	@Test
+	public void testNewInstance_DisabledByDefault() {
+		assertNull(LiblouisSegmentCache.newInstance());
+	}
+
+}
@@ -0,0 +1,41 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.daisy.dotify.api.translator.TranslatorMode;
+import org.daisy.dotify.api.translator.TranslatorMode.DotsPerCell;
+import org.daisy.dotify.api.translator.TranslatorSpecification;
+import org.daisy.dotify.api.translator.TranslatorType;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class LiblouisSpecificationsTest {
+
+	@Test
+	public void testListSpecifications_01() {
+		assertEquals(125, LiblouisSpecifications.listSpecifications().size());
+	}
+
+	@Test
+	public void testGetTable_01() {
+		assertEquals("en-ueb-g2.ctb", LiblouisSpecifications.getTable(
+				new TranslatorSpecification("en", TranslatorMode.Builder.withType(TranslatorType.CONTRACTED).build())));
+		assertEquals("da-dk-g28.ctb", LiblouisSpecifications.getTable(
+				new TranslatorSpecification("da", TranslatorMode.Builder.withGrade(2.0).dotsPerCell(DotsPerCell.EIGHT).build())));
+	}
+
+	@Test
+	public void testGetTable_LastWins() {
+		// The index lists two tables for this specification, the last one is used
+		assertEquals("da-dk-g26.ctb", LiblouisSpecifications.getTable(
+				new TranslatorSpecification("da", TranslatorMode.Builder.withType(TranslatorType.CONTRACTED).build())));
+	}
+
+	@Test
+	public void testGetTable_Unsupported() {
+		assertNull(LiblouisSpecifications.getTable(
+				new TranslatorSpecification("xx", TranslatorMode.Builder.withType(TranslatorType.CONTRACTED).build())));
+	}
+
+}
@@ -0,0 +1,140 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.liblouis.CompilationException;
+import org.liblouis.Translator;
+import org.mockito.Mockito;
+
+@SuppressWarnings("javadoc")
+public class LiblouisTableCacheTest {
+	private final AtomicInteger compilations = new AtomicInteger();
+
+	private LiblouisTableCache newCache(int capacity) {
+		return new LiblouisTableCache(capacity, path->{
+			compilations.incrementAndGet();
+			return Mockito.mock(Translator.class);
+		});
+	}
+
+	@Test
+	public void testHit_01() throws CompilationException {
+		LiblouisTableCache cache = newCache(2);
+		Object owner1 = new Object();
+		Object owner2 = new Object();
+		Translator t1 = cache.acquire("a.tbl", owner1);
+		Translator t2 = cache.acquire("a.tbl", owner2);
+		assertSame(t1, t2);
+		assertEquals(1, compilations.get());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(2, cache.getReferenceCount("a.tbl"));
+	}
+
+	@Test
+	public void testEviction_01() throws CompilationException, InterruptedException {
+		LiblouisTableCache cache = newCache(1);
+		acquireUnreferenced(cache, "a.tbl");
+		for (int i = 0; i < 50 && cache.getReferenceCount("a.tbl") > 0; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertEquals(0, cache.getReferenceCount("a.tbl"));
+		cache.acquire("b.tbl", new Object());
+		assertEquals(1, cache.getSize());
+		assertEquals(1, cache.getEvictionCount());
+	}
+
+	private static void acquireUnreferenced(LiblouisTableCache cache, String path) throws CompilationException {
+		cache.acquire(path, new Object());
+	}
+
+	@Test
+	public void testPinned_01() throws CompilationException {
+		LiblouisTableCache cache = newCache(1);
+		Object owner1 = new Object();
+		Object owner2 = new Object();
+		cache.acquire("a.tbl", owner1);
+		cache.acquire("b.tbl", owner2);
+		// Both tables are in use, so neither can be evicted
+		assertEquals(2, cache.getSize());
+		assertEquals(0, cache.getEvictionCount());
+		cache.acquire("a.tbl", owner2);
+		assertEquals(2, compilations.get());
+	}
+
+	@Test(expected=CompilationException.class)
+	public void testCompilationFailure_01() throws CompilationException {
+		LiblouisTableCache cache = new LiblouisTableCache(1, path->{
+			throw new CompilationException("Failed");
+		});
+		try {
+			cache.acquire("a.tbl", new Object());
+		} finally {
+			assertEquals(0, cache.getSize());
+		}
+	}
+
+	@Test(timeout=10000)
+	public void testCompilationError_01() throws CompilationException {
+		AtomicInteger attempts = new AtomicInteger();
+		LiblouisTableCache cache = new LiblouisTableCache(1, path->{
+			if (attempts.incrementAndGet()==1) {
+				throw new UnsatisfiedLinkError("Failed");
+			}
+			return Mockito.mock(Translator.class);
+		});
+		try {
+			cache.acquire("a.tbl", new Object());
+			fail();
+		} catch (UnsatisfiedLinkError e) {
+			// expected
+		}
+		assertEquals(0, cache.getSize());
+		// The failed entry is gone, so the next request compiles again instead of waiting
+		assertNotNull(cache.acquire("a.tbl", new Object()));
+		assertEquals(2, attempts.get());
+	}
+
+	@Test(timeout=10000)
+	public void testPrefetchError_01() throws Exception {
+		LiblouisTableCache cache = new LiblouisTableCache(1, path->{
+			throw new NoClassDefFoundError("Failed");
+		});
+		CompletableFuture<Translator> f = cache.prefetch("a.tbl", Runnable::run);
+		assertTrue(f.isCompletedExceptionally());
+		assertEquals(0, cache.getSize());
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testCapacity_01() {
+		newCache(0);
+	}
+
+	@Test
+	public void testPrefetch_01() throws Exception {
+		LiblouisTableCache cache = newCache(2);
+		List<Runnable> tasks = new ArrayList<>();
+		CompletableFuture<Translator> f = cache.prefetch("a.tbl", tasks::add);
+		// Already pending, so no new task is submitted
+		assertSame(f, cache.prefetch("a.tbl", tasks::add));
+		assertEquals(1, tasks.size());
+		assertFalse(f.isDone());
+		tasks.get(0).run();
+		assertSame(f.get(), cache.acquire("a.tbl", new Object()));
+		assertEquals(1, compilations.get());
+		assertEquals(1, cache.getHitCount());
+	}
+
+}
\ No newline at end of file
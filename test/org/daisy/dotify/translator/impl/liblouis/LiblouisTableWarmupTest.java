@@ -0,0 +1,60 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.daisy.dotify.api.translator.TranslatorSpecification;
+import org.daisy.dotify.translator.impl.liblouis.java.LiblouisTables;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class LiblouisTableWarmupTest {
+
+	@Test
+	public void testParse_01() {
+		List<TranslatorSpecification> specs = LiblouisTableWarmup.parse(" sv-SE/uncontracted, en/contracted ,");
+		assertEquals(Arrays.asList(
+				new TranslatorSpecification("sv-SE", "uncontracted"),
+				new TranslatorSpecification("en", "contracted")), specs);
+	}
+
+	@Test
+	public void testParse_Malformed() {
+		assertEquals(Arrays.asList(new TranslatorSpecification("en", "contracted")),
+				LiblouisTableWarmup.parse("sv-SE,/uncontracted,en/,en/contracted"));
+	}
+
+	@Test
+	public void testParse_Empty() {
+		assertTrue(LiblouisTableWarmup.parse(null).isEmpty());
+		assertTrue(LiblouisTableWarmup.parse("").isEmpty());
+	}
+
+	@Test
+	public void testGetWarmupList_01() {
+		assertEquals("en/contracted", LiblouisTableWarmup.getWarmupList(
+				Collections.singletonMap(LiblouisTableWarmup.WARMUP_COMPONENT_PROPERTY, "en/contracted")));
+		assertEquals("en/contracted,sv-SE/uncontracted", LiblouisTableWarmup.getWarmupList(
+				Collections.singletonMap(LiblouisTableWarmup.WARMUP_COMPONENT_PROPERTY, new String[]{"en/contracted", "sv-SE/uncontracted"})));
+	}
+
+	@Test
+	public void testStart_Java() throws InterruptedException {
+		TranslatorSpecification spec = LiblouisSpecifications.listSpecifications().get(0);
+		CountDownLatch loaded = new CountDownLatch(1);
+		LiblouisEngineSelection engines = new LiblouisEngineSelection(LiblouisEngine.JAVA,
+				Collections.singleton(LiblouisSpecifications.getTable(spec)), t->{
+					loaded.countDown();
+					return LiblouisTables.getFilter("dotify-test.ctb");
+				});
+		LiblouisTableWarmup.start(spec.getLocale() + "/" + spec.getMode(), engines);
+		assertTrue(loaded.await(10, TimeUnit.SECONDS));
+	}
+
+}
@@ -1,13 +1,34 @@
 package org.daisy.dotify.translator.impl.liblouis;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
 import org.liblouis.CompilationException;
 import org.liblouis.Louis;
 import org.liblouis.Translator;
 
+/**
+ * Lists the literary Liblouis tables in the format used by the
+ * liblouis-specifications.tsv resource. The output is written to the
+ * file given as the first argument, or to standard out.
+ */
 @SuppressWarnings("javadoc")
 public class ListTables {
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
+		try (PrintWriter out = args.length>0
+				?new PrintWriter(new OutputStreamWriter(new FileOutputStream(args[0]), StandardCharsets.UTF_8))
+				:new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+			out.print("# Generated by ListTables, do not edit. Regenerate with: gradlew generateLiblouisSpecifications\n");
+			out.print("# locale\tcontraction (contracted, uncontracted or grade:n)\tdots per cell\ttable\n");
+			listTables(out);
+		}
+	}
+
+	private static void listTables(PrintWriter out) {
 		Louis.listTables().stream()
 			.map(TblInfo::new)
 			.filter(v->"literary".equals(v.type)&&!"sv".equals(v.locale))
@@ -17,34 +38,28 @@ public class ListTables {
 				try {
 					path = tii.table.getTranslator().getTable();
 				} catch (CompilationException e2) {
-					System.out.println("Comp failed");
+					System.err.println("Comp failed");
 				}
 				if (path!=null) {
 					try {
 						new Translator(path);
-						String prefix ="specs.put(";
-						String postfix = ", \"" +path+"\");";
-						String eightDot = tii.eightDot?".dotsPerCell(DotsPerCell.EIGHT)":"";
+						String dots = tii.eightDot?"8":"6";
 						if ("full".equalsIgnoreCase(tii.contraction)) {
-							System.out.println(
-								String.format("%snew TranslatorSpecification(\"%s\", TranslatorMode.Builder.withType(TranslatorType.CONTRACTED)%s.build())%s", prefix, tii.locale, eightDot, postfix)
-							);
+							out.print(String.format("%s\tcontracted\t%s\t%s\n", tii.locale, dots, path));
 						} else if ("no".equalsIgnoreCase(tii.contraction)) {
-							System.out.println(
-								String.format("%snew TranslatorSpecification(\"%s\", TranslatorMode.Builder.withType(TranslatorType.UNCONTRACTED)%s.build())%s", prefix, tii.locale, eightDot, postfix)
-							);
+							out.print(String.format("%s\tuncontracted\t%s\t%s\n", tii.locale, dots, path));
 						}
 						if (tii.grade!=null) {
 							try {
 								double grade = Double.parseDouble(tii.grade);
-								System.out.println(String.format("%snew TranslatorSpecification(\"%s\", TranslatorMode.Builder.withGrade(%s)%s.build())%s", prefix, tii.locale, grade, eightDot, postfix));
+								out.print(String.format("%s\tgrade:%s\t%s\t%s\n", tii.locale, grade, dots, path));
 							} catch (NumberFormatException e) {
 								//Do nothing
 							}
 						}
 						
 					} catch (CompilationException e1) {
-						System.out.println("Failed to read from table path: " + path);
+						System.err.println("Failed to read from table path: " + path);
 					}
 				}
 			});
@@ -0,0 +1,126 @@
+package org.daisy.dotify.translator.impl.liblouis;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.daisy.dotify.api.hyphenator.HyphenatorFactoryMakerService;
+import org.daisy.dotify.api.hyphenator.HyphenatorInterface;
+import org.daisy.dotify.api.translator.Translatable;
+import org.daisy.dotify.api.translator.TranslationException;
+import org.daisy.dotify.api.translator.TranslatorSpecification;
+import org.mockito.Mockito;
+
+/**
+ * <p>Verifies that Liblouis tables produce byte-identical output when a segment
+ * is translated word by word, as with a word cache, and when it is translated
+ * as a whole. Tables that pass can be listed in the system property
+ * <code>org.daisy.dotify.translator.impl.liblouis.wordContextFreeTables</code>.</p>
+ * 
+ * <p>Usage: <code>VerifyWordContextFree [corpus file]</code>. Without a corpus file,
+ * a small built-in corpus is used. All tables in the index are verified, with and
+ * without hyphenation. Contracted tables are not expected to pass.</p>
+ */
+@SuppressWarnings("javadoc")
+public class VerifyWordContextFree {
+	private static final List<String> CORPUS = Arrays.asList(
+			"The quick brown fox jumps over the lazy dog.",
+			"It was 1984, and the clocks were striking thirteen.",
+			"UPPER CASE, lower case and Mixed Case",
+			"ISBN 978-3-16-148410-0 (paperback), pp. 12-34",
+			"Read more at www.example.com - or don't!",
+			"\"Quoted\" and 'single quoted' words; a colon: here",
+			"Übergrößenträger, naïve café, façade, smörgåsbord",
+			"Δ 3.14 × 2 = 6.28 %, 100 € or $ 25",
+			"  leading and trailing whitespace\tand a tab  "
+	);
+
+	public static void main(String[] args) throws IOException {
+		List<String> corpus = args.length>0?Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8):CORPUS;
+		TreeSet<String> passed = new TreeSet<>();
+		TreeSet<String> failed = new TreeSet<>();
+		for (TranslatorSpecification spec : LiblouisSpecifications.listSpecifications()) {
+			String table = LiblouisSpecifications.getTable(spec);
+			if (passed.contains(table) || failed.contains(table)) {
+				continue;
+			}
+			List<String> diffs = verify(spec, corpus);
+			if (diffs.isEmpty()) {
+				passed.add(table);
+				System.out.println("OK   " + table + " (" + spec + ")");
+			} else {
+				failed.add(table);
+				System.out.println("DIFF " + table + " (" + spec + ")");
+				for (String d : diffs) {
+					System.out.println("     " + d);
+				}
+			}
+		}
+		System.out.println();
+		System.out.println(LiblouisWordCache.TABLES_PROPERTY + "=" + String.join(",", passed));
+	}
+
+	static List<String> verify(TranslatorSpecification spec, List<String> corpus) {
+		List<String> diffs = new ArrayList<>();
+		try {
+			HyphenatorFactoryMakerService hs = newHyphenatorService();
+			LiblouisBrailleFilter whole = new LiblouisBrailleFilter(spec, LiblouisMarkerProcessor.newInstance(), hs, null, null);
+			LiblouisBrailleFilter words = new LiblouisBrailleFilter(spec, LiblouisMarkerProcessor.newInstance(), hs, null, new LiblouisSegmentCache(65536));
+			for (boolean hyphenate : new boolean[]{false, true}) {
+				// Run twice, so that the second run is served from the word cache
+				for (int run = 0; run < 2; run++) {
+					for (String s : corpus) {
+						Translatable t = Translatable.text(s).locale(spec.getLocale()).hyphenate(hyphenate).build();
+						String expected = whole.filter(t);
+						String actual = words.filter(t);
+						if (!expected.equals(actual)) {
+							diffs.add("'" + s + "'" + (hyphenate?" (hyphenated)":"") + ": expected '" + expected + "' but was '" + actual + "'");
+						}
+					}
+				}
+			}
+		} catch (TranslationException | RuntimeException e) {
+			diffs.add(e.toString());
+		}
+		return diffs;
+	}
+
+	/**
+	 * Creates a hyphenator that allows a break after every second character of a word,
+	 * so that break points are present in most words.
+	 */
+	private static HyphenatorFactoryMakerService newHyphenatorService() {
+		try {
+			HyphenatorInterface h = Mockito.mock(HyphenatorInterface.class);
+			Mockito.when(h.hyphenate(Mockito.anyString())).thenAnswer(inv->{
+				String s = (String)inv.getArguments()[0];
+				StringBuilder sb = new StringBuilder();
+				int inWord = 0;
+				for (int i = 0; i < s.length(); i++) {
+					char c = s.charAt(i);
+					if (Character.isLetter(c)) {
+						if (inWord>0 && inWord%2==0 && i+1<s.length() && Character.isLetter(s.charAt(i+1))) {
+							sb.append('\u00ad');
+						}
+						inWord++;
+					} else {
+						inWord = 0;
+					}
+					sb.append(c);
+				}
+				return sb.toString();
+			});
+			HyphenatorFactoryMakerService hs = Mockito.mock(HyphenatorFactoryMakerService.class);
+			Mockito.when(hs.newHyphenator(Mockito.anyString())).thenReturn(h);
+			return hs;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+}
@@ -0,0 +1,95 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Optional;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class CompiledTableCacheTest {
+	private File dir;
+
+	@Before
+	public void setUp() throws IOException {
+		dir = Files.createTempDirectory("compiled").toFile();
+	}
+
+	@After
+	public void tearDown() {
+		File[] files = dir.listFiles();
+		if (files!=null) {
+			for (File f : files) {
+				f.delete();
+			}
+		}
+		dir.delete();
+	}
+
+	private static LiblouisBrailleFilter newFilter() {
+		return new LiblouisBrailleFilter.Builder().
+				put((int)'a', "⠁", CharClass.LOWERCASE).
+				put((int)'b', "⠃", CharClass.LOWERCASE).
+				rule(Opcode.WORD, "ab", "⠆").
+				build();
+	}
+
+	@Test
+	public void testPutGet() throws IOException {
+		File source = new File(dir, "source.ctb");
+		Files.write(source.toPath(), Collections.singletonList("word ab 23"));
+		CompiledTableCache cache = new CompiledTableCache(dir);
+		assertFalse(cache.get("source.ctb").isPresent());
+		cache.put("source.ctb", newFilter(), Collections.singletonList(source.toURI().toURL()));
+		Optional<LiblouisBrailleFilter> filter = cache.get("source.ctb");
+		assertTrue(filter.isPresent());
+		assertEquals("⠆ ⠃⠁", filter.get().filter("ab ba"));
+	}
+
+	@Test
+	public void testGet_Changed() throws IOException {
+		File source = new File(dir, "source.ctb");
+		Files.write(source.toPath(), Collections.singletonList("word ab 23"));
+		CompiledTableCache cache = new CompiledTableCache(dir);
+		cache.put("source.ctb", newFilter(), Collections.singletonList(source.toURI().toURL()));
+		assertTrue(source.setLastModified(source.lastModified()-10000));
+		assertFalse(cache.get("source.ctb").isPresent());
+	}
+
+	@Test
+	public void testGet_Removed() throws IOException {
+		File source = new File(dir, "source.ctb");
+		Files.write(source.toPath(), Collections.singletonList("word ab 23"));
+		CompiledTableCache cache = new CompiledTableCache(dir);
+		cache.put("source.ctb", newFilter(), Collections.singletonList(source.toURI().toURL()));
+		assertTrue(source.delete());
+		assertFalse(cache.get("source.ctb").isPresent());
+	}
+
+	@Test
+	public void testLoad() {
+		CompiledTableCache cache = new CompiledTableCache(dir);
+		Optional<LiblouisBrailleFilter> parsed = LiblouisTables.load("dotify-test.ctb", new IncludeCache(), cache);
+		assertTrue(parsed.isPresent());
+		Optional<LiblouisBrailleFilter> compiled = cache.get("dotify-test.ctb");
+		assertTrue(compiled.isPresent());
+		assertEquals(parsed.get().filter("ab Ba 12."), compiled.get().filter("ab Ba 12."));
+		assertEquals("⠇⠀⠠⠃⠁⠀⠼⠁⠃⠲", LiblouisTables.load("dotify-test.ctb", new IncludeCache(), cache).get().filter("ab Ba 12."));
+	}
+
+	@Test
+	public void testLoad_Incomplete() {
+		CompiledTableCache cache = new CompiledTableCache(dir);
+		assertFalse(LiblouisTables.load("dotify-test-incomplete.ctb", new IncludeCache(), cache).isPresent());
+		assertFalse(cache.get("dotify-test-incomplete.ctb").isPresent());
+	}
+
+}
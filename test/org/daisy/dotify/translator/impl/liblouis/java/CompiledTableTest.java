@@ -0,0 +1,84 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class CompiledTableTest {
+
+	private static LiblouisBrailleFilter newFilter() {
+		return new LiblouisBrailleFilter.Builder().
+				put((int)'a', "⠁", CharClass.LOWERCASE).
+				put((int)'b', "⠃", CharClass.LOWERCASE).
+				put((int)'A', "⠁", CharClass.UPPERCASE).
+				put((int)'1', "⠁", CharClass.DIGIT).
+				put((int)'-', "⠤", CharClass.PUNCTUATION).
+				put((int)'-', "⠤", CharClass.MATH).
+				put(0x1D400, "⠠⠁", CharClass.MATH).
+				rule(Opcode.WORD, "ab", "⠆").
+				rule(Opcode.ALWAYS, "ab", "⠣").
+				rule(Opcode.ENDWORD, "ba", "⠖").
+				numsign("⠼").
+				capsign("⠠").
+				build();
+	}
+
+	@Test
+	public void testWriteRead() throws IOException {
+		LiblouisBrailleFilter expected = newFilter();
+		File f = File.createTempFile("table", ".bin");
+		try {
+			CompiledTable.write(expected, f);
+			LiblouisBrailleFilter actual = CompiledTable.read(f);
+			String input = "Aab 11-a \uD835\uDC00 x ab bab";
+			assertEquals(expected.filter(input), actual.filter(input));
+			assertEquals("⠼", actual.getNumsign());
+			assertEquals("⠠", actual.getCapsign());
+			StringBuilder e = new StringBuilder();
+			expected.getSubstitutionTable().forEach((cp, s)->e.append(cp).append(s.getReplacement()).append(s.getGroups()));
+			StringBuilder a = new StringBuilder();
+			actual.getSubstitutionTable().forEach((cp, s)->a.append(cp).append(s.getReplacement()).append(s.getGroups()));
+			assertEquals(e.toString(), a.toString());
+			RuleTrie r = actual.getRules();
+			assertEquals(3, r.size());
+			for (int i = 0; i < r.size(); i++) {
+				assertEquals(expected.getRules().getOpcode(i), r.getOpcode(i));
+				assertEquals(expected.getRules().getChars(i), r.getChars(i));
+				assertEquals(expected.getRules().getReplacement(i), r.getReplacement(i));
+			}
+		} finally {
+			f.delete();
+		}
+	}
+
+	@Test(expected=IOException.class)
+	public void testRead_WrongMagic() throws IOException {
+		CompiledTable.read(ByteBuffer.wrap(new byte[]{0, 0, 0, 0, 0, 0, 0, 1}));
+	}
+
+	@Test(expected=IOException.class)
+	public void testRead_WrongVersion() throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(8);
+		buf.putInt(CompiledTable.MAGIC).putInt(CompiledTable.VERSION + 1).flip();
+		CompiledTable.read(buf);
+	}
+
+	@Test(expected=IOException.class)
+	public void testRead_Truncated() throws IOException {
+		File f = File.createTempFile("table", ".bin");
+		try {
+			CompiledTable.write(newFilter(), f);
+			byte[] b = Files.readAllBytes(f.toPath());
+			CompiledTable.read(ByteBuffer.wrap(b, 0, b.length - 3).slice());
+		} finally {
+			f.delete();
+		}
+	}
+
+}
@@ -0,0 +1,48 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class IncludeCacheTest {
+
+	@Test
+	public void testGet() {
+		IncludeCache cache = new IncludeCache();
+		TableFragment f = new TableFragment();
+		assertNull(cache.get("file:a", 1));
+		cache.put("file:a", 1, f);
+		assertSame(f, cache.get("file:a", 1));
+		assertNull(cache.get("file:a", 2));
+		assertNull(cache.get("file:b", 1));
+	}
+
+	@Test
+	public void testPut_Replaces() {
+		IncludeCache cache = new IncludeCache();
+		TableFragment f = new TableFragment();
+		cache.put("file:a", 1, new TableFragment());
+		cache.put("file:a", 2, f);
+		assertEquals(1, cache.size());
+		assertSame(f, cache.get("file:a", 2));
+		assertNull(cache.get("file:a", 1));
+	}
+
+	@Test
+	public void testCapacity() {
+		IncludeCache cache = new IncludeCache(2);
+		TableFragment a = new TableFragment();
+		cache.put("file:a", 1, a);
+		cache.put("file:b", 1, new TableFragment());
+		// Makes a the most recently used fragment
+		cache.get("file:a", 1);
+		cache.put("file:c", 1, new TableFragment());
+		assertEquals(2, cache.size());
+		assertNull(cache.get("file:b", 1));
+		assertSame(a, cache.get("file:a", 1));
+	}
+
+}
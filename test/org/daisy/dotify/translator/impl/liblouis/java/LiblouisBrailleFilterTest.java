@@ -59,5 +59,102 @@ public class LiblouisBrailleFilterTest {
 		assertEquals("\u283c⠁⠃⠉", filter.filter("123"));
 	}
 
+	@Test
+	public void testFilter_Digits_02() throws IOException {
+		assertEquals("\u283c⠁⠃ \u283c⠉⠁\u283c⠁", filter.filter("12 3a1"));
+	}
+
+	@Test
+	public void testFilter_Caps_05() throws IOException {
+		assertEquals("\u2820⠁ \u2820⠃", filter.filter("A B"));
+	}
+
+	@Test
+	public void testFilter_Undefined_01() throws IOException {
+		assertEquals("\u2820⠁x\uD835\uDC00\u283c⠁", filter.filter("Ax\uD835\uDC001"));
+	}
+
+	@Test
+	public void testFilter_Braille_01() throws IOException {
+		assertEquals("⠁\u2823\u2820⠃", filter.filter("a\u2823B"));
+	}
+
+	@Test
+	public void testFilter_Empty_01() throws IOException {
+		assertEquals("", filter.filter(""));
+	}
+
+	@Test
+	public void testFilter_Rules_01() throws IOException {
+		LiblouisBrailleFilter f = newRuleFilter();
+		// always
+		assertEquals("\u2827\u2809", f.filter("abc"));
+		// word and the longest match
+		assertEquals("\u281e\u2800\u2827\u2809", f.filter("ab abc"));
+		// begword, midword and endword
+		assertEquals("\u2801\u2823\u2801", f.filter("acbca"));
+		assertEquals("\u2827\u2833", f.filter("abcb"));
+		assertEquals("\u2830\u2801", f.filter("cba"));
+	}
+
+	@Test
+	public void testFilter_Rules_Caps() throws IOException {
+		LiblouisBrailleFilter f = newRuleFilter();
+		assertEquals("\u2820\u281e", f.filter("Ab"));
+		// an indicator would be needed inside the rule
+		assertEquals("\u2801\u2820\u2803", f.filter("aB"));
+	}
+
+	@Test
+	public void testFilter_Rules_CapsFallback() throws IOException {
+		LiblouisBrailleFilter f = new LiblouisBrailleFilter.Builder().
+				put((int)'a', "\u2801", CharClass.LOWERCASE).
+				put((int)'b', "\u2803", CharClass.LOWERCASE).
+				put((int)'c', "\u2809", CharClass.LOWERCASE).
+				put((int)'C', "\u2809", CharClass.UPPERCASE).
+				rule(Opcode.ALWAYS, "ab", "\u2827").
+				rule(Opcode.ALWAYS, "abca", "\u283f").
+				capsign("\u2820").
+				build();
+		assertEquals("\u283f", f.filter("abca"));
+		// the longest rule would need an indicator inside, the shorter one doesn't
+		assertEquals("\u2827\u2820\u2809\u2801", f.filter("abCa"));
+	}
+
+	@Test
+	public void testToBrailleFilterString_Whitespace() throws IOException {
+		LiblouisBrailleFilter f = newRuleFilter();
+		assertEquals("\u281e\u2800\u2827\u2809", f.filter("ab abc"));
+		assertEquals("\u281e \u2827\u2809", f.toBrailleFilterString("ab abc"));
+		assertEquals("\u2801  \u2803", f.toBrailleFilterString("a \tb"));
+	}
+
+	@Test
+	public void testToBrailleFilterString_BreakPoints() throws IOException {
+		assertEquals("\u2801\u00ad\u2803\u200b\u2809", filter.toBrailleFilterString("a\u00adb\u200bc"));
+		// a break point doesn't prevent indicators or rules from matching around it
+		assertEquals("\u2820\u2801\u00ad\u2803", filter.toBrailleFilterString("A\u00adb"));
+		assertEquals("\u2827\u00ad\u2809", newRuleFilter().toBrailleFilterString("ab\u00adc"));
+		// inside a rule, the break point is dropped
+		assertEquals("\u2827\u2809", newRuleFilter().toBrailleFilterString("a\u00adbc"));
+		assertEquals("\u2801\u2803", filter.toBrailleFilterString("\u200bab\u00ad"));
+	}
+
+	private static LiblouisBrailleFilter newRuleFilter() {
+		return new LiblouisBrailleFilter.Builder().
+				put((int)'a', "\u2801", CharClass.LOWERCASE).
+				put((int)'b', "\u2803", CharClass.LOWERCASE).
+				put((int)'c', "\u2809", CharClass.LOWERCASE).
+				put((int)'A', "\u2801", CharClass.UPPERCASE).
+				put((int)'B', "\u2803", CharClass.UPPERCASE).
+				put((int)' ', "\u2800", CharClass.SPACE).
+				rule(Opcode.WORD, "ab", "\u281e").
+				rule(Opcode.ALWAYS, "ab", "\u2827").
+				rule(Opcode.MIDWORD, "cbc", "\u2823").
+				rule(Opcode.ENDWORD, "cb", "\u2833").
+				rule(Opcode.BEGWORD, "cb", "\u2830").
+				capsign("\u2820").
+				build();
+	}
 
 }
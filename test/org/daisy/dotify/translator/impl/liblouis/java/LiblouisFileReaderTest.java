@@ -0,0 +1,222 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class LiblouisFileReaderTest {
+	private static final Charset UTF_8 = StandardCharsets.UTF_8;
+
+	private static ResourceResolver newResolver(Map<String, String> files) {
+		return path->{
+			String s = files.get(path);
+			return s==null?null:new ResourceDescriptor(new ByteArrayInputStream(s.getBytes(UTF_8)), UTF_8);
+		};
+	}
+
+	private static LiblouisBrailleFilter read(Map<String, String> files, IncludeCache cache, String path) throws IOException {
+		LiblouisFileReader reader = new LiblouisFileReader(newResolver(files), cache);
+		reader.parse(path);
+		return reader.getFilter();
+	}
+
+	@Test
+	public void testParse_Include() throws IOException {
+		Map<String, String> files = new HashMap<>();
+		files.put("chars.cti", "uplow Aa 1\nuplow Bb 12\n");
+		files.put("a.ctb", "include chars.cti\ncapsign 6\n");
+		files.put("b.ctb", "include chars.cti\n");
+		IncludeCache cache = new IncludeCache();
+		assertEquals("⠠⠁⠃", read(files, cache, "a.ctb").filter("Ab"));
+		assertEquals(1, cache.size());
+		assertEquals("⠁⠃", read(files, cache, "b.ctb").filter("Ab"));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testParse_ChangedInclude() throws IOException {
+		Map<String, String> files = new HashMap<>();
+		files.put("chars.cti", "lowercase a 1\n");
+		files.put("a.ctb", "include chars.cti\n");
+		IncludeCache cache = new IncludeCache();
+		assertEquals("⠁", read(files, cache, "a.ctb").filter("a"));
+		files.put("chars.cti", "lowercase a 2\n");
+		assertEquals("⠂", read(files, cache, "a.ctb").filter("a"));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testParse_ChangedNestedInclude() throws IOException {
+		Map<String, String> files = new HashMap<>();
+		files.put("letters.cti", "lowercase a 1\n");
+		files.put("chars.cti", "include letters.cti\nlowercase b 12\n");
+		files.put("a.ctb", "include chars.cti\n");
+		IncludeCache cache = new IncludeCache();
+		assertEquals("⠁⠃", read(files, cache, "a.ctb").filter("ab"));
+		assertEquals(2, cache.size());
+		// Only the nested include changes
+		files.put("letters.cti", "lowercase a 2\n");
+		assertEquals("⠂⠃", read(files, cache, "a.ctb").filter("ab"));
+		assertEquals("⠂⠃", read(files, cache, "a.ctb").filter("ab"));
+		assertEquals(2, cache.size());
+	}
+
+	@Test
+	public void testParse_AddedNestedInclude() throws IOException {
+		Map<String, String> files = new HashMap<>();
+		files.put("chars.cti", "include letters.cti\nlowercase b 12\n");
+		files.put("a.ctb", "include chars.cti\n");
+		IncludeCache cache = new IncludeCache();
+		assertFalse(parse(files, cache, "a.ctb").isComplete());
+		files.put("letters.cti", "lowercase a 1\n");
+		LiblouisFileReader reader = parse(files, cache, "a.ctb");
+		assertTrue(reader.isComplete());
+		assertEquals("⠁⠃", reader.getFilter().filter("ab"));
+	}
+
+	@Test
+	public void testParse_Rules() throws IOException {
+		Map<String, String> files = new HashMap<>();
+		files.put("a.ctb", "lowercase a 1\nlowercase b 12\nlowercase c 14\n"
+				+ "word ab 2345\nalways ab 12346\nbegword ca 3\nendword bc 36\nmidword bb 23\n");
+		LiblouisBrailleFilter filter = read(files, new IncludeCache(), "a.ctb");
+		assertEquals("⠞", filter.filter("ab"));
+		assertEquals("⠯⠉", filter.filter("abc"));
+		assertEquals("⠄⠆⠉", filter.filter("cabbc"));
+		assertEquals("⠯⠤", filter.filter("abbc"));
+	}
+
+	@Test
+	public void testParse_Prefixes() throws IOException {
+		Map<String, String> files = new HashMap<>();
+		files.put("a.ctb", "# comment\nlowercase a 1\nlowercase b 12\n"
+				+ "nofor always ab 3\nnoback always ba 4\nalways\nunknown x y\n");
+		LiblouisBrailleFilter filter = read(files, new IncludeCache(), "a.ctb");
+		assertEquals("⠁⠈", filter.filter("aba"));
+		assertEquals("⠁⠃", filter.filter("ab"));
+	}
+
+	@Test
+	public void testIsComplete() throws IOException {
+		Map<String, String> files = new HashMap<>();
+		files.put("chars.cti", "lowercase a 1\n");
+		files.put("partial.cti", "lowercase b 12\nletsign 56\n");
+		files.put("a.ctb", "include chars.cti\nnofor always ab 3\ndisplay a 1\n");
+		files.put("b.ctb", "include chars.cti\ninclude partial.cti\n");
+		files.put("c.ctb", "include missing.cti\n");
+		IncludeCache cache = new IncludeCache();
+		assertTrue(parse(files, cache, "a.ctb").isComplete());
+		assertFalse(parse(files, cache, "b.ctb").isComplete());
+		assertFalse(parse(files, cache, "c.ctb").isComplete());
+	}
+
+	@Test
+	public void testParse_ChangedFileUrlInclude() throws IOException {
+		File dir = Files.createTempDirectory("liblouis").toFile();
+		File chars = new File(dir, "chars.cti");
+		File table = new File(dir, "a.ctb");
+		try {
+			Files.write(chars.toPath(), "lowercase a 1\n".getBytes(UTF_8));
+			Files.write(table.toPath(), "include chars.cti\n".getBytes(UTF_8));
+			ResourceResolver resolver = path->{
+				File f = new File(dir, path);
+				try {
+					return f.isFile()?new ResourceDescriptor(f.toURI().toURL(), UTF_8):null;
+				} catch (MalformedURLException e) {
+					throw new UncheckedIOException(e);
+				}
+			};
+			IncludeCache cache = new IncludeCache();
+			LiblouisFileReader reader = new LiblouisFileReader(resolver, cache);
+			reader.parse("a.ctb");
+			assertEquals("⠁", reader.getFilter().filter("a"));
+			// Files are stamped with their modification time
+			Files.write(chars.toPath(), "lowercase a 2\n".getBytes(UTF_8));
+			chars.setLastModified(chars.lastModified() + 2000);
+			reader = new LiblouisFileReader(resolver, cache);
+			reader.parse("a.ctb");
+			assertEquals("⠂", reader.getFilter().filter("a"));
+			assertEquals(1, cache.size());
+		} finally {
+			chars.delete();
+			table.delete();
+			dir.delete();
+		}
+	}
+
+	@Test
+	public void testParse_ClassPathIncludeReadOnce() throws IOException {
+		ResourceResolver base = new ClassLoaderResourceResolver("/org/liblouis/resource-files/tables/", UTF_8);
+		List<String> opened = new ArrayList<>();
+		ResourceResolver resolver = path->{
+			ResourceDescriptor rd = base.resolve(path);
+			return rd==null?null:new ResourceDescriptor(rd.getURL(), rd.getEncoding()) {
+				@Override
+				public InputStream getInputStream() throws IOException {
+					opened.add(path);
+					return super.getInputStream();
+				}
+			};
+		};
+		IncludeCache cache = new IncludeCache();
+		for (int i=0; i<3; i++) {
+			new LiblouisFileReader(resolver, cache).parse("dotify-test-incomplete.ctb");
+		}
+		// Resources on the class path are neither read nor hashed to check that they are current
+		assertEquals(1, Collections.frequency(opened, "dotify-test.ctb"));
+		assertEquals(3, Collections.frequency(opened, "dotify-test-incomplete.ctb"));
+	}
+
+	@Test
+	public void testGetSources() throws IOException {
+		IncludeCache cache = new IncludeCache();
+		ResourceResolver resolver = new ClassLoaderResourceResolver("/org/liblouis/resource-files/tables/", UTF_8);
+		for (int i=0; i<2; i++) {
+			// Includes taken from the cache are also listed
+			LiblouisFileReader reader = new LiblouisFileReader(resolver, cache);
+			reader.parse("dotify-test-incomplete.ctb");
+			List<String> sources = new ArrayList<>();
+			reader.getSources().get().forEach(url->sources.add(new File(url.getPath()).getName()));
+			assertEquals(Arrays.asList("dotify-test-incomplete.ctb", "dotify-test.ctb"), sources);
+		}
+	}
+
+	@Test
+	public void testGetSources_Stream() throws IOException {
+		Map<String, String> files = new HashMap<>();
+		files.put("chars.cti", "lowercase a 1\n");
+		files.put("a.ctb", "include chars.cti\n");
+		assertFalse(parse(files, new IncludeCache(), "a.ctb").getSources().isPresent());
+	}
+
+	private static LiblouisFileReader parse(Map<String, String> files, IncludeCache cache, String path) throws IOException {
+		LiblouisFileReader reader = new LiblouisFileReader(newResolver(files), cache);
+		reader.parse(path);
+		return reader;
+	}
+
+	@Test
+	public void testGetFilter_Missing() {
+		assertFalse(LiblouisTables.getFilter("missing.ctb").isPresent());
+	}
+
+}
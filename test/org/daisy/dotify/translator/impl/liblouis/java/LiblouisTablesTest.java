@@ -0,0 +1,42 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Optional;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class LiblouisTablesTest {
+
+	@Test
+	public void testGetFilter() {
+		Optional<LiblouisBrailleFilter> filter = LiblouisTables.getFilter("dotify-test.ctb");
+		assertTrue(filter.isPresent());
+		assertSame(filter.get(), LiblouisTables.getFilter("dotify-test.ctb").get());
+		assertEquals("⠇⠀⠠⠃⠁⠀⠼⠁⠃⠲", filter.get().filter("ab Ba 12."));
+	}
+
+	@Test
+	public void testLoad() {
+		Optional<LiblouisBrailleFilter> filter = LiblouisTables.load("dotify-test.ctb");
+		assertTrue(filter.isPresent());
+		// The result isn't kept
+		assertNotSame(filter.get(), LiblouisTables.load("dotify-test.ctb").get());
+	}
+
+	@Test
+	public void testGetFilter_Incomplete() {
+		assertFalse(LiblouisTables.getFilter("dotify-test-incomplete.ctb").isPresent());
+	}
+
+	@Test
+	public void testGetFilter_Missing() {
+		assertFalse(LiblouisTables.getFilter("dotify-test-missing.ctb").isPresent());
+	}
+
+}
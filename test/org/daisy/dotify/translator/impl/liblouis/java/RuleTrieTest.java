@@ -0,0 +1,55 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class RuleTrieTest {
+
+	private static int walk(RuleTrie t, String s) {
+		int node = RuleTrie.ROOT;
+		for (int i = 0; i < s.length() && node>=0; i++) {
+			node = t.child(node, s.charAt(i));
+		}
+		return node;
+	}
+
+	@Test
+	public void testChild() {
+		RuleTrie t = new RuleTrie.Builder().
+				add(Opcode.ALWAYS, "the", "⠮").
+				add(Opcode.WORD, "The", "⠞").
+				add(Opcode.ALWAYS, "th", "⠹").
+				add(Opcode.ALWAYS, "and", "⠯").
+				build();
+		assertEquals(4, t.size());
+		int th = walk(t, "th");
+		assertEquals(1, t.endRule(th) - t.firstRule(th));
+		assertEquals("⠹", t.getReplacement(t.firstRule(th)));
+		int the = walk(t, "the");
+		assertEquals(2, t.endRule(the) - t.firstRule(the));
+		assertEquals(Opcode.ALWAYS, t.getOpcode(t.firstRule(the)));
+		assertEquals(Opcode.WORD, t.getOpcode(t.firstRule(the) + 1));
+		assertEquals("The", t.getChars(t.firstRule(the) + 1));
+		int t1 = walk(t, "t");
+		assertEquals(t.firstRule(t1), t.endRule(t1));
+		assertEquals(-1, walk(t, "thx"));
+		assertEquals(-1, walk(t, "x"));
+		assertTrue(walk(t, "and")>0);
+	}
+
+	@Test
+	public void testEmpty() {
+		RuleTrie t = new RuleTrie.Builder().build();
+		assertTrue(t.isEmpty());
+		assertEquals(-1, t.child(RuleTrie.ROOT, 'a'));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testAdd_Empty() {
+		new RuleTrie.Builder().add(Opcode.ALWAYS, "", "⠁");
+	}
+
+}
@@ -1,6 +1,7 @@
 package org.daisy.dotify.translator.impl.liblouis.java;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import org.daisy.dotify.translator.impl.liblouis.java.StringProcessor;
 import org.junit.Test;
@@ -11,4 +12,16 @@ public class StringProcessorTest {
 	public void test() {
 		assertEquals("\\\f\n\r \t\0x0B\0x1B\r\r", StringProcessor.unescape("\\\\\\f\\n\\r\\s\\t\\v\\e\\x000D\\x000d"));
 	}
+
+	@Test
+	public void testNoEscapes() {
+		String s = "abc";
+		assertSame(s, StringProcessor.unescape(s));
+	}
+
+	@Test
+	public void testIncomplete() {
+		assertEquals("a\\x00\\q\\", StringProcessor.unescape("a\\x00\\q\\"));
+		assertEquals("\\x0041A", StringProcessor.unescape("\\\\x0041\\x0041"));
+	}
 }
@@ -0,0 +1,64 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class SubstitutionTableTest {
+
+	@Test
+	public void testGet_Bmp() {
+		Map<Integer, Substitution> map = new HashMap<>();
+		Substitution a = new Substitution("\u2801");
+		Substitution z = new Substitution("\u2835");
+		map.put((int)'a', a);
+		map.put((int)'z', z);
+		SubstitutionTable t = new SubstitutionTable(map);
+		assertSame(a, t.get('a'));
+		assertSame(z, t.get('z'));
+		assertNull(t.get('b'));
+		assertNull(t.get(0));
+		assertNull(t.get('\u00e5'));
+		assertNull(t.get(0xFFFF));
+	}
+
+	@Test
+	public void testGet_Supplementary() {
+		Map<Integer, Substitution> map = new HashMap<>();
+		Map<Integer, Substitution> expected = new HashMap<>();
+		// Enough keys to cause collisions in the hash table
+		for (int cp = 0x1D400; cp < 0x1D400 + 100; cp++) {
+			Substitution s = new Substitution(new String(Character.toChars(cp)));
+			map.put(cp, s);
+			expected.put(cp, s);
+		}
+		SubstitutionTable t = new SubstitutionTable(map);
+		for (Map.Entry<Integer, Substitution> e : expected.entrySet()) {
+			assertSame(e.getValue(), t.get(e.getKey()));
+		}
+		assertNull(t.get(0x1D3FF));
+		assertNull(t.get(0x1D400 + 100));
+		assertNull(t.get(Character.MAX_CODE_POINT));
+		assertNull(t.get('a'));
+	}
+
+	@Test
+	public void testGet_Empty() {
+		SubstitutionTable t = new SubstitutionTable(new HashMap<>());
+		assertNull(t.get('a'));
+		assertNull(t.get(0x1F600));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testInvalidCodePoint() {
+		Map<Integer, Substitution> map = new HashMap<>();
+		map.put(-1, new Substitution(""));
+		new SubstitutionTable(map);
+	}
+
+}
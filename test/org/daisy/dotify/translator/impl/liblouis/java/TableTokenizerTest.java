@@ -0,0 +1,57 @@
+package org.daisy.dotify.translator.impl.liblouis.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class TableTokenizerTest {
+
+	private static TableTokenizer newTokenizer(String s) {
+		return new TableTokenizer(new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testNext() throws IOException {
+		TableTokenizer t = newTokenizer("\uFEFF# comment\n\n  \t\nuplow  Aa\t1 comment\r\n  always the 2346\n");
+		assertTrue(t.next());
+		assertEquals(4, t.fieldCount());
+		assertEquals("uplow", t.field(0));
+		assertEquals("Aa", t.field(1));
+		assertEquals("1", t.field(2));
+		assertEquals("comment", t.field(3));
+		assertEquals("uplow  Aa\t1 comment", t.line());
+		assertTrue(t.next());
+		assertEquals(3, t.fieldCount());
+		assertEquals("always", t.field(0));
+		assertEquals("2346", t.field(2));
+		assertFalse(t.next());
+		assertEquals(0, t.fieldCount());
+	}
+
+	@Test
+	public void testNext_ManyFields() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 20; i++) {
+			sb.append(i).append(' ');
+		}
+		TableTokenizer t = newTokenizer(sb.toString());
+		assertTrue(t.next());
+		assertEquals(20, t.fieldCount());
+		assertEquals("19", t.field(19));
+	}
+
+	@Test(expected=IndexOutOfBoundsException.class)
+	public void testField_Missing() throws IOException {
+		TableTokenizer t = newTokenizer("space \\s");
+		t.next();
+		t.field(2);
+	}
+
+}
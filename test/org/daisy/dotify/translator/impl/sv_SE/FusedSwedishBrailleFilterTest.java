@@ -0,0 +1,73 @@
+package org.daisy.dotify.translator.impl.sv_SE;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.daisy.dotify.translator.impl.sv_SE.SwedishBrailleFilter.Algorithm;
+import org.junit.Test;
+
+@SuppressWarnings("javadoc")
+public class FusedSwedishBrailleFilterTest {
+	private static final String LOCALE = "sv-SE";
+	// Letters, digits, punctuation, whitespace, break point characters, braille, table entries
+	// with several characters or whitespace, and characters that are passed to the staged filter
+	private static final String ALPHABET = "abcdjkxyzåäöéüABCDJKXYZÅÄÖÉÜ0123456789.,;:!?-/()\"' \t\n"
+			+ "\u00ad\u200b\u00a0–→♥٭½§€⠠⠼⠱бİΣ\u0301あ";
+
+	private static void assertSameAsStaged(boolean strict, String... input) {
+		SwedishBrailleFilter staged = new SwedishBrailleFilter(LOCALE, strict, Algorithm.STAGED);
+		SwedishBrailleFilter fused = new SwedishBrailleFilter(LOCALE, strict, Algorithm.FUSED);
+		for (String s : input) {
+			assertEquals(s, staged.filter(s), fused.filter(s));
+		}
+	}
+
+	@Test
+	public void testWords() {
+		assertSameAsStaged(false, "", "Hon sa: DN:s redaktion är stor.", "IKEAs katalog", "Svenska ISBN-centralen",
+				"kWh, JämO", "Lösenord: oVbEGj", "A\u00adB\u00adC", "AB-CDE-f", "Anne-Marie", "X\u00ad");
+	}
+
+	@Test
+	public void testDigits() {
+		assertSameAsStaged(false, "2009", "0,55 liter/mil", "Lösenord: lvb57j", "1.2a", "ab12cd34", "Negativa tal: -45645", "2¼, 1½");
+	}
+
+	@Test
+	public void testWhitespace() {
+		assertSameAsStaged(false, "  a \t\n b  ", "a\u200b \u200bb", "pil → ner", "→→");
+	}
+
+	@Test
+	public void testStrict() {
+		assertSameAsStaged(true, "-", "a-b", "a -1", "a - 1", "-1", "a-", "a--b", "a\u00a0b", "gul- och vit", "se § 7–9");
+	}
+
+	@Test
+	public void testStaged() {
+		assertSameAsStaged(false, "M/S Kronan", "SYNSKADADES RIKSFÖRBUND", "İ", "ΣΣ", "e\u0301", "あ");
+	}
+
+	@Test
+	public void testRandom() {
+		Random r = new Random(4711);
+		SwedishBrailleFilter staged = new SwedishBrailleFilter(LOCALE, false, Algorithm.STAGED);
+		SwedishBrailleFilter fused = new SwedishBrailleFilter(LOCALE, false, Algorithm.FUSED);
+		SwedishBrailleFilter stagedStrict = new SwedishBrailleFilter(LOCALE, true, Algorithm.STAGED);
+		SwedishBrailleFilter fusedStrict = new SwedishBrailleFilter(LOCALE, true, Algorithm.FUSED);
+		for (int i = 0; i<5000; i++) {
+			// Mostly use a part of the alphabet, so that some inputs have no upper case sequences or unsupported characters
+			int range = 1 + r.nextInt(ALPHABET.length());
+			StringBuilder sb = new StringBuilder();
+			int len = r.nextInt(30);
+			for (int j = 0; j<len; j++) {
+				sb.append(ALPHABET.charAt(r.nextInt(range)));
+			}
+			String s = sb.toString();
+			assertEquals(s, staged.filter(s), fused.filter(s));
+			assertEquals(s, stagedStrict.filter(s), fusedStrict.filter(s));
+		}
+	}
+
+}